@@ -0,0 +1,127 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.benchmarks;
+
+import org.jboss.migration.core.util.xml.FormattingXMLStreamWriter;
+import org.jboss.migration.core.util.xml.XMLIOProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of {@link FormattingXMLStreamWriter}, compared to the plain {@link XMLStreamWriter} it delegates to, when writing a large server configuration like document. Run with <code>-prof gc</code> to check that formatting does not allocate.
+ * @author emmartins
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FormattingXMLStreamWriterBenchmark {
+
+    private static final String NAMESPACE = "urn:jboss:domain:4.0";
+
+    /**
+     * the number of subsystems in the document
+     */
+    @Param({"100", "1000"})
+    public int subsystems;
+
+    private final CountingWriter out = new CountingWriter();
+
+    @Benchmark
+    public long plain() throws XMLStreamException {
+        out.count = 0;
+        writeDocument(XMLIOProvider.getInstance().getOutputFactory().createXMLStreamWriter(out));
+        return out.count;
+    }
+
+    @Benchmark
+    public long formatting() throws XMLStreamException {
+        out.count = 0;
+        writeDocument(new FormattingXMLStreamWriter(XMLIOProvider.getInstance().getOutputFactory().createXMLStreamWriter(out)));
+        return out.count;
+    }
+
+    private void writeDocument(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartDocument();
+        writer.setDefaultNamespace(NAMESPACE);
+        writer.writeStartElement(NAMESPACE, "server");
+        writer.writeDefaultNamespace(NAMESPACE);
+        writer.writeComment("a comment\nwith multiple\nlines");
+        writer.writeStartElement(NAMESPACE, "profile");
+        for (int i = 0; i < subsystems; i++) {
+            writer.writeStartElement(NAMESPACE, "subsystem");
+            writer.writeAttribute("name", "subsystem");
+            writer.writeStartElement(NAMESPACE, "resources");
+            for (int j = 0; j < 5; j++) {
+                writer.writeEmptyElement(NAMESPACE, "resource");
+                writer.writeAttribute("name", "resource");
+                writer.writeAttribute("enabled", "true");
+            }
+            writer.writeStartElement(NAMESPACE, "description");
+            writer.writeCharacters("  some text  ");
+            writer.writeEndElement();
+            writer.writeStartElement(NAMESPACE, "script");
+            writer.writeCharacters("\nfirst line\nsecond line\n");
+            writer.writeEndElement();
+            writer.writeEndElement();
+            writer.writeEndElement();
+        }
+        writer.writeEndElement();
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.close();
+    }
+
+    /**
+     * A writer which only counts the chars written.
+     */
+    private static class CountingWriter extends Writer {
+        private long count;
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            count += len;
+        }
+        @Override
+        public void write(String str, int off, int len) {
+            count += len;
+        }
+        @Override
+        public void write(int c) {
+            count++;
+        }
+        @Override
+        public void flush() {
+        }
+        @Override
+        public void close() {
+        }
+    }
+}
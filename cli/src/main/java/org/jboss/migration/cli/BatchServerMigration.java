@@ -0,0 +1,226 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.cli;
+
+import org.jboss.migration.core.MigrationData;
+import org.jboss.migration.core.MigrationJournal;
+import org.jboss.migration.core.ServerMigrationTaskResult;
+import org.jboss.migration.core.env.MigrationEnvironment;
+import org.jboss.migration.core.logger.ServerMigrationLogger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A batch of server migrations, defined by a manifest, which are executed concurrently in a single JVM.
+ *
+ * The manifest is a properties file, where each migration is defined by the properties {@code <name>.source} and {@code <name>.target}, with the base dirs of the servers, and the optional {@code <name>.environment}, with the path of a properties file which overrides the user environment. Relative paths are resolved against the manifest's dir.
+ *
+ * Each migration writes its journal and reports in its own output dir, named after the migration, and a summary of all migrations is written in the batch output dir.
+ *
+ * Each migration has its own environment, and thus its own StAX implementation, but the embedded server relies on JVM wide state, thus migrations booting embedded servers should not run concurrently.
+ * @author emmartins
+ */
+class BatchServerMigration {
+
+    private static final String SOURCE = "source";
+    private static final String TARGET = "target";
+    private static final String ENVIRONMENT = "environment";
+    private static final String DEFAULT_SUMMARY_FILE_NAME = "migration-batch-summary.txt";
+
+    private final SortedMap<String, Entry> entries;
+    private final List<Properties> userProperties;
+    private final MigrationJournal.Mode journalMode;
+    private final Path configDirPath;
+    private final Path outputDirPath;
+
+    BatchServerMigration(Path manifest, List<Properties> userProperties, MigrationJournal.Mode journalMode, Path configDirPath, Path outputDirPath) throws IOException, IllegalArgumentException {
+        this.entries = readManifest(manifest);
+        this.userProperties = userProperties;
+        this.journalMode = journalMode;
+        this.configDirPath = configDirPath;
+        this.outputDirPath = outputDirPath;
+    }
+
+    private static SortedMap<String, Entry> readManifest(Path manifest) throws IOException, IllegalArgumentException {
+        final Properties properties = CommandLineServerMigration.loadProperties(manifest);
+        final Path manifestDir = manifest.getParent();
+        final SortedMap<String, Entry> entries = new TreeMap<>();
+        for (String propertyName : properties.stringPropertyNames()) {
+            final int index = propertyName.lastIndexOf('.');
+            final String name = index > 0 ? propertyName.substring(0, index) : null;
+            if (name == null || name.contains("/") || name.contains("\\") || name.equals("..")) {
+                throw new IllegalArgumentException("Invalid batch manifest property "+propertyName);
+            }
+            Entry entry = entries.get(name);
+            if (entry == null) {
+                entry = new Entry(name);
+                entries.put(name, entry);
+            }
+            final Path path = CommandLineServerMigration.resolvePath(properties.getProperty(propertyName).trim(), manifestDir);
+            switch (propertyName.substring(index + 1)) {
+                case SOURCE:
+                    entry.source = path;
+                    break;
+                case TARGET:
+                    entry.target = path;
+                    break;
+                case ENVIRONMENT:
+                    entry.environment = path;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid batch manifest property "+propertyName);
+            }
+        }
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException("Batch manifest "+manifest+" does not define migrations");
+        }
+        for (Entry entry : entries.values()) {
+            if (entry.source == null || entry.target == null) {
+                throw new IllegalArgumentException("Batch manifest migration "+entry.name+" source and/or target not defined");
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Runs the batch's migrations, and writes the batch summary.
+     * @return true if all migrations succeeded, false otherwise
+     * @throws InterruptedException if interrupted while awaiting the migrations
+     */
+    boolean run() throws InterruptedException {
+        final MigrationEnvironment batchEnvironment = CommandLineServerMigration.newUserEnvironment(userProperties);
+        final int maxThreads = Integer.valueOf(batchEnvironment.getPropertyAsString(EnvironmentProperties.BATCH_MAX_THREADS, "1"));
+        final ExecutorService executorService = Executors.newFixedThreadPool(Math.max(1, Math.min(maxThreads, entries.size())));
+        final Map<String, Future<MigrationData>> futures = new TreeMap<>();
+        final long startTime = System.nanoTime();
+        try {
+            for (final Entry entry : entries.values()) {
+                futures.put(entry.name, executorService.submit(new Callable<MigrationData>() {
+                    @Override
+                    public MigrationData call() throws Exception {
+                        final long entryStartTime = System.nanoTime();
+                        try {
+                            final List<Properties> entryProperties = new ArrayList<>(userProperties);
+                            if (entry.environment != null) {
+                                entryProperties.add(CommandLineServerMigration.loadProperties(entry.environment));
+                            }
+                            return CommandLineServerMigration.migrate(entry.source, entry.target, false, CommandLineServerMigration.newUserEnvironment(entryProperties), journalMode, configDirPath, outputDirPath.resolve(entry.name));
+                        } finally {
+                            entry.wallTime = System.nanoTime() - entryStartTime;
+                        }
+                    }
+                }));
+            }
+            boolean success = true;
+            for (Entry entry : entries.values()) {
+                try {
+                    entry.migrationData = futures.get(entry.name).get();
+                    final ServerMigrationTaskResult.Status status = entry.migrationData.getRootTask().getResult().getStatus();
+                    if (status == ServerMigrationTaskResult.Status.FAIL || status == ServerMigrationTaskResult.Status.CANCELLED) {
+                        success = false;
+                    }
+                } catch (ExecutionException e) {
+                    ServerMigrationLogger.ROOT_LOGGER.error("Migration "+entry.name+" failed", e.getCause());
+                    entry.failure = e.getCause();
+                    success = false;
+                }
+            }
+            writeSummary(batchEnvironment, System.nanoTime() - startTime);
+            return success;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void writeSummary(MigrationEnvironment batchEnvironment, long wallTime) {
+        final String lineSeparator = "----------------------------------------------------------\n";
+        final StringBuilder sb = new StringBuilder();
+        sb.append('\n');
+        sb.append(lineSeparator);
+        sb.append(" Batch Migration Summary\n");
+        sb.append(lineSeparator);
+        sb.append('\n');
+        int successful = 0;
+        for (Entry entry : entries.values()) {
+            sb.append(' ').append(entry.name).append(": ");
+            if (entry.migrationData != null) {
+                final ServerMigrationTaskResult.Status status = entry.migrationData.getRootTask().getResult().getStatus();
+                if (status != ServerMigrationTaskResult.Status.FAIL && status != ServerMigrationTaskResult.Status.CANCELLED) {
+                    successful++;
+                }
+                sb.append(status)
+                        .append(" (tasks ").append(entry.migrationData.getTaskCount())
+                        .append(", failed ").append(entry.migrationData.getTaskCount(ServerMigrationTaskResult.Status.FAIL))
+                        .append(", cancelled ").append(entry.migrationData.getTaskCount(ServerMigrationTaskResult.Status.CANCELLED))
+                        .append(", ");
+            } else {
+                sb.append("ERROR (").append(entry.failure).append(", ");
+            }
+            sb.append(String.format("%.3f s", entry.wallTime / 1000000000.0)).append(")\n");
+            sb.append("   source: ").append(entry.source).append('\n');
+            sb.append("   target: ").append(entry.target).append('\n');
+            sb.append("   output: ").append(outputDirPath.resolve(entry.name)).append('\n');
+        }
+        sb.append('\n');
+        sb.append(lineSeparator);
+        sb.append(" Migrations: ").append(entries.size())
+                .append(", Successful: ").append(successful)
+                .append(", Failed: ").append(entries.size() - successful)
+                .append(String.format(", Time: %.3f s", wallTime / 1000000000.0)).append('\n');
+        sb.append(lineSeparator);
+        final String summary = sb.toString();
+        ServerMigrationLogger.ROOT_LOGGER.info(summary);
+        final String summaryFileName = batchEnvironment.getPropertyAsString(EnvironmentProperties.BATCH_SUMMARY_FILE_NAME, DEFAULT_SUMMARY_FILE_NAME);
+        if (!summaryFileName.isEmpty()) {
+            try {
+                Files.createDirectories(outputDirPath);
+                try (BufferedWriter writer = Files.newBufferedWriter(outputDirPath.resolve(summaryFileName), StandardCharsets.UTF_8)) {
+                    writer.write(summary);
+                }
+            } catch (Throwable e) {
+                ServerMigrationLogger.ROOT_LOGGER.error("Batch summary write failed", e);
+            }
+        }
+    }
+
+    private static class Entry {
+        private final String name;
+        private Path source;
+        private Path target;
+        private Path environment;
+        private volatile long wallTime;
+        private MigrationData migrationData;
+        private Throwable failure;
+        private Entry(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -26,12 +26,21 @@ public class CommandLineArgumentUsageImpl extends CommandLineArgumentUsage {
 
     public static void init(){
 
+        addArguments(CommandLineConstants.BATCH + " <value>");
+        instructions.add(CommandLineMigrationLogger.ROOT_LOGGER.argBatch());
+
         addArguments(CommandLineConstants.ENVIRONMENT + " <value>");
         instructions.add(CommandLineMigrationLogger.ROOT_LOGGER.argEnvironment());
 
         addArguments(CommandLineConstants.INTERACTIVE + " <value>");
         instructions.add(CommandLineMigrationLogger.ROOT_LOGGER.argInteractive());
 
+        addArguments(CommandLineConstants.INCREMENTAL);
+        instructions.add(CommandLineMigrationLogger.ROOT_LOGGER.argIncremental());
+
+        addArguments(CommandLineConstants.RESUME);
+        instructions.add(CommandLineMigrationLogger.ROOT_LOGGER.argResume());
+
         addArguments(CommandLineConstants.SOURCE + " <value>");
         instructions.add(CommandLineMigrationLogger.ROOT_LOGGER.argSource());
 
@@ -19,8 +19,11 @@ package org.jboss.migration.cli;
  * @author emmartins
  */
 public interface CommandLineConstants {
+    String BATCH = "--batch";
     String ENVIRONMENT = "--environment";
+    String INCREMENTAL = "--incremental";
     String INTERACTIVE = "--interactive";
+    String RESUME = "--resume";
     String SOURCE = "--source";
     String TARGET = "--target";
 }
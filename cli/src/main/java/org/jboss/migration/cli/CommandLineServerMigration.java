@@ -16,6 +16,7 @@
 package org.jboss.migration.cli;
 
 import org.jboss.migration.core.MigrationData;
+import org.jboss.migration.core.MigrationJournal;
 import org.jboss.migration.core.ServerMigrationTaskResult;
 import org.jboss.migration.core.env.MigrationEnvironment;
 import org.jboss.migration.core.ServerMigration;
@@ -32,6 +33,8 @@ import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -58,17 +61,28 @@ public class CommandLineServerMigration {
      */
     public static void main(String[] args) {
         try {
-            if(args.length < 4) {
+            if(args.length < 2) {
                 usage();
                 abort(null);
             }
+            Path batch = null;
             Path source = null;
             Path target = null;
             Path environment = null;
             Boolean interactive = null;
+            MigrationJournal.Mode journalMode = MigrationJournal.Mode.NEW;
             for(int i = 0; i < args.length; ++i) {
                 String arg = args[i];
                 switch (arg) {
+                    case CommandLineConstants.BATCH: {
+                        ++i;
+                        if(i == args.length || batch != null) {
+                            usage();
+                            abort(null);
+                        }
+                        batch = resolvePath(args[i]);
+                        break;
+                    }
                     case CommandLineConstants.ENVIRONMENT: {
                         ++i;
                         if(i == args.length || environment != null) {
@@ -87,6 +101,22 @@ public class CommandLineServerMigration {
                         interactive = Boolean.valueOf(args[i]);
                         break;
                     }
+                    case CommandLineConstants.INCREMENTAL: {
+                        if(journalMode != MigrationJournal.Mode.NEW) {
+                            usage();
+                            abort(null);
+                        }
+                        journalMode = MigrationJournal.Mode.INCREMENTAL;
+                        break;
+                    }
+                    case CommandLineConstants.RESUME: {
+                        if(journalMode != MigrationJournal.Mode.NEW) {
+                            usage();
+                            abort(null);
+                        }
+                        journalMode = MigrationJournal.Mode.RESUME;
+                        break;
+                    }
                     case CommandLineConstants.SOURCE: {
                         ++i;
                         if(i == args.length || source != null) {
@@ -107,8 +137,12 @@ public class CommandLineServerMigration {
                     }
                 }
             }
+            if (batch == null ? (source == null || target == null) : (source != null || target != null)) {
+                usage();
+                abort(null);
+            }
             if (interactive == null) {
-                interactive = true;
+                interactive = batch == null;
             }
 
             final String baseDir = SystemEnvironment.INSTANCE.getPropertyAsString(EnvironmentProperties.BASE_DIR);
@@ -120,60 +154,101 @@ public class CommandLineServerMigration {
             final Path outputDirPath = baseDirPath.resolve("output");
 
             // setup user environment
-            final MigrationEnvironment userEnvironment = new MigrationEnvironment();
+            final List<Properties> userProperties = new ArrayList<>();
             final Path configDirEnvironment = configDirPath.resolve("environment.properties");
             if (Files.exists(configDirEnvironment)) {
-                userEnvironment.setProperties(loadProperties(configDirEnvironment));
+                userProperties.add(loadProperties(configDirEnvironment));
             }
             if (environment != null) {
-                userEnvironment.setProperties(loadProperties(environment));
+                userProperties.add(loadProperties(environment));
             }
 
             WildFlySecurityManager.setPropertyPrivileged("java.util.logging.manager", "org.jboss.logmanager.LogManager");
 
-            // run migration
-            final MigrationData migrationData = new ServerMigration()
-                    .from(source)
-                    .to(target)
-                    .interactive(interactive)
-                    .userEnvironment(userEnvironment)
-                    .run();
-
-            // write reports
-            final String htmlReportFileName = userEnvironment.getPropertyAsString(EnvironmentProperties.REPORT_HTML_FILE_NAME);
-            final String xmlReportFileName = userEnvironment.getPropertyAsString(EnvironmentProperties.REPORT_XML_FILE_NAME);
-            if (htmlReportFileName != null) {
-                try {
-                    final String htmlReportTemplateFileName = userEnvironment.getPropertyAsString(EnvironmentProperties.REPORT_HTML_TEMPLATE_FILE_NAME, "migration-report-template.html");
-                    final Path htmlReportTemplatePath = configDirPath.resolve(htmlReportTemplateFileName);
-                    HtmlReportWriter.INSTANCE.toPath(outputDirPath.resolve(htmlReportFileName), migrationData, HtmlReportWriter.ReportTemplate.from(htmlReportTemplatePath));
-                } catch (Throwable e) {
-                    ServerMigrationLogger.ROOT_LOGGER.error("HTML Report write failed", e);
+            if (batch != null) {
+                // run batch of migrations
+                if (interactive) {
+                    throw new IllegalArgumentException("Batch migration may not be interactive.");
                 }
-            }
-            if (xmlReportFileName != null) {
-                try {
-                    XmlReportWriter.INSTANCE.writeContent(outputDirPath.resolve(xmlReportFileName).toFile(), migrationData);
-                } catch (Throwable e) {
-                    ServerMigrationLogger.ROOT_LOGGER.error("XML Report write failed", e);
+                final BatchServerMigration batchServerMigration = new BatchServerMigration(batch, userProperties, journalMode, configDirPath, outputDirPath);
+                if (!batchServerMigration.run()) {
+                    System.exit(1);
+                }
+            } else {
+                // run migration
+                final MigrationData migrationData = migrate(source, target, interactive, newUserEnvironment(userProperties), journalMode, configDirPath, outputDirPath);
+                final ServerMigrationTaskResult.Status status = migrationData.getRootTask().getResult().getStatus();
+                if (status == ServerMigrationTaskResult.Status.FAIL || status == ServerMigrationTaskResult.Status.CANCELLED) {
+                    System.exit(1);
                 }
-            }
-            if (migrationData.getRootTask().getResult().getStatus() == ServerMigrationTaskResult.Status.FAIL) {
-                System.exit(1);
             }
         } catch (Throwable t) {
             abort(t);
         }
     }
 
-    private static Properties loadProperties(Path propertiesFilePath) throws IOException {
+    /**
+     * Creates a user environment.
+     * @param userProperties the user properties to set, by order
+     * @return the user environment
+     */
+    static MigrationEnvironment newUserEnvironment(List<Properties> userProperties) {
+        final MigrationEnvironment userEnvironment = new MigrationEnvironment();
+        for (Properties properties : userProperties) {
+            userEnvironment.setProperties(properties);
+        }
+        return userEnvironment;
+    }
+
+    /**
+     * Runs a migration, and writes its reports.
+     * @param source the source server's base dir
+     * @param target the target server's base dir
+     * @param interactive if the migration may interact with the user
+     * @param userEnvironment the user environment
+     * @param journalMode the migration journal's mode
+     * @param configDirPath the tool's config dir
+     * @param outputDirPath the dir where the migration journal and reports are written
+     * @return the migration data
+     */
+    static MigrationData migrate(Path source, Path target, boolean interactive, MigrationEnvironment userEnvironment, MigrationJournal.Mode journalMode, Path configDirPath, Path outputDirPath) {
+        final MigrationData migrationData = new ServerMigration()
+                .from(source)
+                .to(target)
+                .interactive(interactive)
+                .userEnvironment(userEnvironment)
+                .journal(outputDirPath.resolve(userEnvironment.getPropertyAsString(EnvironmentProperties.JOURNAL_FILE_NAME, "migration.journal")), journalMode)
+                .run();
+
+        // write reports
+        final String htmlReportFileName = userEnvironment.getPropertyAsString(EnvironmentProperties.REPORT_HTML_FILE_NAME);
+        final String xmlReportFileName = userEnvironment.getPropertyAsString(EnvironmentProperties.REPORT_XML_FILE_NAME);
+        if (htmlReportFileName != null) {
+            try {
+                final String htmlReportTemplateFileName = userEnvironment.getPropertyAsString(EnvironmentProperties.REPORT_HTML_TEMPLATE_FILE_NAME, "migration-report-template.html");
+                final Path htmlReportTemplatePath = configDirPath.resolve(htmlReportTemplateFileName);
+                HtmlReportWriter.INSTANCE.toPath(outputDirPath.resolve(htmlReportFileName), migrationData, HtmlReportWriter.ReportTemplate.from(htmlReportTemplatePath));
+            } catch (Throwable e) {
+                ServerMigrationLogger.ROOT_LOGGER.error("HTML Report write failed", e);
+            }
+        }
+        if (xmlReportFileName != null) {
+            try {
+                XmlReportWriter.INSTANCE.writeContent(outputDirPath.resolve(xmlReportFileName).toFile(), migrationData);
+            } catch (Throwable e) {
+                ServerMigrationLogger.ROOT_LOGGER.error("XML Report write failed", e);
+            }
+        }
+        return migrationData;
+    }
+
+    static Properties loadProperties(Path propertiesFilePath) throws IOException {
         final Properties properties = new Properties();
         try (InputStream inputStream = Files.newInputStream(propertiesFilePath)) {
             properties.load(inputStream);
         }
         return properties;
     }
-
     private static void abort(Throwable t) {
         try {
             if (t != null) {
@@ -185,9 +260,13 @@ public class CommandLineServerMigration {
     }
 
     private static Path resolvePath(String s) throws IllegalArgumentException {
+        return resolvePath(s, FileSystems.getDefault().getPath(System.getProperty("user.dir")));
+    }
+
+    static Path resolvePath(String s, Path dir) throws IllegalArgumentException {
         final FileSystem fileSystem = FileSystems.getDefault();
         Path path = fileSystem.getPath(s).normalize();
-        Path absolutePath = path.isAbsolute() ? path : fileSystem.getPath(System.getProperty("user.dir")).resolve(path);
+        Path absolutePath = path.isAbsolute() ? path : dir.resolve(path);
         if (!Files.exists(absolutePath)) {
             throw new IllegalArgumentException("File "+absolutePath+" does not exists.");
         } else {
@@ -41,4 +41,24 @@ public interface EnvironmentProperties {
      */
     String REPORT_HTML_TEMPLATE_FILE_NAME = org.jboss.migration.core.report.EnvironmentProperties.HTML_REPORT_PROPERTIES_PREFIX + "templateFileName";
 
+    /**
+     * The migration journal file name.
+     */
+    String JOURNAL_FILE_NAME = "journal.fileName";
+
+    /**
+     * The prefix of all properties related with batch migrations.
+     */
+    String BATCH_PROPERTIES_PREFIX = "batch.";
+
+    /**
+     * The max number of migrations of a batch executed concurrently, by default 1.
+     */
+    String BATCH_MAX_THREADS = BATCH_PROPERTIES_PREFIX + "maxThreads";
+
+    /**
+     * The batch migration summary file name, by default {@code migration-batch-summary.txt}, an empty value disables the summary file.
+     */
+    String BATCH_SUMMARY_FILE_NAME = BATCH_PROPERTIES_PREFIX + "summaryFileName";
+
 }
@@ -28,6 +28,14 @@ public interface CommandLineMigrationLogger extends BasicLogger {
 
     CommandLineMigrationLogger ROOT_LOGGER = Logger.getMessageLogger(CommandLineMigrationLogger.class, CommandLineMigrationLogger.class.getPackage().getName());
 
+    /**
+     * Instructions for the {@link org.jboss.migration.cli.CommandLineConstants#BATCH} command line arguments.
+     *
+     * @return the message.
+     */
+    @Message(id = Message.NONE, value = "Path to the properties file defining a batch of migrations, each with <name>.source, <name>.target and optional <name>.environment properties. Replaces the source and target arguments, batch migrations are not interactive.")
+    String argBatch();
+
     /**
      * Instructions for the {@link org.jboss.migration.cli.CommandLineConstants#ENVIRONMENT} command line arguments.
      *
@@ -44,6 +52,22 @@ public interface CommandLineMigrationLogger extends BasicLogger {
     @Message(id = Message.NONE, value = "Indicates if the migration tool should interact (or not) with the user. Value should either be true or false.")
     String argInteractive();
 
+    /**
+     * Instructions for the {@link org.jboss.migration.cli.CommandLineConstants#INCREMENTAL} command line argument.
+     *
+     * @return the message.
+     */
+    @Message(id = Message.NONE, value = "Skips config files which, and related environment properties, did not change since these were migrated by a previous migration.")
+    String argIncremental();
+
+    /**
+     * Instructions for the {@link org.jboss.migration.cli.CommandLineConstants#RESUME} command line argument.
+     *
+     * @return the message.
+     */
+    @Message(id = Message.NONE, value = "Resumes a previous migration which did not complete, config files already migrated are not migrated again.")
+    String argResume();
+
     /**
      * Instructions for the {@link org.jboss.migration.cli.CommandLineConstants#SOURCE} command line arguments.
      *
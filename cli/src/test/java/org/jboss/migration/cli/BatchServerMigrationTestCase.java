@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.cli;
+
+import org.jboss.migration.core.MigrationJournal;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * @author emmartins
+ */
+public class BatchServerMigrationTestCase {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path writeManifest(String... lines) throws IOException {
+        final Path manifest = temporaryFolder.getRoot().toPath().resolve("batch.properties");
+        final StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            sb.append(line).append('\n');
+        }
+        Files.write(manifest, sb.toString().getBytes(StandardCharsets.ISO_8859_1));
+        return manifest;
+    }
+
+    private BatchServerMigration newBatchServerMigration(Path manifest, Properties userProperties) throws IOException {
+        final Path root = temporaryFolder.getRoot().toPath();
+        final List<Properties> userPropertiesList = userProperties != null ? Collections.singletonList(userProperties) : Collections.<Properties>emptyList();
+        return new BatchServerMigration(manifest, userPropertiesList, MigrationJournal.Mode.NEW, root, root.resolve("output"));
+    }
+
+    @Test
+    public void testInvalidManifestProperty() throws IOException {
+        temporaryFolder.newFolder("source");
+        temporaryFolder.newFolder("target");
+        final Path manifest = writeManifest("a.source=source", "a.target=target", "a.unknown=source");
+        try {
+            newBatchServerMigration(manifest, null);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMigrationNameWithPath() throws IOException {
+        temporaryFolder.newFolder("source");
+        temporaryFolder.newFolder("target");
+        final Path manifest = writeManifest("../a.source=source", "../a.target=target");
+        try {
+            newBatchServerMigration(manifest, null);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMigrationWithoutTarget() throws IOException {
+        temporaryFolder.newFolder("source");
+        final Path manifest = writeManifest("a.source=source");
+        try {
+            newBatchServerMigration(manifest, null);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEmptyManifest() throws IOException {
+        final Path manifest = writeManifest("# no migrations");
+        try {
+            newBatchServerMigration(manifest, null);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSummary() throws Exception {
+        // dirs without servers, thus both migrations fail
+        temporaryFolder.newFolder("source");
+        temporaryFolder.newFolder("target");
+        final Path manifest = writeManifest("a.source=source", "a.target=target", "b.source=source", "b.target=target");
+        final Properties userProperties = new Properties();
+        userProperties.setProperty(EnvironmentProperties.BATCH_MAX_THREADS, "2");
+        Assert.assertFalse(newBatchServerMigration(manifest, userProperties).run());
+        final Path summaryFile = temporaryFolder.getRoot().toPath().resolve("output").resolve("migration-batch-summary.txt");
+        Assert.assertTrue(Files.exists(summaryFile));
+        final String summary = new String(Files.readAllBytes(summaryFile), StandardCharsets.UTF_8);
+        Assert.assertTrue(summary, summary.contains(" a: "));
+        Assert.assertTrue(summary, summary.contains(" b: "));
+        Assert.assertTrue(summary, summary.contains("Migrations: 2, Successful: 0, Failed: 2"));
+    }
+
+    @Test
+    public void testSummaryDisabled() throws Exception {
+        temporaryFolder.newFolder("source");
+        temporaryFolder.newFolder("target");
+        final Path manifest = writeManifest("a.source=source", "a.target=target");
+        final Properties userProperties = new Properties();
+        userProperties.setProperty(EnvironmentProperties.BATCH_SUMMARY_FILE_NAME, "");
+        Assert.assertFalse(newBatchServerMigration(manifest, userProperties).run());
+        Assert.assertFalse(Files.exists(temporaryFolder.getRoot().toPath().resolve("output").resolve("migration-batch-summary.txt")));
+    }
+}
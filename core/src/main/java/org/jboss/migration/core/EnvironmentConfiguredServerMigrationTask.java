@@ -0,0 +1,29 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core;
+
+/**
+ * A {@link ServerMigrationTask} which environment properties, including the ones read by the task execution, such as {@code timeout}, have a specific name prefix. The environment properties of other tasks are prefixed by the task name, e.g. {@code config-files.}.
+ * @author emmartins
+ */
+public interface EnvironmentConfiguredServerMigrationTask extends ServerMigrationTask {
+
+    /**
+     * Retrieves the prefix of the task's environment properties names.
+     * @return the prefix of the task's environment properties names, including the trailing {@code .}
+     */
+    String getEnvironmentPropertiesPrefix();
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core;
+
+/**
+ * A {@link ResumableServerMigrationTask} which may be skipped by later migrations, if its content, the environment properties read by its execution, and the files copied by its execution, through {@link MigrationFiles}, are unchanged. In such case its execution is restored from the {@link MigrationJournal}.
+ * @author emmartins
+ */
+public interface IncrementalServerMigrationTask extends ResumableServerMigrationTask {
+
+    /**
+     * Computes the task's content hash, which should cover all the task's inputs, and outputs which must be preserved. The hash is computed once the task execution completes, and before the task is run, on later migrations.
+     * @param context the task's context
+     * @return the task's content hash
+     * @throws Exception if the content hash computation failed
+     */
+    String getContentHash(ServerMigrationTaskContext context) throws Exception;
+}
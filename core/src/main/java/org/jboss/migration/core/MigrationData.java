@@ -16,6 +16,7 @@
 package org.jboss.migration.core;
 
 import org.jboss.migration.core.env.MigrationEnvironment;
+import org.jboss.migration.core.util.xml.XMLIOProvider;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -30,7 +31,7 @@ public class MigrationData {
     private final Server source;
     private final Server target;
     private final ServerMigrationTaskExecution rootTask;
-    private final List<ServerMigrationTaskExecution> tasks;
+    private List<ServerMigrationTaskExecution> tasks;
     private final MigrationEnvironment migrationEnvironment;
 
     MigrationData(Server source, Server target, ServerMigrationTaskExecution rootTask, MigrationEnvironment migrationEnvironment) {
@@ -38,7 +39,6 @@ public class MigrationData {
         this.target = target;
         this.rootTask = rootTask;
         this.migrationEnvironment = migrationEnvironment;
-        this.tasks = initTasks();
     }
 
     /**
@@ -73,6 +73,14 @@ public class MigrationData {
         return rootTask.getServerMigrationContext().getMigrationEnvironment();
     }
 
+    /**
+     * Retrieves the provider of the StAX factories, selected by the server migration environment.
+     * @return the provider of the StAX factories
+     */
+    public XMLIOProvider getXMLIOProvider() {
+        return rootTask.getServerMigrationContext().getXMLIOProvider();
+    }
+
     /**
      * Retrieves the migration environment.
      * @return the migration environment
@@ -82,26 +90,79 @@ public class MigrationData {
     }
 
     /**
-     * Retrieves all tasks.
+     * Retrieves all tasks, which requires walking the whole tasks tree, thus aggregates should rather be retrieved with {@link #getTaskCount()}, {@link #getTaskCount(ServerMigrationTaskResult.Status)} and {@link #getFailedTasks()}.
      * @return all tasks
      */
-    public List<ServerMigrationTaskExecution> getTasks() {
+    public synchronized List<ServerMigrationTaskExecution> getTasks() {
+        if (tasks == null) {
+            tasks = initTasks();
+        }
         return tasks;
     }
 
+    /**
+     * Retrieves the number of executed tasks.
+     * @return the number of executed tasks
+     */
+    public int getTaskCount() {
+        return rootTask.getSubtreeTaskCount();
+    }
+
     /**
      * Retrieves the number of tasks with the specified status result.
      * @param status the status result
      * @return the number of tasks with the specified status result
      */
     public int getTaskCount(ServerMigrationTaskResult.Status status) {
-        int count = 0;
-        for (ServerMigrationTaskExecution task : tasks) {
-            if (task.getResult().getStatus() == status) {
-                count++;
-            }
-        }
-        return count;
+        return rootTask.getSubtreeTaskCount(status);
+    }
+
+    /**
+     * Retrieves the tasks with fail or cancelled status result.
+     * @return the tasks with fail or cancelled status result, in completion order
+     */
+    public List<ServerMigrationTaskExecution> getFailedTasks() {
+        return rootTask.getServerMigrationContext().getFailedTasks();
+    }
+
+    /**
+     * Retrieves the migration's elapsed wall clock time.
+     * @return the migration's elapsed wall clock time in nanoseconds, or -1 if not available
+     */
+    public long getWallTime() {
+        return rootTask.getWallTime();
+    }
+
+    /**
+     * Retrieves the CPU time used by all tasks.
+     * @return the CPU time in nanoseconds, or -1 if not available
+     */
+    public long getCpuTime() {
+        return rootTask.getSubtreeCpuTime();
+    }
+
+    /**
+     * Retrieves the number of bytes allocated by all tasks.
+     * @return the number of bytes allocated, or -1 if not available
+     */
+    public long getAllocatedBytes() {
+        return rootTask.getSubtreeAllocatedBytes();
+    }
+
+    /**
+     * Retrieves the number of server boots.
+     * @return the number of server boots
+     */
+    public int getServerBoots() {
+        return rootTask.getServerMigrationContext().getServerBoots();
+    }
+
+    /**
+     * Retrieves the number of lost server boots, i.e. boots of a server which was already booted, and shut down, by the migration.
+     * @return the number of lost server boots
+     */
+    public int getLostServerBoots() {
+        return rootTask.getServerMigrationContext().getLostServerBoots();
     }
 
     private List<ServerMigrationTaskExecution> initTasks() {
@@ -45,6 +45,8 @@ public class MigrationFiles {
      * @throws IOException if the file copy failed
      */
     public synchronized void copy(Path source, Path target) throws IllegalArgumentException, IOException {
+        // the file is an input of the task copying it, even if previously copied
+        ServerMigrationTaskExecution.fileCopied(source, target);
         // check if already copied
         final Path existentCopySource = copiedFiles.get(target);
         if (existentCopySource != null) {
@@ -0,0 +1,530 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core;
+
+import org.jboss.migration.core.env.MigrationEnvironment;
+import org.jboss.migration.core.logger.ServerMigrationLogger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * An append only journal of completed {@link ResumableServerMigrationTask}s executions, which allows an interrupted migration to be resumed, and unchanged {@link IncrementalServerMigrationTask}s to be skipped by later migrations.
+ *
+ * The journal file starts with a magic number and the format version, followed by the records. Each record is written once the task execution completes without failure, prefixed by its length and checksum. Records are not forced to disk one by one, only when the journal is closed, a record incompletely written, e.g. due to the process being killed or a system crash, fails validation and is discarded, together with all records after it, when the journal is opened for resuming, at worst such tasks are run again.
+ * @author emmartins
+ */
+public class MigrationJournal {
+
+    /**
+     * The journal modes.
+     */
+    public enum Mode {
+        /**
+         * existent records are discarded
+         */
+        NEW,
+        /**
+         * all recorded tasks are restored, unless an incremental task's content hash or environment changed
+         */
+        RESUME,
+        /**
+         * only recorded incremental tasks, with unchanged content hash and environment, are restored
+         */
+        INCREMENTAL
+    }
+
+    private static final int MAGIC = 0x4A534D4A;
+    private static final int VERSION = 2;
+    private static final int HEADER_LENGTH = 8;
+    private static final int RECORD_HEADER_LENGTH = 8;
+
+    private final Path path;
+    private final Mode mode;
+    private final FileChannel fileChannel;
+    private final Map<String, CompletedTask> completedTasks;
+
+    private MigrationJournal(Path path, Mode mode, FileChannel fileChannel, Map<String, CompletedTask> completedTasks) {
+        this.path = path;
+        this.mode = mode;
+        this.fileChannel = fileChannel;
+        this.completedTasks = completedTasks;
+    }
+
+    /**
+     * Opens a migration journal.
+     * @param path the journal file's path
+     * @param resume if true the records in an existent journal file are loaded, and new records appended; if false the journal file is truncated
+     * @return the opened migration journal
+     * @throws IOException if the journal file read or open failed
+     */
+    public static MigrationJournal open(Path path, boolean resume) throws IOException {
+        return open(path, resume ? Mode.RESUME : Mode.NEW);
+    }
+
+    /**
+     * Opens a migration journal.
+     * @param path the journal file's path
+     * @param mode the journal's mode
+     * @return the opened migration journal
+     * @throws IOException if the journal file read or open failed
+     */
+    public static MigrationJournal open(Path path, Mode mode) throws IOException {
+        final Map<String, CompletedTask> completedTasks = new LinkedHashMap<>();
+        long validLength = 0;
+        if (mode != Mode.NEW && Files.exists(path)) {
+            final int records;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                records = read(path, Files.size(path), in, completedTasks);
+            }
+            validLength = getLength(completedTasks);
+            ServerMigrationLogger.ROOT_LOGGER.debugf("Migration journal %s loaded with %d completed tasks", path, completedTasks.size());
+            if (records > completedTasks.size()) {
+                // tasks recorded more than once, by previous incremental migrations, keep only the last records
+                validLength = compact(path, completedTasks);
+            }
+        }
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        final FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            // discard invalid records, or all records if not resuming
+            fileChannel.truncate(validLength);
+            fileChannel.position(validLength);
+            if (validLength == 0) {
+                write(fileChannel, ByteBuffer.wrap(getHeader()));
+            }
+        } catch (IOException e) {
+            fileChannel.close();
+            throw e;
+        }
+        return new MigrationJournal(path, mode, fileChannel, completedTasks);
+    }
+
+    /**
+     * Reads the journal's records, till the end of the journal or the first invalid record.
+     * @param path the journal file's path
+     * @param length the journal file's length
+     * @param in the journal file's input stream
+     * @param completedTasks where the completed tasks read are put, with their record's length
+     * @return the number of valid records read
+     * @throws IOException if the journal file read failed
+     */
+    private static int read(Path path, long length, DataInputStream in, Map<String, CompletedTask> completedTasks) throws IOException {
+        if (length < HEADER_LENGTH) {
+            if (length > 0) {
+                ServerMigrationLogger.ROOT_LOGGER.migrationJournalInvalid(path, 0, "incomplete header");
+            }
+            return 0;
+        }
+        if (in.readInt() != MAGIC) {
+            ServerMigrationLogger.ROOT_LOGGER.migrationJournalInvalid(path, 0, "not a migration journal");
+            return 0;
+        }
+        final int version = in.readInt();
+        if (version != VERSION) {
+            ServerMigrationLogger.ROOT_LOGGER.migrationJournalInvalid(path, 0, "unsupported version "+version);
+            return 0;
+        }
+        long position = HEADER_LENGTH;
+        int records = 0;
+        while (position < length) {
+            if (length - position < RECORD_HEADER_LENGTH) {
+                ServerMigrationLogger.ROOT_LOGGER.migrationJournalInvalid(path, position, "incomplete record");
+                break;
+            }
+            final int recordLength = in.readInt();
+            final int checksum = in.readInt();
+            // a corrupted length must not cause an allocation beyond the journal's size
+            if (recordLength < 0 || recordLength > length - position - RECORD_HEADER_LENGTH) {
+                ServerMigrationLogger.ROOT_LOGGER.migrationJournalInvalid(path, position, "incomplete record");
+                break;
+            }
+            final byte[] bytes = new byte[recordLength];
+            in.readFully(bytes);
+            if (checksum != getChecksum(bytes, 0, bytes.length)) {
+                ServerMigrationLogger.ROOT_LOGGER.migrationJournalInvalid(path, position, "record checksum mismatch");
+                break;
+            }
+            final String key;
+            final CompletedTask completedTask;
+            try {
+                final DataInputStream recordIn = new DataInputStream(new ByteArrayInputStream(bytes));
+                key = readString(recordIn);
+                final String contentHash = readString(recordIn);
+                final Map<String, String> environmentPropertiesRead = readMap(recordIn);
+                final int copiedFilesSize = readSize(recordIn);
+                final List<String> copiedFiles = new ArrayList<>(copiedFilesSize);
+                for (int i = 0; i < copiedFilesSize; i++) {
+                    copiedFiles.add(readString(recordIn));
+                }
+                completedTask = new CompletedTask(readTaskRecord(recordIn), contentHash, environmentPropertiesRead, copiedFiles, RECORD_HEADER_LENGTH + recordLength);
+            } catch (IOException | IllegalArgumentException e) {
+                ServerMigrationLogger.ROOT_LOGGER.migrationJournalInvalid(path, position, "unreadable record, "+e.getMessage());
+                break;
+            }
+            // remove first, to keep the map ordered as the journal
+            completedTasks.remove(key);
+            completedTasks.put(key, completedTask);
+            position += RECORD_HEADER_LENGTH + recordLength;
+            records++;
+        }
+        return records;
+    }
+
+    private static long getLength(Map<String, CompletedTask> completedTasks) {
+        long length = completedTasks.isEmpty() ? 0 : HEADER_LENGTH;
+        for (CompletedTask completedTask : completedTasks.values()) {
+            length += completedTask.recordLength;
+        }
+        return length;
+    }
+
+    private static byte[] getHeader() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static int getChecksum(byte[] bytes, int offset, int length) {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(bytes, offset, length);
+        return (int) crc32.getValue();
+    }
+
+    private static void write(FileChannel fileChannel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            fileChannel.write(buffer);
+        }
+    }
+
+    private static long compact(Path path, Map<String, CompletedTask> completedTasks) throws IOException {
+        final Path compactPath = path.resolveSibling(path.getFileName().toString() + ".compact");
+        try (OutputStream out = Files.newOutputStream(compactPath)) {
+            out.write(getHeader());
+            for (Map.Entry<String, CompletedTask> entry : completedTasks.entrySet()) {
+                out.write(toBytes(entry.getKey(), entry.getValue()));
+            }
+        }
+        Files.move(compactPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(path);
+    }
+
+    /**
+     * Retrieves the journal's mode.
+     * @return the journal's mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Retrieves the journal file's path.
+     * @return the journal file's path
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Retrieves the number of completed tasks loaded from the journal file.
+     * @return the number of completed tasks loaded from the journal file
+     */
+    public synchronized int getCompletedTaskCount() {
+        return completedTasks.size();
+    }
+
+    /**
+     * Closes the journal.
+     * @throws IOException if the close failed
+     */
+    public synchronized void close() throws IOException {
+        try {
+            if (fileChannel.isOpen()) {
+                fileChannel.force(false);
+            }
+        } finally {
+            fileChannel.close();
+        }
+    }
+
+    /**
+     * Retrieves the record of a completed task execution.
+     * @param taskExecution the task execution
+     * @return the record of the completed task execution, null if not found
+     */
+    synchronized CompletedTask getCompletedTask(ServerMigrationTaskExecution taskExecution) {
+        return completedTasks.get(getKey(taskExecution));
+    }
+
+    /**
+     * Appends the record of a completed task execution.
+     * @param taskExecution the completed task execution
+     * @param contentHash the task's content hash, null if the task is not incremental
+     * @throws IOException if the record write failed
+     */
+    void append(ServerMigrationTaskExecution taskExecution, String contentHash) throws IOException {
+        final String key = getKey(taskExecution);
+        final CompletedTask completedTask = new CompletedTask(new TaskRecord(taskExecution), contentHash, taskExecution.getEnvironmentPropertiesRead(), taskExecution.getCopiedFiles(), -1);
+        final byte[] bytes = toBytes(key, completedTask);
+        synchronized (this) {
+            write(fileChannel, ByteBuffer.wrap(bytes));
+            completedTasks.put(key, completedTask.withRecordLength(bytes.length));
+        }
+    }
+
+    /**
+     * Indicates if the environment properties, which may have affected a completed task execution, are unchanged.
+     * @param completedTask the completed task
+     * @param environment the current environment
+     * @return true if all properties read by the task execution, including the ones not set, have same value; false otherwise
+     */
+    static boolean isEnvironmentUnchanged(CompletedTask completedTask, MigrationEnvironment environment) {
+        for (Map.Entry<String, String> property : completedTask.environmentPropertiesRead.entrySet()) {
+            final String value = environment.getPropertyAsString(property.getKey());
+            if (value == null ? property.getValue() != null : !value.equals(property.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] toBytes(String key, CompletedTask completedTask) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        // the record's length and checksum, set once the record is written
+        out.writeInt(0);
+        out.writeInt(0);
+        writeString(key, out);
+        writeString(completedTask.contentHash, out);
+        writeMap(completedTask.environmentPropertiesRead, out);
+        out.writeInt(completedTask.copiedFiles.size());
+        for (String copiedFile : completedTask.copiedFiles) {
+            writeString(copiedFile, out);
+        }
+        writeTaskRecord(completedTask.taskRecord, out);
+        out.flush();
+        final byte[] result = bytes.toByteArray();
+        final int recordLength = result.length - RECORD_HEADER_LENGTH;
+        ByteBuffer.wrap(result).putInt(0, recordLength).putInt(4, getChecksum(result, RECORD_HEADER_LENGTH, recordLength));
+        return result;
+    }
+
+    private static String getKey(ServerMigrationTaskExecution taskExecution) {
+        return taskExecution.getTaskPath().toString();
+    }
+
+    private static void writeString(String s, DataOutputStream out) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+        } else {
+            final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.available()) {
+            throw new EOFException("string length "+length+" exceeds the record");
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeMap(Map<String, String> map, DataOutputStream out) throws IOException {
+        out.writeInt(map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            writeString(entry.getKey(), out);
+            writeString(entry.getValue(), out);
+        }
+    }
+
+    /**
+     * Reads the size of a collection, which elements are read from the record.
+     * @param in the record's input stream
+     * @return the size read
+     * @throws IOException if the size read failed, or is invalid
+     */
+    private static int readSize(DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        // each element takes at least 4 bytes
+        if (size < 0 || size > in.available() / 4) {
+            throw new EOFException("collection size "+size+" exceeds the record");
+        }
+        return size;
+    }
+
+    private static Map<String, String> readMap(DataInputStream in) throws IOException {
+        final int size = readSize(in);
+        final Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), readString(in));
+        }
+        return map;
+    }
+
+    private static void writeTaskRecord(TaskRecord taskRecord, DataOutputStream out) throws IOException {
+        writeString(taskRecord.taskName.getName(), out);
+        writeMap(taskRecord.taskName.getAttributes(), out);
+        writeString(taskRecord.result.getStatus().name(), out);
+        writeString(taskRecord.result.getFailReason() != null ? taskRecord.result.getFailReason().getMessage() : null, out);
+        writeMap(taskRecord.result.getAttributes(), out);
+        out.writeLong(taskRecord.startTime);
+        out.writeBoolean(taskRecord.inline);
+        out.writeLong(taskRecord.wallTime);
+        out.writeLong(taskRecord.cpuTime);
+        out.writeLong(taskRecord.allocatedBytes);
+        out.writeInt(taskRecord.subtasks.size());
+        for (TaskRecord subtask : taskRecord.subtasks) {
+            writeTaskRecord(subtask, out);
+        }
+    }
+
+    private static TaskRecord readTaskRecord(DataInputStream in) throws IOException {
+        final ServerMigrationTaskName.Builder taskNameBuilder = new ServerMigrationTaskName.Builder().setName(readString(in));
+        for (Map.Entry<String, String> attribute : readMap(in).entrySet()) {
+            taskNameBuilder.addAttribute(attribute.getKey(), attribute.getValue());
+        }
+        final String statusName = readString(in);
+        if (statusName == null) {
+            throw new IOException("task result status not found");
+        }
+        final ServerMigrationTaskResult.Status status = ServerMigrationTaskResult.Status.valueOf(statusName);
+        final String failReason = readString(in);
+        final ServerMigrationTaskResult.Builder resultBuilder = new ServerMigrationTaskResult.Builder();
+        switch (status) {
+            case SUCCESS:
+                resultBuilder.sucess();
+                break;
+            case SKIPPED:
+                resultBuilder.skipped();
+                break;
+            case CANCELLED:
+                resultBuilder.cancelled(new ServerMigrationCancelledException(failReason));
+                break;
+            default:
+                resultBuilder.fail(new ServerMigrationFailedException(failReason));
+        }
+        for (Map.Entry<String, String> attribute : readMap(in).entrySet()) {
+            resultBuilder.addAttribute(attribute.getKey(), attribute.getValue());
+        }
+        final long startTime = in.readLong();
+        final boolean inline = in.readBoolean();
+        final long wallTime = in.readLong();
+        final long cpuTime = in.readLong();
+        final long allocatedBytes = in.readLong();
+        final int subtasksSize = readSize(in);
+        final List<TaskRecord> subtasks = new ArrayList<>(subtasksSize);
+        for (int i = 0; i < subtasksSize; i++) {
+            subtasks.add(readTaskRecord(in));
+        }
+        return new TaskRecord(taskNameBuilder.build(), resultBuilder.build(), startTime, inline, wallTime, cpuTime, allocatedBytes, subtasks);
+    }
+
+    /**
+     * A completed task, as recorded in the journal.
+     */
+    static class CompletedTask {
+
+        final TaskRecord taskRecord;
+        final String contentHash;
+        final Map<String, String> environmentPropertiesRead;
+        final List<String> copiedFiles;
+        final int recordLength;
+
+        CompletedTask(TaskRecord taskRecord, String contentHash, Map<String, String> environmentPropertiesRead, List<String> copiedFiles, int recordLength) {
+            this.taskRecord = taskRecord;
+            this.contentHash = contentHash;
+            this.environmentPropertiesRead = environmentPropertiesRead;
+            this.copiedFiles = copiedFiles;
+            this.recordLength = recordLength;
+        }
+
+        CompletedTask withRecordLength(int recordLength) {
+            return new CompletedTask(taskRecord, contentHash, environmentPropertiesRead, copiedFiles, recordLength);
+        }
+    }
+
+    /**
+     * The record of a completed task execution, and its subtasks executions.
+     */
+    static class TaskRecord {
+
+        final ServerMigrationTaskName taskName;
+        final ServerMigrationTaskResult result;
+        final long startTime;
+        final boolean inline;
+        final long wallTime;
+        final long cpuTime;
+        final long allocatedBytes;
+        final List<TaskRecord> subtasks;
+
+        TaskRecord(ServerMigrationTaskExecution taskExecution) {
+            this.taskName = taskExecution.getTaskName();
+            this.result = taskExecution.getResult();
+            this.startTime = taskExecution.getStartTime();
+            this.inline = taskExecution.isInline();
+            this.wallTime = taskExecution.getWallTime();
+            this.cpuTime = taskExecution.getCpuTime();
+            this.allocatedBytes = taskExecution.getAllocatedBytes();
+            final List<TaskRecord> subtasks = new ArrayList<>();
+            for (ServerMigrationTaskExecution subtask : taskExecution.getSubtasks()) {
+                subtasks.add(new TaskRecord(subtask));
+            }
+            this.subtasks = Collections.unmodifiableList(subtasks);
+        }
+
+        TaskRecord(ServerMigrationTaskName taskName, ServerMigrationTaskResult result, long startTime, boolean inline, long wallTime, long cpuTime, long allocatedBytes, List<TaskRecord> subtasks) {
+            this.taskName = taskName;
+            this.result = result;
+            this.startTime = startTime;
+            this.inline = inline;
+            this.wallTime = wallTime;
+            this.cpuTime = cpuTime;
+            this.allocatedBytes = allocatedBytes;
+            this.subtasks = Collections.unmodifiableList(subtasks);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core;
+
+/**
+ * A {@link ServerMigrationTask} which execution, once completed, is recorded in the {@link MigrationJournal}. When resuming a migration, a recorded task is not run again, instead its execution, including all subtasks, is restored from the journal.
+ *
+ * Only tasks which are unique in the migration tasks tree, by task path, and which effects survive the migration process (e.g. a config file written to the target server), should be resumable.
+ * @author emmartins
+ */
+public interface ResumableServerMigrationTask extends ServerMigrationTask {
+}
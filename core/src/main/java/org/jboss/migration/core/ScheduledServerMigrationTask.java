@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core;
+
+/**
+ * A handle to a subtask submitted to a task's scheduler, which may be used to declare dependencies of other subtasks submitted to the same scheduler.
+ * @author emmartins
+ */
+public final class ScheduledServerMigrationTask {
+
+    private final ServerMigrationTaskScheduler scheduler;
+    private final ServerMigrationTaskExecution taskExecution;
+    private final ScheduledServerMigrationTask[] dependencies;
+    private State state;
+    private ServerMigrationFailedException failure;
+
+    enum State {
+        PENDING,
+        QUEUED,
+        RUNNING,
+        DONE
+    }
+
+    ScheduledServerMigrationTask(ServerMigrationTaskScheduler scheduler, ServerMigrationTaskExecution taskExecution, ScheduledServerMigrationTask[] dependencies) {
+        this.scheduler = scheduler;
+        this.taskExecution = taskExecution;
+        this.dependencies = dependencies;
+        this.state = State.PENDING;
+    }
+
+    /**
+     * Retrieves the subtask's execution.
+     * @return the subtask's execution
+     */
+    public ServerMigrationTaskExecution getTaskExecution() {
+        return taskExecution;
+    }
+
+    /**
+     * Indicates if the subtask's execution is done.
+     * @return true if the subtask's execution is done, false otherwise
+     */
+    public boolean isDone() {
+        synchronized (scheduler) {
+            return state == State.DONE;
+        }
+    }
+
+    ServerMigrationTaskScheduler getScheduler() {
+        return scheduler;
+    }
+
+    ScheduledServerMigrationTask[] getDependencies() {
+        return dependencies;
+    }
+
+    State getState() {
+        return state;
+    }
+
+    void setState(State state) {
+        this.state = state;
+    }
+
+    ServerMigrationFailedException getFailure() {
+        return failure;
+    }
+
+    void setFailure(ServerMigrationFailedException failure) {
+        this.failure = failure;
+    }
+}
@@ -21,8 +21,13 @@ import org.jboss.migration.core.env.MigrationEnvironment;
 import org.jboss.migration.core.env.SystemEnvironment;
 import org.jboss.migration.core.logger.ServerMigrationLogger;
 import org.jboss.migration.core.report.SummaryReportWriter;
+import org.jboss.migration.core.util.xml.XMLIOProvider;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
 
 /**
  * The core server migration's configurator and executor.
@@ -43,6 +48,9 @@ public class ServerMigration {
     private ConsoleWrapper console;
     private boolean interactive = true;
     private MigrationEnvironment userEnvironment;
+    private final List<ServerMigrationListener> listeners = new ArrayList<>();
+    private Path journal;
+    private MigrationJournal.Mode journalMode;
 
     /**
      * Sets the migration source's base dir.
@@ -95,6 +103,38 @@ public class ServerMigration {
         return this;
     }
 
+    /**
+     * Adds a listener of the migration's events. Listeners provided through the {@link ServiceLoader} framework are added automatically.
+     * @param listener the listener to add
+     * @return the server migration after applying the configuration change
+     */
+    public ServerMigration listener(ServerMigrationListener listener) {
+        this.listeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Sets the migration journal, where completed {@link ResumableServerMigrationTask}s are recorded.
+     * @param journal the migration journal file's path
+     * @param resume if true the migration resumes from the migration journal, restoring recorded tasks instead of running these again; if false the migration journal is reset
+     * @return the server migration after applying the configuration change
+     */
+    public ServerMigration journal(Path journal, boolean resume) {
+        return journal(journal, resume ? MigrationJournal.Mode.RESUME : MigrationJournal.Mode.NEW);
+    }
+
+    /**
+     * Sets the migration journal, where completed {@link ResumableServerMigrationTask}s are recorded.
+     * @param journal the migration journal file's path
+     * @param journalMode the migration journal's mode
+     * @return the server migration after applying the configuration change
+     */
+    public ServerMigration journal(Path journal, MigrationJournal.Mode journalMode) {
+        this.journal = journal;
+        this.journalMode = journalMode;
+        return this;
+    }
+
     /**
      * Executes the configured server migration, i.e. retrieves the source and target {@link Server}s, from base dirs, creates the migration context, and then delegates the migration to the target {@link Server}.
      * @throws IllegalArgumentException if a server was not retrieved from configured base dir.
@@ -115,6 +155,8 @@ public class ServerMigration {
         final MigrationEnvironment migrationEnvironment = new MigrationEnvironment();
         migrationEnvironment.setProperties(userEnvironment);
         migrationEnvironment.setProperties(SystemEnvironment.INSTANCE);
+        // fail fast if the migration's StAX implementation is not available, the provider is then retrieved by the migration context
+        XMLIOProvider.getInstance(migrationEnvironment.getPropertyAsString(XMLIOProvider.EnvironmentProperties.STAX_IMPLEMENTATION));
 
         final ConsoleWrapper console = this.console != null ? this.console : new JavaConsole();
 
@@ -133,7 +175,19 @@ public class ServerMigration {
         console.printf("----------------------------------------------------------%n");
         console.printf("%n");
 
-        final ServerMigrationContext serverMigrationContext = new ServerMigrationContext(console, interactive, migrationEnvironment);
+        final List<ServerMigrationListener> listeners = new ArrayList<>(this.listeners);
+        for (ServerMigrationListener listener : ServiceLoader.load(ServerMigrationListener.class)) {
+            listeners.add(listener);
+        }
+        MigrationJournal migrationJournal = null;
+        if (journal != null) {
+            try {
+                migrationJournal = MigrationJournal.open(journal, journalMode);
+            } catch (IOException e) {
+                throw ServerMigrationLogger.ROOT_LOGGER.migrationJournalOpenFailed(journal, e);
+            }
+        }
+        final ServerMigrationContext serverMigrationContext = new ServerMigrationContext(console, interactive, migrationEnvironment, listeners, migrationJournal);
         final ServerMigrationTaskName serverMigrationTaskName = new ServerMigrationTaskName.Builder()
                 .setName("server")
                 .build();
@@ -156,6 +210,8 @@ public class ServerMigration {
             serverMigrationTaskExecution.run();
         } catch (Throwable t) {
             ServerMigrationLogger.ROOT_LOGGER.error("Migration failed", t);
+        } finally {
+            serverMigrationContext.close();
         }
 
         // build migration data
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2015 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core;
+
+/**
+ * A {@link ServerMigrationFailedException} thrown to indicate that a task execution was cancelled, e.g. due to a timeout.
+ *
+ * @author emmartins
+ */
+public class ServerMigrationCancelledException extends ServerMigrationFailedException {
+
+    private static final long serialVersionUID = 2834164925836307714L;
+
+    public ServerMigrationCancelledException(final String message) {
+        super(message);
+    }
+
+    public ServerMigrationCancelledException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -17,6 +17,22 @@ package org.jboss.migration.core;
 
 import org.jboss.migration.core.console.ConsoleWrapper;
 import org.jboss.migration.core.env.MigrationEnvironment;
+import org.jboss.migration.core.env.TaskEnvironment;
+import org.jboss.migration.core.logger.ServerMigrationLogger;
+import org.jboss.migration.core.util.xml.XMLIOProvider;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The server migration execution's context.
@@ -24,16 +40,54 @@ import org.jboss.migration.core.env.MigrationEnvironment;
  */
 public class ServerMigrationContext {
 
+    public interface EnvironmentProperties {
+        /**
+         * the prefix for the name of tasks related properties
+         */
+        String PROPERTIES_PREFIX = "tasks.";
+        /**
+         * Integer property with the number of worker threads shared by all task schedulers, if 0 (default) subtasks submitted to a scheduler run only in the thread awaiting these
+         */
+        String MAX_THREADS = PROPERTIES_PREFIX + "maxThreads";
+    }
+
     private final ConsoleWrapper consoleWrapper;
     private final boolean interactive;
     private final MigrationFiles migrationFiles;
     private final MigrationEnvironment migrationEnvironment;
+    private final ServerMigrationListener[] listeners;
+    private final MigrationJournal migrationJournal;
+    private final XMLIOProvider xmlIOProvider;
+    private final AtomicLong taskCounter = new AtomicLong(0);
+    private final List<ServerMigrationTaskExecution> failedTasks = new ArrayList<>();
+    private final Set<String> bootedServers = new HashSet<>();
+    private int serverBoots;
+    private int lostServerBoots;
+    private ExecutorService taskExecutor;
+    private boolean taskExecutorInitialized;
+    private ScheduledExecutorService watchdog;
 
     ServerMigrationContext(ConsoleWrapper consoleWrapper, boolean interactive, MigrationEnvironment migrationEnvironment) {
+        this(consoleWrapper, interactive, migrationEnvironment, Collections.<ServerMigrationListener>emptyList(), null);
+    }
+
+    ServerMigrationContext(ConsoleWrapper consoleWrapper, boolean interactive, MigrationEnvironment migrationEnvironment, List<ServerMigrationListener> listeners, MigrationJournal migrationJournal) {
         this.consoleWrapper = consoleWrapper;
         this.interactive = interactive;
         this.migrationEnvironment = migrationEnvironment;
         this.migrationFiles = new MigrationFiles();
+        this.listeners = listeners.toArray(new ServerMigrationListener[listeners.size()]);
+        this.migrationJournal = migrationJournal;
+        this.xmlIOProvider = XMLIOProvider.getInstance(migrationEnvironment.getPropertyAsString(XMLIOProvider.EnvironmentProperties.STAX_IMPLEMENTATION));
+        if (migrationJournal != null) {
+            // the environment properties read by each task execution are journaled, as inputs of such execution
+            migrationEnvironment.setPropertyReadListener(new MigrationEnvironment.PropertyReadListener() {
+                @Override
+                public void propertyRead(String propertyName, String propertyValue) {
+                    ServerMigrationTaskExecution.environmentPropertyRead(propertyName, propertyValue);
+                }
+            });
+        }
     }
 
     /**
@@ -67,4 +121,206 @@ public class ServerMigrationContext {
     public MigrationEnvironment getMigrationEnvironment() {
         return migrationEnvironment;
     }
+
+    /**
+     * Retrieves the provider of the StAX factories, selected by the migration's environment.
+     * @return the provider of the StAX factories
+     */
+    public XMLIOProvider getXMLIOProvider() {
+        return xmlIOProvider;
+    }
+
+    /**
+     * Retrieves the migration journal.
+     * @return the migration journal, null if the migration is not journaled
+     */
+    public MigrationJournal getMigrationJournal() {
+        return migrationJournal;
+    }
+
+    /**
+     * Indicates if there are server migration listeners, which should be checked before building any event's data.
+     * @return true if there are server migration listeners, false otherwise
+     */
+    public boolean hasListeners() {
+        return listeners.length > 0;
+    }
+
+    /**
+     * Notifies the server migration listeners that a management operation was executed, by the current thread's task.
+     * @param operationName the management operation's name
+     * @param address the management operation's address
+     * @param wallTime the management operation's elapsed wall clock time in nanoseconds
+     * @param successful true if the management operation succeeded, false otherwise
+     */
+    public void managementOperationExecuted(String operationName, String address, long wallTime, boolean successful) {
+        if (listeners.length == 0) {
+            return;
+        }
+        managementOperationExecuted(ServerMigrationTaskExecution.getCurrent(), operationName, address, wallTime, successful);
+    }
+
+    /**
+     * Notifies the server migration listeners that a management operation was executed, by the specified task.
+     * @param taskExecution the task execution which executed the management operation, null if not executed by a task
+     * @param operationName the management operation's name
+     * @param address the management operation's address
+     * @param wallTime the management operation's elapsed wall clock time in nanoseconds
+     * @param successful true if the management operation succeeded, false otherwise
+     */
+    public void managementOperationExecuted(ServerMigrationTaskExecution taskExecution, String operationName, String address, long wallTime, boolean successful) {
+        for (ServerMigrationListener listener : listeners) {
+            try {
+                listener.managementOperationExecuted(taskExecution, operationName, address, wallTime, successful);
+            } catch (Throwable t) {
+                ServerMigrationLogger.ROOT_LOGGER.listenerFailed(listener, t);
+            }
+        }
+    }
+
+    void taskStarted(ServerMigrationTaskExecution taskExecution) {
+        for (ServerMigrationListener listener : listeners) {
+            try {
+                listener.taskStarted(taskExecution);
+            } catch (Throwable t) {
+                ServerMigrationLogger.ROOT_LOGGER.listenerFailed(listener, t);
+            }
+        }
+    }
+
+    void taskFinished(ServerMigrationTaskExecution taskExecution) {
+        for (ServerMigrationListener listener : listeners) {
+            try {
+                listener.taskFinished(taskExecution);
+            } catch (Throwable t) {
+                ServerMigrationLogger.ROOT_LOGGER.listenerFailed(listener, t);
+            }
+        }
+    }
+
+    synchronized void taskFailed(ServerMigrationTaskExecution taskExecution) {
+        failedTasks.add(taskExecution);
+    }
+
+    /**
+     * Retrieves the task executions which completed with fail or cancelled result status, so far.
+     * @return the task executions which completed with fail or cancelled result status, in completion order
+     */
+    public synchronized List<ServerMigrationTaskExecution> getFailedTasks() {
+        return Collections.unmodifiableList(new ArrayList<>(failedTasks));
+    }
+
+    /**
+     * Records the boot of a server, a boot of a server which was booted before, by this migration, is a lost boot, i.e. the previous session with the server should have been kept and shared.
+     * @param server the unique name of the booted server, e.g. its base dir and config
+     */
+    public void serverBooted(String server) {
+        final boolean lost;
+        synchronized (this) {
+            serverBoots++;
+            lost = !bootedServers.add(server);
+            if (lost) {
+                lostServerBoots++;
+            }
+        }
+        if (lost) {
+            ServerMigrationLogger.ROOT_LOGGER.serverBootLost(server);
+        }
+    }
+
+    /**
+     * Retrieves the number of server boots, so far.
+     * @return the number of server boots
+     */
+    public synchronized int getServerBoots() {
+        return serverBoots;
+    }
+
+    /**
+     * Retrieves the number of lost server boots, i.e. boots of a server which was booted before, so far.
+     * @return the number of lost server boots
+     */
+    public synchronized int getLostServerBoots() {
+        return lostServerBoots;
+    }
+
+    /**
+     * Retrieves the number for a new task execution, unique in the context of this migration.
+     * @return the number for a new task execution
+     */
+    long nextTaskNumber() {
+        return taskCounter.incrementAndGet();
+    }
+
+    /**
+     * Retrieves the executor shared by all task schedulers.
+     * @return the executor shared by all task schedulers, null if none is configured
+     */
+    synchronized ExecutorService getTaskExecutor() {
+        if (!taskExecutorInitialized) {
+            taskExecutorInitialized = true;
+            final int maxThreads = Integer.valueOf(migrationEnvironment.getPropertyAsString(EnvironmentProperties.MAX_THREADS, "0"));
+            if (maxThreads > 0) {
+                final AtomicInteger threadCounter = new AtomicInteger(0);
+                taskExecutor = Executors.newFixedThreadPool(maxThreads, new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        final Thread thread = new Thread(r, "server-migration-worker-" + threadCounter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+        }
+        return taskExecutor;
+    }
+
+    /**
+     * Retrieves the environment of a task, i.e. the properties prefixed by the task's {@link EnvironmentConfiguredServerMigrationTask#getEnvironmentPropertiesPrefix()}, or by {@code <task name>.} if the task does not define a prefix.
+     * @param task the task
+     * @return the environment of the task
+     */
+    TaskEnvironment getTaskEnvironment(ServerMigrationTask task) {
+        final String propertiesPrefix = task instanceof EnvironmentConfiguredServerMigrationTask ? ((EnvironmentConfiguredServerMigrationTask) task).getEnvironmentPropertiesPrefix() : task.getName().getName() + ".";
+        return new TaskEnvironment(migrationEnvironment, propertiesPrefix);
+    }
+
+    /**
+     * Retrieves the watchdog, which cancels the task executions that timed out.
+     * @return the watchdog
+     */
+    synchronized ScheduledExecutorService getWatchdog() {
+        if (watchdog == null) {
+            watchdog = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    final Thread thread = new Thread(r, "server-migration-watchdog");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return watchdog;
+    }
+
+    /**
+     * Releases the context's resources, once the migration is done.
+     */
+    synchronized void close() {
+        if (taskExecutor != null) {
+            taskExecutor.shutdownNow();
+            taskExecutor = null;
+        }
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+            watchdog = null;
+        }
+        if (migrationJournal != null) {
+            try {
+                migrationJournal.close();
+            } catch (IOException e) {
+                ServerMigrationLogger.ROOT_LOGGER.debugf(e, "Failed to close migration journal %s", migrationJournal.getPath());
+            }
+        }
+    }
 }
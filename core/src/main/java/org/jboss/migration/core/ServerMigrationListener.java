@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core;
+
+/**
+ * A listener of server migration events, which may be registered on a {@link ServerMigration}, or provided through the {@link java.util.ServiceLoader} framework.
+ *
+ * Events are delivered synchronously, by the thread executing the task, thus listeners should be fast and thread safe.
+ * @author emmartins
+ */
+public interface ServerMigrationListener {
+
+    /**
+     * A task execution started.
+     * @param taskExecution the task execution
+     */
+    void taskStarted(ServerMigrationTaskExecution taskExecution);
+
+    /**
+     * A task execution finished, its result and timings are available.
+     * @param taskExecution the task execution
+     */
+    void taskFinished(ServerMigrationTaskExecution taskExecution);
+
+    /**
+     * A management operation was executed.
+     * @param taskExecution the execution of the task which executed the management operation, null if not executed by a task
+     * @param operationName the management operation's name
+     * @param address the management operation's address
+     * @param wallTime the management operation's elapsed wall clock time in nanoseconds
+     * @param successful true if the management operation succeeded, false otherwise
+     */
+    void managementOperationExecuted(ServerMigrationTaskExecution taskExecution, String operationName, String address, long wallTime, boolean successful);
+}
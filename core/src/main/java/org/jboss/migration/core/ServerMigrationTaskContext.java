@@ -17,6 +17,7 @@ package org.jboss.migration.core;
 
 import org.jboss.logging.Logger;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -64,6 +65,56 @@ public class ServerMigrationTaskContext {
         return taskExecution.execute(subtask);
     }
 
+    /**
+     * Executes subtasks concurrently, using at most the specified number of threads. The subtask executions are added to the children task executions in the order of the specified subtasks, but the task numbers of their descendants depend on the execution order.
+     * @param subtasks the subtasks to execute
+     * @param maxThreads the max number of threads to use, a value lower than 2 means the subtasks are executed sequentially
+     * @return the subtask executions, in the order of the specified subtasks
+     * @throws IllegalStateException if the task result is already set
+     * @throws ServerMigrationFailedException if a subtask execution failed, the first failure in subtasks order is thrown only after all started subtask executions completed
+     */
+    public List<ServerMigrationTaskExecution> execute(Collection<? extends ServerMigrationTask> subtasks, int maxThreads) throws IllegalStateException, ServerMigrationFailedException {
+        return taskExecution.execute(subtasks, maxThreads);
+    }
+
+    /**
+     * Submits a subtask to the task's scheduler, which runs it, possibly concurrently with other submitted subtasks, once all its dependencies are done. The subtask execution is immediately added to the task's subtasks, thus these keep submission order.
+     * @param subtask the subtask to submit
+     * @param dependencies the previously submitted subtasks that the subtask depends on
+     * @return the subtask's handle, which may be used as a dependency of other subtasks
+     * @throws IllegalArgumentException if a dependency was not submitted by this task
+     * @throws IllegalStateException if the task result is already set
+     */
+    public ScheduledServerMigrationTask submit(ServerMigrationTask subtask, ScheduledServerMigrationTask... dependencies) throws IllegalArgumentException, IllegalStateException {
+        return taskExecution.submit(subtask, dependencies);
+    }
+
+    /**
+     * Awaits the completion of all submitted subtasks, which should be done before inspecting subtasks results. If a subtask fails, no more submitted subtasks are started, and these are removed from the task's subtasks.
+     * @throws ServerMigrationFailedException if a subtask execution failed, the first failure in submission order is thrown after all started subtasks completed
+     */
+    public void awaitSubtasks() throws ServerMigrationFailedException {
+        taskExecution.awaitSubtasks();
+    }
+
+    /**
+     * Indicates if the task execution was cancelled, e.g. due to a timeout. Long running tasks should check it periodically, and stop as soon as possible once cancelled.
+     * @return true if the task execution was cancelled, false otherwise
+     */
+    public boolean isCancelled() {
+        return taskExecution.isCancelled();
+    }
+
+    /**
+     * Checks if the task execution was cancelled.
+     * @throws ServerMigrationCancelledException if the task execution was cancelled
+     */
+    public void checkCancelled() throws ServerMigrationCancelledException {
+        if (taskExecution.isCancelled()) {
+            throw new ServerMigrationCancelledException("Task "+taskExecution.getTaskPath()+" cancelled");
+        }
+    }
+
     /**
      * Retrieves the server migration context.
      * @return the server migration context
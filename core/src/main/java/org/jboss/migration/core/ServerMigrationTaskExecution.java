@@ -16,11 +16,27 @@
 package org.jboss.migration.core;
 
 import org.jboss.logging.Logger;
+import org.jboss.logging.MDC;
+import org.jboss.migration.core.logger.ServerMigrationLogger;
+import org.jboss.migration.core.util.ContentHashBuilder;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
  * The server migration task execution.
@@ -28,17 +44,39 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public class ServerMigrationTaskExecution {
 
-    private static final AtomicLong taskCounter = new AtomicLong(0);
+    /**
+     * the key of the logging MDC entry with the number of the task being executed
+     */
+    public static final String LOGGING_CONTEXT_KEY = "migrationTask";
+
+    /**
+     * the logger shared by all task executions, which are identified by the logging MDC
+     */
+    private static final Logger LOGGER = Logger.getLogger(ServerMigrationTask.class.getName());
+
+    private static final ThreadLocal<ServerMigrationTaskExecution> CURRENT = new ThreadLocal<>();
 
     private final ServerMigrationTask task;
     private final ServerMigrationTaskExecution parent;
     private final List<ServerMigrationTaskExecution> children;
     private final ServerMigrationContext serverMigrationContext;
     private long startTime;
+    private volatile boolean inline;
+    private volatile boolean restored;
+    private volatile long wallTime = -1;
+    private volatile long cpuTime = -1;
+    private volatile long allocatedBytes = -1;
     private volatile ServerMigrationTaskResult result;
-    private final Logger logger;
+    private final AtomicIntegerArray subtreeTaskCounts = new AtomicIntegerArray(ServerMigrationTaskResult.Status.values().length);
     private final long taskNumber;
     private final ServerMigrationTaskPath taskPath;
+    private ServerMigrationTaskScheduler scheduler;
+    private final Object cancellationLock = new Object();
+    private volatile boolean cancelled;
+    private String cancelReason;
+    private Thread runningThread;
+    private final Map<String, String> environmentPropertiesRead = new LinkedHashMap<>();
+    private final Set<String> copiedFiles = new LinkedHashSet<>();
 
     ServerMigrationTaskExecution(ServerMigrationTask task, ServerMigrationTaskExecution parent) {
         this(task, parent, parent.serverMigrationContext);
@@ -52,9 +90,8 @@ public class ServerMigrationTaskExecution {
         this.task = task;
         this.parent = parent;
         this.serverMigrationContext = serverMigrationContext;
-        this.children = new ArrayList<>();
-        taskNumber = taskCounter.incrementAndGet();
-        this.logger = Logger.getLogger(ServerMigrationTask.class.getName()+'#'+String.valueOf(taskNumber));
+        this.children = Collections.synchronizedList(new ArrayList<ServerMigrationTaskExecution>());
+        taskNumber = serverMigrationContext.nextTaskNumber();
         this.taskPath = new ServerMigrationTaskPath(task.getName(), parent != null ? parent.getTaskPath() : null);
     }
 
@@ -67,7 +104,7 @@ public class ServerMigrationTaskExecution {
     }
 
     /**
-     * Retrieves the task number.
+     * Retrieves the task number, which is unique in the context of the migration, and assigned when the task execution is created. The subtasks executed concurrently are numbered in subtasks order, before any of them runs, but the numbers of their own subtasks are assigned as these are created, and thus depend on the execution order.
      * @return the task number
      */
     public long getTaskNumber() {
@@ -75,11 +112,27 @@ public class ServerMigrationTaskExecution {
     }
 
     /**
-     * Retrieves the task logger.
+     * Retrieves the task logger, which is shared by all task executions. The task execution is identified in log records by the logging MDC entry with key {@link #LOGGING_CONTEXT_KEY}.
      * @return the task logger
      */
     public Logger getLogger() {
-        return logger;
+        return LOGGER;
+    }
+
+    /**
+     * Retrieves the task's logger name, as shown in reports, which is the name of the shared task logger qualified with the task number, thus unique per task execution.
+     * @return the task's logger name
+     */
+    public String getLoggerName() {
+        return LOGGER.getName() + '#' + taskNumber;
+    }
+
+    /**
+     * Retrieves the value of the logging MDC entry which identifies the task execution.
+     * @return the value of the logging MDC entry which identifies the task execution
+     */
+    public String getLoggingContext() {
+        return String.valueOf(taskNumber);
     }
 
     /**
@@ -98,6 +151,100 @@ public class ServerMigrationTaskExecution {
         return startTime;
     }
 
+    /**
+     * Retrieves the task execution's elapsed wall clock time.
+     * @return the task execution's elapsed wall clock time in nanoseconds, or -1 if the task execution did not complete
+     */
+    public long getWallTime() {
+        return wallTime;
+    }
+
+    /**
+     * Retrieves the CPU time used by the thread which executed the task, which includes subtasks executed within the task execution, by the same thread.
+     * @return the CPU time in nanoseconds, or -1 if not available
+     */
+    public long getCpuTime() {
+        return cpuTime;
+    }
+
+    /**
+     * Retrieves the number of bytes allocated by the thread which executed the task, which includes subtasks executed within the task execution, by the same thread.
+     * @return the number of bytes allocated, or -1 if not available
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Retrieves the CPU time used by the task itself, i.e. excluding the subtasks executions.
+     * @return the CPU time in nanoseconds, or -1 if not available
+     */
+    public long getSelfCpuTime() {
+        if (cpuTime < 0) {
+            return -1;
+        }
+        long selfCpuTime = cpuTime;
+        for (ServerMigrationTaskExecution subtask : getSubtasks()) {
+            if (subtask.inline && subtask.restored == restored && subtask.cpuTime > 0) {
+                selfCpuTime -= subtask.cpuTime;
+            }
+        }
+        return selfCpuTime;
+    }
+
+    /**
+     * Retrieves the number of bytes allocated by the task itself, i.e. excluding the subtasks executions.
+     * @return the number of bytes allocated, or -1 if not available
+     */
+    public long getSelfAllocatedBytes() {
+        if (allocatedBytes < 0) {
+            return -1;
+        }
+        long selfAllocatedBytes = allocatedBytes;
+        for (ServerMigrationTaskExecution subtask : getSubtasks()) {
+            if (subtask.inline && subtask.restored == restored && subtask.allocatedBytes > 0) {
+                selfAllocatedBytes -= subtask.allocatedBytes;
+            }
+        }
+        return selfAllocatedBytes;
+    }
+
+    /**
+     * Retrieves the CPU time used by the task and all its subtasks, regardless of the threads which executed these.
+     * @return the CPU time in nanoseconds, or -1 if not available
+     */
+    public long getSubtreeCpuTime() {
+        long subtreeCpuTime = getSelfCpuTime();
+        if (subtreeCpuTime < 0) {
+            return -1;
+        }
+        for (ServerMigrationTaskExecution subtask : getSubtasks()) {
+            final long subtaskSubtreeCpuTime = subtask.getSubtreeCpuTime();
+            if (subtaskSubtreeCpuTime > 0) {
+                subtreeCpuTime += subtaskSubtreeCpuTime;
+            }
+        }
+        return subtreeCpuTime;
+    }
+
+    /**
+     * Retrieves the number of bytes allocated by the task and all its subtasks, regardless of the threads which executed these.
+     * @return the number of bytes allocated, or -1 if not available
+     */
+    public long getSubtreeAllocatedBytes() {
+        long subtreeAllocatedBytes = getSelfAllocatedBytes();
+        if (subtreeAllocatedBytes < 0) {
+            return -1;
+        }
+        for (ServerMigrationTaskExecution subtask : getSubtasks()) {
+            final long subtaskSubtreeAllocatedBytes = subtask.getSubtreeAllocatedBytes();
+            if (subtaskSubtreeAllocatedBytes > 0) {
+                subtreeAllocatedBytes += subtaskSubtreeAllocatedBytes;
+            }
+        }
+        return subtreeAllocatedBytes;
+    }
+
     /**
      * Retrieves the task's path
      * @return the task's path
@@ -122,6 +269,43 @@ public class ServerMigrationTaskExecution {
         return result;
     }
 
+    /**
+     * Retrieves the number of completed task executions in the task's subtree, i.e. the task and all its descendants, with the specified result status. The value is maintained as tasks complete, thus it may be retrieved, in constant time, while the task is still running.
+     * @param status the result status
+     * @return the number of completed task executions in the task's subtree with the specified result status
+     */
+    public int getSubtreeTaskCount(ServerMigrationTaskResult.Status status) {
+        return subtreeTaskCounts.get(status.ordinal());
+    }
+
+    /**
+     * Retrieves the number of completed task executions in the task's subtree, i.e. the task and all its descendants.
+     * @return the number of completed task executions in the task's subtree
+     */
+    public int getSubtreeTaskCount() {
+        int count = 0;
+        for (int i = 0; i < subtreeTaskCounts.length(); i++) {
+            count += subtreeTaskCounts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Updates the aggregates of the task's subtree, and of all its ancestors' subtrees, once the task result is set.
+     */
+    private void resultSet() {
+        if (result == null) {
+            return;
+        }
+        final int statusIndex = result.getStatus().ordinal();
+        for (ServerMigrationTaskExecution taskExecution = this; taskExecution != null; taskExecution = taskExecution.parent) {
+            taskExecution.subtreeTaskCounts.incrementAndGet(statusIndex);
+        }
+        if (result.getStatus() == ServerMigrationTaskResult.Status.FAIL || result.getStatus() == ServerMigrationTaskResult.Status.CANCELLED) {
+            serverMigrationContext.taskFailed(this);
+        }
+    }
+
     /**
      * Retrieves the server migration context.
      * @return the server migration context
@@ -146,32 +330,446 @@ public class ServerMigrationTaskExecution {
      * @throws ServerMigrationFailedException if the subtask execution failed
      */
     ServerMigrationTaskExecution execute(ServerMigrationTask subtask) throws IllegalStateException, ServerMigrationFailedException {
+        final ServerMigrationTaskExecution child = addSubtask(subtask);
+        child.run();
+        return child;
+    }
+
+    /**
+     * Executes subtasks concurrently, using at most the specified number of threads. The subtask executions are created, numbered and added to the children task executions in the order of the specified subtasks, and not in completion order, yet the descendants of the subtasks are numbered in creation order, which is not deterministic.
+     * @param subtasks the subtasks to execute
+     * @param maxThreads the max number of threads to use, a value lower than 2 means the subtasks are executed sequentially
+     * @return the subtask executions, in the order of the specified subtasks
+     * @throws IllegalStateException if the task result is already set
+     * @throws ServerMigrationFailedException if a subtask execution failed, the first failure in subtasks order is thrown only after all started subtask executions completed
+     */
+    List<ServerMigrationTaskExecution> execute(Collection<? extends ServerMigrationTask> subtasks, int maxThreads) throws IllegalStateException, ServerMigrationFailedException {
+        if (this.result != null) {
+            throw new IllegalStateException();
+        }
+        final List<ServerMigrationTaskExecution> executions = new ArrayList<>();
+        if (maxThreads < 2 || subtasks.size() < 2) {
+            for (ServerMigrationTask subtask : subtasks) {
+                executions.add(execute(subtask));
+            }
+            return executions;
+        }
+        // the current thread also runs subtasks
+        final ExecutorService executorService = Executors.newFixedThreadPool(Math.min(maxThreads, subtasks.size()) - 1, new SubtaskThreadFactory());
+        try {
+            final ServerMigrationTaskScheduler scheduler = new ServerMigrationTaskScheduler(this, executorService);
+            for (ServerMigrationTask subtask : subtasks) {
+                executions.add(scheduler.submit(subtask).getTaskExecution());
+            }
+            scheduler.await();
+            return executions;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Submits a subtask to the task's scheduler.
+     * @param subtask the subtask to submit
+     * @param dependencies the previously submitted subtasks that the subtask depends on
+     * @return the subtask's handle
+     * @throws IllegalArgumentException if a dependency was not submitted to the task's scheduler
+     * @throws IllegalStateException if the task result is already set
+     */
+    ScheduledServerMigrationTask submit(ServerMigrationTask subtask, ScheduledServerMigrationTask... dependencies) throws IllegalArgumentException, IllegalStateException {
+        if (scheduler == null) {
+            scheduler = new ServerMigrationTaskScheduler(this, serverMigrationContext.getTaskExecutor());
+        }
+        return scheduler.submit(subtask, dependencies);
+    }
+
+    /**
+     * Awaits the completion of all subtasks submitted to the task's scheduler.
+     * @throws ServerMigrationFailedException if a subtask execution failed
+     */
+    void awaitSubtasks() throws ServerMigrationFailedException {
+        if (scheduler != null) {
+            scheduler.await();
+        }
+    }
+
+    /**
+     * Stops starting subtasks submitted to the task's scheduler, and awaits the completion of the ones running, ignoring their failures.
+     */
+    private void abortSubtasks() {
+        if (scheduler != null) {
+            scheduler.abort();
+        }
+    }
+
+    /**
+     * Creates a subtask execution, and adds it to the children task executions.
+     * @param subtask the subtask
+     * @return the subtask execution
+     * @throws IllegalStateException if the task result is already set
+     */
+    ServerMigrationTaskExecution addSubtask(ServerMigrationTask subtask) throws IllegalStateException {
         if (this.result != null) {
             throw new IllegalStateException();
         }
         final ServerMigrationTaskExecution child = new ServerMigrationTaskExecution(subtask, this);
         children.add(child);
-        child.run();
+        if (cancelled) {
+            child.cancel(getCancelReason());
+        }
         return child;
     }
 
+    /**
+     * Removes a subtask execution, which was not run, from the children task executions.
+     * @param child the subtask execution
+     */
+    void removeSubtask(ServerMigrationTaskExecution child) {
+        children.remove(child);
+    }
+
     synchronized void run() throws IllegalStateException, ServerMigrationFailedException {
         if (this.result != null) {
             throw new IllegalStateException("Task "+ taskPath +" already run");
         }
+        if (task instanceof ResumableServerMigrationTask && restoreFromJournal()) {
+            return;
+        }
         startTime = System.currentTimeMillis();
-        logger.debugf("Task %s execution starting...", taskPath);
+        final long startNanoTime = System.nanoTime();
+        final long startCpuTime = ThreadResourceUsage.getCurrentThreadCpuTime();
+        final long startAllocatedBytes = ThreadResourceUsage.getCurrentThreadAllocatedBytes();
+        final Object previousLoggingContext = MDC.put(LOGGING_CONTEXT_KEY, getLoggingContext());
+        LOGGER.debugf("Task %s execution starting...", taskPath);
+        final ServerMigrationTaskExecution previous = CURRENT.get();
+        // a thread may be reused by other executions, only one nested in the parent's execution shares its thread usage
+        inline = parent != null && previous == parent;
+        CURRENT.set(this);
+        synchronized (cancellationLock) {
+            runningThread = Thread.currentThread();
+        }
+        serverMigrationContext.taskStarted(this);
         try {
-            result = task.run(new ServerMigrationTaskContext(this));
-        } catch (ServerMigrationFailedException e) {
-            result = ServerMigrationTaskResult.fail(e);
-            throw e;
-        } catch (Throwable t) {
-            final ServerMigrationFailedException e = new ServerMigrationFailedException(t);
-            result = ServerMigrationTaskResult.fail(e);
-            throw e;
+            ServerMigrationTaskResult taskResult = null;
+            Throwable failure = null;
+            ScheduledFuture<?> timeoutFuture = null;
+            try {
+                // within the try, so that a failure to schedule fails the task execution, and not leaves it without a result
+                timeoutFuture = scheduleTimeout();
+                if (!cancelled) {
+                    try {
+                        taskResult = task.run(new ServerMigrationTaskContext(this));
+                    } catch (Throwable t) {
+                        // the task failure is the one reported, but the subtasks it submitted must not outlive it
+                        abortSubtasks();
+                        throw t;
+                    }
+                    // subtasks submitted to the scheduler and not awaited by the task
+                    awaitSubtasks();
+                }
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                if (timeoutFuture != null) {
+                    timeoutFuture.cancel(false);
+                }
+            }
+            final ServerMigrationFailedException failReason;
+            synchronized (cancellationLock) {
+                runningThread = null;
+                if (cancelled) {
+                    final ServerMigrationCancelledException cancelReason = failure instanceof ServerMigrationCancelledException ? (ServerMigrationCancelledException) failure : new ServerMigrationCancelledException(this.cancelReason, failure);
+                    result = ServerMigrationTaskResult.cancelled(cancelReason);
+                    failReason = cancelReason;
+                } else if (failure != null) {
+                    failReason = failure instanceof ServerMigrationFailedException ? (ServerMigrationFailedException) failure : new ServerMigrationFailedException(failure);
+                    result = ServerMigrationTaskResult.fail(failReason);
+                } else {
+                    result = taskResult;
+                    failReason = null;
+                }
+            }
+            if (cancelled && (!inline || !parent.cancelled)) {
+                // the interruption was targeted at this task execution, clear it
+                Thread.interrupted();
+            }
+            if (failReason != null) {
+                throw failReason;
+            }
         } finally {
-            logger.debugf("Task %s execution completed with result status... %s", taskPath, result);
+            allocatedBytes = ThreadResourceUsage.elapsed(startAllocatedBytes, ThreadResourceUsage.getCurrentThreadAllocatedBytes());
+            cpuTime = ThreadResourceUsage.elapsed(startCpuTime, ThreadResourceUsage.getCurrentThreadCpuTime());
+            wallTime = System.nanoTime() - startNanoTime;
+            LOGGER.debugf("Task %s execution completed with result status... %s", taskPath, result);
+            if (task instanceof ResumableServerMigrationTask && result != null && (result.getStatus() == ServerMigrationTaskResult.Status.SUCCESS || result.getStatus() == ServerMigrationTaskResult.Status.SKIPPED)) {
+                appendToJournal();
+            }
+            resultSet();
+            serverMigrationContext.taskFinished(this);
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+            if (previousLoggingContext != null) {
+                MDC.put(LOGGING_CONTEXT_KEY, previousLoggingContext);
+            } else {
+                MDC.remove(LOGGING_CONTEXT_KEY);
+            }
+        }
+    }
+
+    /**
+     * Schedules the cancellation of the task execution, if its task environment defines a timeout.
+     * @return the scheduled cancellation, null if the task execution never times out
+     */
+    private ScheduledFuture<?> scheduleTimeout() {
+        final long timeout = serverMigrationContext.getTaskEnvironment(task).getTimeout();
+        if (timeout <= 0) {
+            return null;
+        }
+        return serverMigrationContext.getWatchdog().schedule(new Runnable() {
+            @Override
+            public void run() {
+                ServerMigrationLogger.ROOT_LOGGER.taskTimedOut(taskPath, timeout);
+                cancel("Task " + taskPath + " timed out after " + timeout + " ms");
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancels the task execution, and its subtasks executions. The cancellation is cooperative, the thread running the task is interrupted, and the task is expected to stop as soon as possible, and then the task result is set as cancelled. A task which was not started yet is not run. Tasks blocked in calls which ignore interrupts, e.g. in a server boot, should perform these in a way that allows abandoning them once interrupted.
+     * @param reason the cancel reason
+     */
+    void cancel(String reason) {
+        synchronized (cancellationLock) {
+            if (cancelled || result != null) {
+                return;
+            }
+            cancelled = true;
+            cancelReason = reason;
+            if (runningThread != null) {
+                runningThread.interrupt();
+            }
+        }
+        final List<ServerMigrationTaskExecution> subtasks;
+        synchronized (children) {
+            subtasks = new ArrayList<>(children);
+        }
+        for (ServerMigrationTaskExecution subtask : subtasks) {
+            subtask.cancel(reason);
+        }
+    }
+
+    /**
+     * Indicates if the task execution was cancelled.
+     * @return true if the task execution was cancelled, false otherwise
+     */
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    private String getCancelReason() {
+        synchronized (cancellationLock) {
+            return cancelReason;
+        }
+    }
+
+    private boolean restoreFromJournal() {
+        final MigrationJournal journal = serverMigrationContext.getMigrationJournal();
+        if (journal == null) {
+            return false;
+        }
+        final MigrationJournal.CompletedTask completedTask = journal.getCompletedTask(this);
+        if (completedTask == null) {
+            return false;
+        }
+        if (task instanceof IncrementalServerMigrationTask) {
+            final String contentHash = getContentHash(completedTask.copiedFiles);
+            if (contentHash == null || !contentHash.equals(completedTask.contentHash) || !MigrationJournal.isEnvironmentUnchanged(completedTask, serverMigrationContext.getMigrationEnvironment())) {
+                ServerMigrationLogger.ROOT_LOGGER.debugf("Task %s changed since previously completed", taskPath);
+                return false;
+            }
+        } else if (journal.getMode() != MigrationJournal.Mode.RESUME) {
+            return false;
+        }
+        restore(completedTask.taskRecord);
+        // the restored execution's inputs are inputs of the ancestors' executions too
+        for (Map.Entry<String, String> property : completedTask.environmentPropertiesRead.entrySet()) {
+            environmentPropertyRead(this, property.getKey(), property.getValue());
+        }
+        for (String copiedFile : completedTask.copiedFiles) {
+            fileCopied(this, copiedFile);
+        }
+        ServerMigrationLogger.ROOT_LOGGER.taskRestoredFromJournal(taskPath);
+        return true;
+    }
+
+    /**
+     * Computes the incremental task's content hash, which includes the content of the files copied by its execution.
+     * @param copiedFiles the paths of the sources and targets of the files copied by the task's execution
+     * @return the content hash, null if its computation failed
+     */
+    private String getContentHash(Collection<String> copiedFiles) {
+        try {
+            final String taskContentHash = ((IncrementalServerMigrationTask) task).getContentHash(new ServerMigrationTaskContext(this));
+            if (taskContentHash == null || copiedFiles.isEmpty()) {
+                return taskContentHash;
+            }
+            final ContentHashBuilder contentHashBuilder = new ContentHashBuilder().add(taskContentHash);
+            for (String copiedFile : copiedFiles) {
+                contentHashBuilder.add(copiedFile).add(Paths.get(copiedFile));
+            }
+            return contentHashBuilder.build();
+        } catch (Throwable t) {
+            ServerMigrationLogger.ROOT_LOGGER.debugf(t, "Task %s content hash computation failed", taskPath);
+            return null;
+        }
+    }
+
+    /**
+     * Records an environment property read by the current thread's task execution, as an input of such execution, and of its ancestors.
+     * @param propertyName the property's name
+     * @param propertyValue the property's value, null if not set
+     */
+    static void environmentPropertyRead(String propertyName, String propertyValue) {
+        environmentPropertyRead(CURRENT.get(), propertyName, propertyValue);
+    }
+
+    private static void environmentPropertyRead(ServerMigrationTaskExecution taskExecution, String propertyName, String propertyValue) {
+        for (; taskExecution != null; taskExecution = taskExecution.parent) {
+            synchronized (taskExecution.environmentPropertiesRead) {
+                if (!taskExecution.environmentPropertiesRead.containsKey(propertyName)) {
+                    taskExecution.environmentPropertiesRead.put(propertyName, propertyValue);
+                }
+            }
+        }
+    }
+
+    /**
+     * Records a file copied by the current thread's task execution, as an input of such execution, and of its ancestors.
+     * @param source the copied file's source
+     * @param target the copied file's target
+     */
+    static void fileCopied(Path source, Path target) {
+        final ServerMigrationTaskExecution taskExecution = CURRENT.get();
+        if (taskExecution != null && taskExecution.serverMigrationContext.getMigrationJournal() != null) {
+            fileCopied(taskExecution, source.toAbsolutePath().toString());
+            fileCopied(taskExecution, target.toAbsolutePath().toString());
+        }
+    }
+
+    private static void fileCopied(ServerMigrationTaskExecution taskExecution, String path) {
+        for (; taskExecution != null; taskExecution = taskExecution.parent) {
+            synchronized (taskExecution.copiedFiles) {
+                taskExecution.copiedFiles.add(path);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the environment properties read by the task execution, including by its subtasks executions.
+     * @return the environment properties read by the task execution, a null value means the property was not set
+     */
+    Map<String, String> getEnvironmentPropertiesRead() {
+        synchronized (environmentPropertiesRead) {
+            return new LinkedHashMap<>(environmentPropertiesRead);
+        }
+    }
+
+    /**
+     * Retrieves the paths of the sources and targets of the files copied by the task execution, including by its subtasks executions.
+     * @return the paths of the sources and targets of the files copied by the task execution
+     */
+    List<String> getCopiedFiles() {
+        synchronized (copiedFiles) {
+            return new ArrayList<>(copiedFiles);
+        }
+    }
+
+    private void restore(MigrationJournal.TaskRecord taskRecord) {
+        startTime = taskRecord.startTime;
+        inline = taskRecord.inline;
+        restored = true;
+        // listeners get the same events as if the task was executed
+        serverMigrationContext.taskStarted(this);
+        for (MigrationJournal.TaskRecord subtaskRecord : taskRecord.subtasks) {
+            addSubtask(new RestoredServerMigrationTask(subtaskRecord.taskName)).restore(subtaskRecord);
+        }
+        wallTime = taskRecord.wallTime;
+        cpuTime = taskRecord.cpuTime;
+        allocatedBytes = taskRecord.allocatedBytes;
+        result = taskRecord.result;
+        resultSet();
+        serverMigrationContext.taskFinished(this);
+    }
+
+    private void appendToJournal() {
+        final MigrationJournal journal = serverMigrationContext.getMigrationJournal();
+        if (journal != null) {
+            try {
+                journal.append(this, task instanceof IncrementalServerMigrationTask ? getContentHash(getCopiedFiles()) : null);
+            } catch (Throwable t) {
+                ServerMigrationLogger.ROOT_LOGGER.migrationJournalWriteFailed(taskPath, t);
+            }
+        }
+    }
+
+    /**
+     * Indicates if the task execution was restored from the migration journal, instead of being run.
+     * @return true if the task execution was restored from the migration journal, false otherwise
+     */
+    public boolean isRestored() {
+        return restored;
+    }
+
+    /**
+     * Indicates if the task was executed within its parent's execution, by the same thread, and thus the parent's thread usage includes the task's.
+     * @return true if the task was executed within its parent's execution, false otherwise
+     */
+    boolean isInline() {
+        return inline;
+    }
+
+    /**
+     * Retrieves the execution of the task being run by the current thread.
+     * @return the execution of the task being run by the current thread, null if none
+     */
+    public static ServerMigrationTaskExecution getCurrent() {
+        return CURRENT.get();
+    }
+
+    /**
+     * A task restored from the migration journal, which is never run.
+     */
+    private static class RestoredServerMigrationTask implements ServerMigrationTask {
+
+        private final ServerMigrationTaskName name;
+
+        private RestoredServerMigrationTask(ServerMigrationTaskName name) {
+            this.name = name;
+        }
+
+        @Override
+        public ServerMigrationTaskName getName() {
+            return name;
+        }
+
+        @Override
+        public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+            throw new IllegalStateException("Task "+ name +" was restored from migration journal");
+        }
+    }
+
+    private class SubtaskThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCounter = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "server-migration-task-" + taskNumber + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
         }
     }
 }
@@ -46,10 +46,19 @@ public class ServerMigrationTaskResult {
         return new ServerMigrationTaskResult(Status.FAIL, failReason, null);
     }
 
+    /**
+     * Constructs a cancelled result with the specified reason, and no attributes
+     * @param cancelReason the cancel reason
+     * @return a cancelled result with the specified reason, and no attributes
+     */
+    public static ServerMigrationTaskResult cancelled(ServerMigrationCancelledException cancelReason) {
+        return new ServerMigrationTaskResult(Status.CANCELLED, cancelReason, null);
+    }
+
     /**
      * The possible result status.
      */
-    public enum Status { FAIL, SUCCESS, SKIPPED};
+    public enum Status { FAIL, SUCCESS, SKIPPED, CANCELLED};
 
     private final Status status;
     private final ServerMigrationFailedException failReason;
@@ -81,7 +90,7 @@ public class ServerMigrationTaskResult {
     }
 
     /**
-     * Retrieves the fail reason.
+     * Retrieves the fail reason, which for cancelled results is the cancel reason.
      * @return the fail reason
      */
     public ServerMigrationFailedException getFailReason() {
@@ -131,6 +140,16 @@ public class ServerMigrationTaskResult {
             return this;
         }
 
+        /**
+         * Sets the status as cancelled, with the specified reason.
+         * @return the builder
+         */
+        public Builder cancelled(ServerMigrationCancelledException cancelReason) {
+            status = Status.CANCELLED;
+            this.failReason = cancelReason;
+            return this;
+        }
+
         /**
          * Adds an attribute.
          * @param name
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The scheduler of a task execution's subtasks, which runs independent subtasks concurrently, and delays subtasks till their dependencies are done.
+ *
+ * Subtasks are run by the scheduler's executor, if any, and by the thread awaiting completion, which runs ready subtasks that were not yet picked by the executor. Thus the scheduler progresses even if the executor has no free threads.
+ *
+ * Once a subtask fails no more subtasks are started, and the subtasks not started are removed from the task execution's subtasks.
+ * @author emmartins
+ */
+final class ServerMigrationTaskScheduler {
+
+    private final ServerMigrationTaskExecution taskExecution;
+    private final Executor executor;
+    private final List<ScheduledServerMigrationTask> scheduledTasks;
+    private boolean failed;
+
+    /**
+     *
+     * @param taskExecution the task execution which subtasks are scheduled
+     * @param executor the executor, may be null, in such case subtasks are only run by the thread awaiting completion
+     */
+    ServerMigrationTaskScheduler(ServerMigrationTaskExecution taskExecution, Executor executor) {
+        this.taskExecution = taskExecution;
+        this.executor = executor;
+        this.scheduledTasks = new ArrayList<>();
+    }
+
+    /**
+     * Submits a subtask.
+     * @param subtask the subtask to submit
+     * @param dependencies the previously submitted subtasks that the subtask depends on
+     * @return the subtask's handle
+     * @throws IllegalArgumentException if a dependency was not submitted to this scheduler
+     * @throws IllegalStateException if the task result is already set
+     */
+    synchronized ScheduledServerMigrationTask submit(ServerMigrationTask subtask, ScheduledServerMigrationTask... dependencies) throws IllegalArgumentException, IllegalStateException {
+        for (ScheduledServerMigrationTask dependency : dependencies) {
+            if (dependency.getScheduler() != this || !scheduledTasks.contains(dependency)) {
+                throw new IllegalArgumentException("Dependency "+dependency.getTaskExecution().getTaskPath()+" not submitted to the scheduler");
+            }
+        }
+        final ScheduledServerMigrationTask scheduledTask = new ScheduledServerMigrationTask(this, taskExecution.addSubtask(subtask), dependencies.clone());
+        scheduledTasks.add(scheduledTask);
+        dispatch(scheduledTask);
+        return scheduledTask;
+    }
+
+    /**
+     * Awaits the completion of all submitted subtasks, running ready subtasks in the current thread. If the current thread is interrupted, no more subtasks are started, the running ones are cancelled, and awaited, thus the scheduler is always left completed.
+     * @throws ServerMigrationFailedException if a subtask execution failed, the first failure in submission order is thrown after all started subtasks completed, or if the current thread was interrupted
+     */
+    void await() throws ServerMigrationFailedException {
+        InterruptedException interruption = null;
+        while (true) {
+            final ScheduledServerMigrationTask next;
+            synchronized (this) {
+                next = claimNext();
+                if (next == null) {
+                    if (isRunning()) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            if (interruption == null) {
+                                interruption = e;
+                                failed = true;
+                                cancelRunning();
+                            }
+                        }
+                        continue;
+                    } else {
+                        break;
+                    }
+                }
+            }
+            run(next);
+        }
+        final ServerMigrationFailedException failure;
+        synchronized (this) {
+            failure = complete();
+        }
+        if (interruption != null) {
+            Thread.currentThread().interrupt();
+            throw new ServerMigrationFailedException(interruption);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Stops starting submitted subtasks, and awaits the completion of the running ones, ignoring their failures.
+     */
+    void abort() {
+        synchronized (this) {
+            failed = true;
+        }
+        try {
+            await();
+        } catch (ServerMigrationFailedException e) {
+            // the failure which caused the abort is the one reported
+        }
+    }
+
+    private void cancelRunning() {
+        for (ScheduledServerMigrationTask scheduledTask : scheduledTasks) {
+            if (scheduledTask.getState() == ScheduledServerMigrationTask.State.RUNNING) {
+                scheduledTask.getTaskExecution().cancel("Task "+taskExecution.getTaskPath()+" interrupted while awaiting subtasks");
+            }
+        }
+    }
+
+    private boolean isReady(ScheduledServerMigrationTask scheduledTask) {
+        if (scheduledTask.getState() != ScheduledServerMigrationTask.State.PENDING) {
+            return false;
+        }
+        for (ScheduledServerMigrationTask dependency : scheduledTask.getDependencies()) {
+            if (dependency.getState() != ScheduledServerMigrationTask.State.DONE || dependency.getFailure() != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isRunning() {
+        for (ScheduledServerMigrationTask scheduledTask : scheduledTasks) {
+            if (scheduledTask.getState() == ScheduledServerMigrationTask.State.RUNNING) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ScheduledServerMigrationTask claimNext() {
+        for (ScheduledServerMigrationTask scheduledTask : scheduledTasks) {
+            if (failed) {
+                // withdraw queued subtasks, the executor skips these
+                if (scheduledTask.getState() == ScheduledServerMigrationTask.State.QUEUED) {
+                    scheduledTask.setState(ScheduledServerMigrationTask.State.PENDING);
+                }
+            } else if (scheduledTask.getState() == ScheduledServerMigrationTask.State.QUEUED || isReady(scheduledTask)) {
+                scheduledTask.setState(ScheduledServerMigrationTask.State.RUNNING);
+                return scheduledTask;
+            }
+        }
+        return null;
+    }
+
+    private void dispatch(final ScheduledServerMigrationTask scheduledTask) {
+        if (executor == null || failed || !isReady(scheduledTask)) {
+            return;
+        }
+        scheduledTask.setState(ScheduledServerMigrationTask.State.QUEUED);
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (ServerMigrationTaskScheduler.this) {
+                        if (scheduledTask.getState() != ScheduledServerMigrationTask.State.QUEUED) {
+                            // claimed by the awaiting thread, or withdrawn
+                            return;
+                        }
+                        scheduledTask.setState(ScheduledServerMigrationTask.State.RUNNING);
+                    }
+                    ServerMigrationTaskScheduler.this.run(scheduledTask);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the awaiting thread will run it
+            scheduledTask.setState(ScheduledServerMigrationTask.State.PENDING);
+        }
+    }
+
+    private void run(ScheduledServerMigrationTask scheduledTask) {
+        ServerMigrationFailedException failure = null;
+        try {
+            scheduledTask.getTaskExecution().run();
+        } catch (ServerMigrationFailedException e) {
+            failure = e;
+        } catch (Throwable t) {
+            failure = new ServerMigrationFailedException(t);
+        }
+        synchronized (this) {
+            scheduledTask.setState(ScheduledServerMigrationTask.State.DONE);
+            scheduledTask.setFailure(failure);
+            if (failure != null) {
+                failed = true;
+            } else {
+                for (ScheduledServerMigrationTask other : scheduledTasks) {
+                    dispatch(other);
+                }
+            }
+            notifyAll();
+        }
+    }
+
+    private ServerMigrationFailedException complete() {
+        ServerMigrationFailedException failure = null;
+        for (ScheduledServerMigrationTask scheduledTask : scheduledTasks) {
+            if (scheduledTask.getState() == ScheduledServerMigrationTask.State.DONE) {
+                if (failure == null) {
+                    failure = scheduledTask.getFailure();
+                }
+            } else {
+                // never started, same as a subtask not executed after a failure in sequential execution
+                taskExecution.removeSubtask(scheduledTask.getTaskExecution());
+            }
+        }
+        scheduledTasks.clear();
+        failed = false;
+        return failure;
+    }
+}
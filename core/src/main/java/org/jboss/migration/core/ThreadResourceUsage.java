@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the resources used by the current thread, if supported by the JVM.
+ * @author emmartins
+ */
+final class ThreadResourceUsage {
+
+    private static final ThreadMXBean THREAD_MX_BEAN;
+    private static final boolean CPU_TIME_SUPPORTED;
+    private static final boolean ALLOCATED_BYTES_SUPPORTED;
+
+    static {
+        ThreadMXBean threadMXBean = null;
+        boolean cpuTimeSupported = false;
+        boolean allocatedBytesSupported = false;
+        try {
+            threadMXBean = ManagementFactory.getThreadMXBean();
+            cpuTimeSupported = threadMXBean.isCurrentThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled();
+            if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+                final com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+                allocatedBytesSupported = sunThreadMXBean.isThreadAllocatedMemorySupported() && sunThreadMXBean.isThreadAllocatedMemoryEnabled();
+            }
+        } catch (Throwable t) {
+            // not supported by the JVM
+        }
+        THREAD_MX_BEAN = threadMXBean;
+        CPU_TIME_SUPPORTED = cpuTimeSupported;
+        ALLOCATED_BYTES_SUPPORTED = allocatedBytesSupported;
+    }
+
+    private ThreadResourceUsage() {
+    }
+
+    /**
+     * Retrieves the current thread's CPU time.
+     * @return the current thread's CPU time in nanoseconds, or -1 if not supported
+     */
+    static long getCurrentThreadCpuTime() {
+        return CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * Retrieves the number of bytes allocated in the heap by the current thread.
+     * @return the number of bytes allocated in the heap by the current thread, or -1 if not supported
+     */
+    static long getCurrentThreadAllocatedBytes() {
+        return ALLOCATED_BYTES_SUPPORTED ? ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    /**
+     * Computes the difference between two measures.
+     * @param start the starting measure
+     * @param end the ending measure
+     * @return the difference between the measures, or -1 if any measure is not available
+     */
+    static long elapsed(long start, long end) {
+        return start < 0 || end < 0 ? -1 : end - start;
+    }
+}
@@ -30,11 +30,39 @@ import java.util.TreeMap;
 public class MigrationEnvironment implements Environment {
 
     private final SortedMap<String, PropertyValue> properties;
+    private volatile PropertyReadListener propertyReadListener;
 
     public MigrationEnvironment() {
         this.properties = new TreeMap<>();
     }
 
+    /**
+     * A listener of property reads, including reads of properties not set.
+     */
+    public interface PropertyReadListener {
+        /**
+         * A property was read.
+         * @param propertyName the property's name
+         * @param propertyValue the property's value, null if the property is not set
+         */
+        void propertyRead(String propertyName, String propertyValue);
+    }
+
+    /**
+     * Sets the listener of property reads.
+     * @param propertyReadListener the listener of property reads, null to remove the current one
+     */
+    public void setPropertyReadListener(PropertyReadListener propertyReadListener) {
+        this.propertyReadListener = propertyReadListener;
+    }
+
+    private void propertyRead(String propertyName, PropertyValue propertyValue) {
+        final PropertyReadListener propertyReadListener = this.propertyReadListener;
+        if (propertyReadListener != null) {
+            propertyReadListener.propertyRead(propertyName, propertyValue != null ? propertyValue.stringValue : null);
+        }
+    }
+
     public Boolean getPropertyAsBoolean(String propertyName) {
         final String propertyValue  = getPropertyAsString(propertyName);
         if (propertyValue == null || propertyValue.isEmpty()) {
@@ -50,6 +78,7 @@ public class MigrationEnvironment implements Environment {
 
     public String getPropertyAsString(String propertyName) {
         final PropertyValue propertyValue = properties.get(propertyName);
+        propertyRead(propertyName, propertyValue);
         if (propertyValue == null) {
             return null;
         }
@@ -63,6 +92,7 @@ public class MigrationEnvironment implements Environment {
 
     public List<String> getPropertyAsList(String propertyName) {
         final PropertyValue propertyValue = properties.get(propertyName);
+        propertyRead(propertyName, propertyValue);
         if (propertyValue == null) {
             return null;
         }
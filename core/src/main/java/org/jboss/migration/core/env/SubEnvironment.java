@@ -35,7 +35,7 @@ public class SubEnvironment implements Environment {
         this.propertyNamePrefix = propertyNamePrefix;
     }
 
-    private String getAbsolutePropertyName(String propertyName) {
+    protected String getAbsolutePropertyName(String propertyName) {
         return new StringBuilder(propertyNamePrefix).append(propertyName).toString();
     }
 
@@ -16,12 +16,15 @@
 
 package org.jboss.migration.core.env;
 
+import org.jboss.migration.core.logger.ServerMigrationLogger;
+
 /**
  * @author emmartins
  */
 public class TaskEnvironment extends SubEnvironment {
 
     private static final String PROPERTY_SKIP = "skip";
+    private static final String PROPERTY_TIMEOUT = "timeout";
 
     public TaskEnvironment(Environment environment, String propertyNamePrefix) {
         super(environment, propertyNamePrefix);
@@ -30,4 +33,18 @@ public class TaskEnvironment extends SubEnvironment {
     public boolean isSkippedByEnvironment() {
         return getPropertyAsBoolean(PROPERTY_SKIP, Boolean.FALSE);
     }
+
+    /**
+     * Retrieves the task timeout, after which the task execution is cancelled.
+     * @return the task timeout in milliseconds, 0 if the task execution never times out, or if the property value is not a number
+     */
+    public long getTimeout() {
+        final String value = getPropertyAsString(PROPERTY_TIMEOUT, "0");
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            ServerMigrationLogger.ROOT_LOGGER.invalidTaskTimeout(value, getAbsolutePropertyName(PROPERTY_TIMEOUT));
+            return 0;
+        }
+    }
 }
@@ -17,14 +17,18 @@ package org.jboss.migration.core.logger;
 
 import org.jboss.logging.BasicLogger;
 import org.jboss.logging.Logger;
+import org.jboss.logging.annotations.Cause;
 import org.jboss.logging.annotations.LogMessage;
 import org.jboss.logging.annotations.Message;
 import org.jboss.logging.annotations.MessageLogger;
 import org.jboss.migration.core.ProductInfo;
+import org.jboss.migration.core.ServerMigrationFailedException;
+import org.jboss.migration.core.ServerMigrationTaskPath;
 
 import java.nio.file.Path;
 
 import static org.jboss.logging.Logger.Level.INFO;
+import static org.jboss.logging.Logger.Level.WARN;
 
 /**
  * The server migration's core logger.
@@ -200,4 +204,61 @@ public interface ServerMigrationLogger extends BasicLogger {
     @LogMessage(level = INFO)
     @Message(id = Message.NONE, value = "File %s copied to %s.")
     void fileCopied(Path source, Path target);
+
+    /**
+     * Logs a msg indicating that a server migration listener failed to process an event.
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 9, value = "Server migration listener %s failed to process event.")
+    void listenerFailed(Object listener, @Cause Throwable cause);
+
+    /**
+     * Logs a msg indicating that a task execution was restored from the migration journal.
+     */
+    @LogMessage(level = INFO)
+    @Message(id = Message.NONE, value = "Task %s previously completed, execution restored from migration journal.")
+    void taskRestoredFromJournal(ServerMigrationTaskPath taskPath);
+
+    /**
+     * Logs a msg indicating that a completed task execution was not recorded in the migration journal.
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 10, value = "Failed to record completed task %s in migration journal.")
+    void migrationJournalWriteFailed(ServerMigrationTaskPath taskPath, @Cause Throwable cause);
+
+    /**
+     * Creates an exception indicating that the migration journal could not be opened.
+     *
+     * @return a {@link ServerMigrationFailedException} for the error.
+     */
+    @Message(id = 11, value = "Failed to open migration journal %s.")
+    ServerMigrationFailedException migrationJournalOpenFailed(Path path, @Cause Throwable cause);
+
+    /**
+     * Logs a msg indicating that a task execution timed out, and is being cancelled.
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 12, value = "Task %s timed out after %d ms, cancelling its execution.")
+    void taskTimedOut(ServerMigrationTaskPath taskPath, long timeout);
+
+    /**
+     * Logs a msg indicating that a server was booted again, by the same migration.
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 13, value = "Server %s booted again, the boot of its previous session was lost.")
+    void serverBootLost(String server);
+
+    /**
+     * Logs a msg indicating that the migration journal is invalid, from the specified position on, and that its records from such position on were discarded.
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 14, value = "Migration journal %s is invalid at position %d, its records from such position on were discarded: %s")
+    void migrationJournalInvalid(Path path, long position, String reason);
+
+    /**
+     * Logs a msg indicating that the value of a task timeout property is invalid, thus the task never times out.
+     */
+    @LogMessage(level = WARN)
+    @Message(id = 15, value = "Invalid value %s of task timeout property %s, the task will not time out.")
+    void invalidTaskTimeout(String value, String propertyName);
 }
@@ -19,8 +19,11 @@ import org.jboss.migration.core.MigrationData;
 import org.jboss.migration.core.ServerMigrationTaskExecution;
 import org.jboss.migration.core.ServerMigrationTaskResult;
 
-import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -38,193 +41,268 @@ public class HtmlReportWriter {
 
     public static HtmlReportWriter INSTANCE = new HtmlReportWriter();
 
+    /**
+     * the max number of tasks per task map chunk, each chunk is a separate script element, thus browsers never parse a single huge literal
+     */
+    private static final int TASK_MAP_CHUNK_SIZE = 500;
+
+    /**
+     * the resource with the task map rendering script, included in reports whose template does not define it
+     */
+    private static final String TASK_MAP_SCRIPT_RESOURCE = "migration-report-task-map.js";
+
     private HtmlReportWriter() {
 
     }
 
     public void toPath(Path path, MigrationData migrationData, ReportTemplate template) throws IOException {
-        final String s = toString(migrationData,template);
-        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
-            writer.write(s, 0, s.length());
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            write(writer, migrationData, template);
         }
     }
 
     public String toString(MigrationData migrationData, ReportTemplate template) {
-        final StringBuilder sb = new StringBuilder();
-        sb.append(template.header);
-        appendSummary(migrationData, sb);
-        sb.append(template.summaryToEnvironment);
-        appendEnvironment(migrationData, sb);
-        sb.append(template.environmentToTaskSummary);
-        appendTaskSummary(migrationData, sb);
-        sb.append(template.taskSummaryToTaskMap);
-        appendTaskMap(migrationData, sb);
-        sb.append(template.footer);
-        return sb.toString();
+        final StringWriter writer = new StringWriter();
+        try {
+            write(writer, migrationData, template);
+        } catch (IOException e) {
+            // not expected with a string writer
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
     }
 
-    private void appendSummary(MigrationData migrationData, StringBuilder sb) {
+    /**
+     * Writes the report, streaming it to the specified writer. The task map is written as chunks of JSON literals, which the task map script renders lazily, as tasks are expanded. The task map script is the template's, if it defines the function {@code renderTaskMap}, otherwise the default script is included.
+     * @param writer the writer
+     * @param migrationData the migration data
+     * @param template the report template
+     * @throws IOException if the writing failed
+     */
+    public void write(Writer writer, MigrationData migrationData, ReportTemplate template) throws IOException {
+        writer.write(template.header);
+        writeSummary(migrationData, writer);
+        writer.write(template.summaryToEnvironment);
+        writeEnvironment(migrationData, writer);
+        writer.write(template.environmentToTaskSummary);
+        writeTaskSummary(migrationData, writer);
+        writer.write(template.taskSummaryToTaskMap);
+        writeTaskMap(migrationData, template, writer);
+        writer.write(template.footer);
+    }
+
+    private void writeSummary(MigrationData migrationData, Writer writer) throws IOException {
         final SimpleDateFormat sdf = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss z");
         sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
         final String utcTime = sdf.format(new Date(migrationData.getRootTask().getStartTime()));
-        appendProperty("Start Time", utcTime, sb);
-        appendProperty("Source Server", migrationData.getSource().getProductInfo().getName() + ' ' + migrationData.getSource().getProductInfo().getVersion(), sb);
-        appendProperty("Source Path", migrationData.getSource().getBaseDir(), sb);
-        appendProperty("Target Server", migrationData.getTarget().getProductInfo().getName() + ' ' + migrationData.getTarget().getProductInfo().getVersion(), sb);
-        appendProperty("Target Path", migrationData.getTarget().getBaseDir(), sb);
-        appendProperty("Result", getTaskStatus(migrationData.getRootTask().getResult(), migrationData.getRootTask().getResult().getStatus()), sb);
+        writeProperty("Start Time", utcTime, writer);
+        writeProperty("Source Server", migrationData.getSource().getProductInfo().getName() + ' ' + migrationData.getSource().getProductInfo().getVersion(), writer);
+        writeProperty("Source Path", migrationData.getSource().getBaseDir(), writer);
+        writeProperty("Target Server", migrationData.getTarget().getProductInfo().getName() + ' ' + migrationData.getTarget().getProductInfo().getVersion(), writer);
+        writeProperty("Target Path", migrationData.getTarget().getBaseDir(), writer);
+        writeProperty("Result", getTaskStatus(migrationData.getRootTask().getResult(), migrationData.getRootTask().getResult().getStatus()), writer);
+        writeProperty("Wall Time", formatTime(migrationData.getWallTime()), writer);
+        writeProperty("CPU Time", formatTime(migrationData.getCpuTime()), writer);
+        writeProperty("Allocated Memory", formatBytes(migrationData.getAllocatedBytes()), writer);
+        writeProperty("Server Boots", migrationData.getServerBoots(), writer);
+        writeProperty("Lost Server Boots", migrationData.getLostServerBoots(), writer);
     }
 
-    private void appendEnvironment(MigrationData migrationData, StringBuilder sb) {
+    private void writeEnvironment(MigrationData migrationData, Writer writer) throws IOException {
         for (String property : migrationData.getServerMigrationEnvironment().getPropertyNamesReaded()) {
-            appendProperty(property, migrationData.getServerMigrationEnvironment().getPropertyAsString(property), sb);
+            writeProperty(property, migrationData.getServerMigrationEnvironment().getPropertyAsString(property), writer);
         }
     }
 
-    private void appendTaskSummary(MigrationData migrationData, StringBuilder sb) {
-        appendProperty("Executed", migrationData.getTasks().size(), sb);
-        appendProperty("Successful", migrationData.getTaskCount(ServerMigrationTaskResult.Status.SUCCESS), sb);
-        appendProperty("Skipped", migrationData.getTaskCount(ServerMigrationTaskResult.Status.SKIPPED), sb);
-        appendProperty("Failed", migrationData.getTaskCount(ServerMigrationTaskResult.Status.FAIL), sb);
+    private void writeTaskSummary(MigrationData migrationData, Writer writer) throws IOException {
+        writeProperty("Executed", migrationData.getTaskCount(), writer);
+        writeProperty("Successful", migrationData.getTaskCount(ServerMigrationTaskResult.Status.SUCCESS), writer);
+        writeProperty("Skipped", migrationData.getTaskCount(ServerMigrationTaskResult.Status.SKIPPED), writer);
+        writeProperty("Failed", migrationData.getTaskCount(ServerMigrationTaskResult.Status.FAIL), writer);
+        writeProperty("Cancelled", migrationData.getTaskCount(ServerMigrationTaskResult.Status.CANCELLED), writer);
     }
 
-    private void appendTaskMap(MigrationData migrationData, StringBuilder sb) {
+    private void writeTaskMap(MigrationData migrationData, ReportTemplate template, Writer writer) throws IOException {
         final int maxTaskPathSizeToDisplaySubtasks = Integer.valueOf(migrationData.getServerMigrationEnvironment().getPropertyAsString(EnvironmentProperties.PROPERTY_MAX_TASK_PATH_SIZE_TO_DISPLAY_SUBTASKS, "4"));
-        appendTask(migrationData.getRootTask(), sb, maxTaskPathSizeToDisplaySubtasks);
+        writer.write("<div id=\"task-map-tree\"></div>\n");
+        if (!template.definesTaskMapScript) {
+            writer.write("<script>\n");
+            writer.write(getTaskMapScript());
+            writer.write("</script>\n");
+        }
+        writer.write("<script>\naddTasks([");
+        writeTask(migrationData.getRootTask(), null, new int[]{0}, writer);
+        writer.write("]);\n</script>\n<script>\nrenderTaskMap(document.getElementById('task-map-tree'), {\"maxTaskPathSizeToDisplaySubtasks\":");
+        writer.write(String.valueOf(maxTaskPathSizeToDisplaySubtasks));
+        writer.write(",\"root\":");
+        writer.write(String.valueOf(migrationData.getRootTask().getTaskNumber()));
+        writer.write("});\n</script>");
     }
 
-    private void appendTask(ServerMigrationTaskExecution task, StringBuilder sb, int maxTaskPathSizeToDisplaySubtasks) {
-        final String tableClass = (task.getTaskPath().size() % 2) == 0 ? "task-map-even" : "task-map-odd";
-        sb.append("<table class=\"").append(tableClass).append("\">");
-        appendTaskHeader(task, sb, maxTaskPathSizeToDisplaySubtasks);
-        appendTaskDetails(task, sb);
-        appendTaskSubtasks(task, sb, maxTaskPathSizeToDisplaySubtasks);
-        sb.append("</table>");
-    }
+    private static String taskMapScript;
 
-    private void appendTaskHeader(ServerMigrationTaskExecution task, StringBuilder sb, int maxTaskPathSizeToDisplaySubtasks) {
-        sb.append("<tr>");
-        sb.append("<td class=\"task-map-header\">");
-        sb.append("<table class=\"task-header\">");
-        sb.append("<tr>");
-        // name
-        sb.append("<td class=\"task-header-name\" id=\"task").append(task.getTaskNumber()).append("\">");
-        sb.append("<a class=\"task-display-toggle\" href=\"#task").append(task.getTaskNumber()).append("\" title=\"Show or hide the task details\" onclick=\"toggleDisplayTaskDetails('task").append(task.getTaskNumber()).append("'); return false\">").append(getTaskStatus(task.getResult(), task.getTaskName())).append("</a>");
-        sb.append("</td>");
-        // subtasks toggles
-        if (!task.getSubtasks().isEmpty()) {
-            sb.append("<td class=\"task-header-toggles\">");
-            sb.append("<table>");
-            sb.append("<tr>");
-            if (task.getTaskPath().size() > maxTaskPathSizeToDisplaySubtasks) {
-                sb.append("<td class=\"task-display-toggle\" style=\"display: none\" id=\"task").append(task.getTaskNumber()).append("-subtasks-hide\">");
-            } else {
-                sb.append("<td class=\"task-display-toggle\" id=\"task").append(task.getTaskNumber()).append("-subtasks-hide\">");
-            }
-            sb.append("<a class=\"task-display-toggle\" title=\"Hide subtasks\" href=\"#task").append(task.getTaskNumber()).append("\" onclick=\"hideSubtasks('task").append(task.getTaskNumber()).append("'); return false\">-</a>");
-            sb.append("</td>");
-            if (task.getTaskPath().size() > maxTaskPathSizeToDisplaySubtasks) {
-                sb.append("<td class=\"task-display-toggle\" id=\"task").append(task.getTaskNumber()).append("-subtasks-show\">");
-            } else {
-                sb.append("<td class=\"task-display-toggle\" style=\"display: none\" id=\"task").append(task.getTaskNumber()).append("-subtasks-show\">");
+    private static synchronized String getTaskMapScript() throws IOException {
+        if (taskMapScript == null) {
+            try (InputStream inputStream = HtmlReportWriter.class.getResourceAsStream(TASK_MAP_SCRIPT_RESOURCE)) {
+                if (inputStream == null) {
+                    throw new IOException("Resource "+TASK_MAP_SCRIPT_RESOURCE+" not found");
+                }
+                final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                final byte[] buffer = new byte[8192];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, read);
+                }
+                taskMapScript = new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
             }
-            sb.append("<a class=\"task-display-toggle\" title=\"Show subtasks\" href=\"#task").append(task.getTaskNumber()).append("\" onclick=\"showSubtasks('task").append(task.getTaskNumber()).append("'); return false\">+</a>");
-            sb.append("</td>");
-            sb.append("</tr>");
-            sb.append("</table>");
-            sb.append("</td>");
         }
-        sb.append("</tr>");
-        sb.append("</table>");
-        sb.append("</td>");
-        sb.append("</tr>");
+        return taskMapScript;
     }
 
-    private void appendTaskDetails(ServerMigrationTaskExecution task, StringBuilder sb) {
-        sb.append("<tr>");
-        sb.append("<td id=\"task").append(task.getTaskNumber()).append("-details\" style=\"display: none\" class=\"task-map-details\"><table class=\"task-details\">");
-
-        appendTaskDetailsProperty("Task Number", task.getTaskNumber(), sb);
-        appendTaskDetailsProperty("Task Name", task.getTaskName(), sb);
-        appendTaskDetailsProperty("Task Path", task.getTaskPath(), sb);
-        appendTaskDetailsProperty("Logger Name", task.getLogger().getName(), sb);
-
-        // result
+    /**
+     * Writes a task, and then its descendants, in pre-order, as JSON objects with short keys, to keep the report small. Each task references its parent, thus the tasks are written flat, and split in chunks of at most {@link #TASK_MAP_CHUNK_SIZE} tasks.
+     * @param task the task
+     * @param parent the task's parent, null if the task is the root task
+     * @param chunkSize the number of tasks written in the current chunk
+     * @param writer the writer
+     * @throws IOException if the writing failed
+     */
+    private void writeTask(ServerMigrationTaskExecution task, ServerMigrationTaskExecution parent, int[] chunkSize, Writer writer) throws IOException {
+        if (chunkSize[0] == TASK_MAP_CHUNK_SIZE) {
+            writer.write("]);\n</script>\n<script>\naddTasks([");
+            chunkSize[0] = 0;
+        } else if (chunkSize[0] > 0) {
+            writer.write(',');
+        }
+        chunkSize[0]++;
         final ServerMigrationTaskResult result = task.getResult();
-        appendTaskDetailsProperty("Result Status", getTaskStatus(result, result.getStatus()), sb);
-        if (result.getStatus() == ServerMigrationTaskResult.Status.FAIL) {
-            appendTaskDetailsProperty("Fail Reason", result.getFailReason(), sb);
+        writer.write("{\"n\":");
+        writer.write(String.valueOf(task.getTaskNumber()));
+        if (parent != null) {
+            writer.write(",\"p\":");
+            writer.write(String.valueOf(parent.getTaskNumber()));
+        }
+        writeJsonProperty("name", task.getTaskName(), writer);
+        writer.write(",\"depth\":");
+        writer.write(String.valueOf(task.getTaskPath().size()));
+        writeJsonProperty("path", task.getTaskPath(), writer);
+        writeJsonProperty("logger", task.getLoggerName(), writer);
+        writeJsonProperty("mdc", ServerMigrationTaskExecution.LOGGING_CONTEXT_KEY + "=" + task.getLoggingContext(), writer);
+        writeJsonProperty("wall", formatTime(task.getWallTime()), writer);
+        writeJsonProperty("cpu", formatTime(task.getSelfCpuTime()) + " (subtree " + formatTime(task.getSubtreeCpuTime()) + ")", writer);
+        writeJsonProperty("mem", formatBytes(task.getSelfAllocatedBytes()) + " (subtree " + formatBytes(task.getSubtreeAllocatedBytes()) + ")", writer);
+        writeJsonProperty("status", result.getStatus(), writer);
+        if (result.getStatus() == ServerMigrationTaskResult.Status.FAIL || result.getStatus() == ServerMigrationTaskResult.Status.CANCELLED) {
+            writeJsonProperty("reason", result.getFailReason(), writer);
         }
         final Map<String, String> attributes = result.getAttributes();
         if (attributes != null && !attributes.isEmpty()) {
-            final StringBuilder temp = new StringBuilder();
+            writer.write(",\"attrs\":[");
             boolean first = true;
             for (Map.Entry<String, String> attribute : attributes.entrySet()) {
                 if (first) {
                     first = false;
                 } else {
-                    temp.append("<br/>");
+                    writer.write(',');
                 }
-                temp.append(attribute.getKey()).append(" = ").append(attribute.getValue());
+                writer.write('[');
+                writeJsonString(attribute.getKey(), writer);
+                writer.write(',');
+                writeJsonString(attribute.getValue(), writer);
+                writer.write(']');
             }
-            appendTaskDetailsProperty("Result Attributes", temp, sb);
+            writer.write(']');
         }
-
-        // subtasks
-        if (!task.getSubtasks().isEmpty()) {
-            final StringBuilder temp = new StringBuilder();
-            boolean first = true;
-            for (ServerMigrationTaskExecution subtask : task.getSubtasks()) {
-                if (first) {
-                    first = false;
-                } else {
-                    temp.append("<br/>");
+        final List<ServerMigrationTaskExecution> subtasks = task.getSubtasks();
+        if (!subtasks.isEmpty()) {
+            final StringBuilder subtree = new StringBuilder();
+            for (ServerMigrationTaskResult.Status status : ServerMigrationTaskResult.Status.values()) {
+                if (subtree.length() > 0) {
+                    subtree.append(", ");
                 }
-                temp.append("<a onclick=\"showSubtasks('task").append(task.getTaskNumber()).append("'); showTaskDetails('task").append(subtask.getTaskNumber()).append("')\" href=\"#task").append(subtask.getTaskNumber()).append("\">").append(subtask.getTaskName()).append("</a>");
+                subtree.append(status).append(" = ").append(task.getSubtreeTaskCount(status));
             }
-            appendTaskDetailsProperty("Subtasks", temp, sb);
+            writeJsonProperty("subtree", subtree, writer);
+        }
+        writer.write('}');
+        for (ServerMigrationTaskExecution subtask : subtasks) {
+            writeTask(subtask, task, chunkSize, writer);
         }
+    }
 
-        sb.append("</table></td></tr>");
+    private void writeJsonProperty(String name, Object value, Writer writer) throws IOException {
+        writer.write(",\"");
+        writer.write(name);
+        writer.write("\":");
+        writeJsonString(value == null ? null : value.toString(), writer);
     }
 
-    private void appendTaskSubtasks(ServerMigrationTaskExecution task, StringBuilder sb, int maxTaskPathSizeToDisplaySubtasks) {
-        final List<ServerMigrationTaskExecution> subtasks = task.getSubtasks();
-        if (!subtasks.isEmpty()) {
-            sb.append("<tr>");
-            if (task.getTaskPath().size() > maxTaskPathSizeToDisplaySubtasks) {
-                sb.append("<td class=\"task-map-subtasks\" style=\"display: none\" id=\"task").append(task.getTaskNumber()).append("-subtasks\">");
-            } else {
-                sb.append("<td class=\"task-map-subtasks\" id=\"task").append(task.getTaskNumber()).append("-subtasks\">");
-            }
-            sb.append("<table class=\"task-subtasks\">");
-            for (ServerMigrationTaskExecution subtask : subtasks) {
-                sb.append("<tr>");
-                sb.append("<td>");
-                appendTask(subtask, sb, maxTaskPathSizeToDisplaySubtasks);
-                sb.append("</td>");
-                sb.append("</tr>");
+    private void writeJsonString(String s, Writer writer) throws IOException {
+        if (s == null) {
+            writer.write("null");
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                case '<':
+                case '>':
+                case '&':
+                case '\u2028':
+                case '\u2029':
+                    // escaped so that the literal never terminates the enclosing script element
+                    writeJsonUnicodeEscape(c, writer);
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writeJsonUnicodeEscape(c, writer);
+                    } else {
+                        writer.write(c);
+                    }
             }
-            sb.append("</table>");
-            sb.append("</td>");
-            sb.append("</tr>");
         }
+        writer.write('"');
+    }
+
+    private void writeJsonUnicodeEscape(char c, Writer writer) throws IOException {
+        final String hex = Integer.toHexString(c);
+        writer.write("\\u");
+        for (int i = hex.length(); i < 4; i++) {
+            writer.write('0');
+        }
+        writer.write(hex);
+    }
+
+    private String formatTime(long nanos) {
+        return nanos < 0 ? "n/a" : String.format("%.3f ms", nanos / 1000000.0);
     }
 
-    private void appendTaskDetailsProperty(String propertyName, Object propertyValue, StringBuilder sb) {
-        sb.append("<tr><td class=\"task-details-property-name\">")
-                .append(propertyName)
-                .append(":</td><td class=\"task-details-property-value\">")
-                .append(propertyValue)
-                .append("</td></tr>");
+    private String formatBytes(long bytes) {
+        return bytes < 0 ? "n/a" : String.format("%.1f KB", bytes / 1024.0);
     }
 
-    private void appendProperty(String propertyName, Object propertyValue, StringBuilder sb) {
-        sb.append("<tr><td class=\"property-name\">")
-                .append(propertyName)
-                .append(":</td><td class=\"property-value\">")
-                .append(propertyValue)
-                .append("</td></tr>");
+    private void writeProperty(String propertyName, Object propertyValue, Writer writer) throws IOException {
+        writer.write("<tr><td class=\"property-name\">");
+        writer.write(propertyName);
+        writer.write(":</td><td class=\"property-value\">");
+        writer.write(String.valueOf(propertyValue));
+        writer.write("</td></tr>");
     }
 
     private String getTaskStatus(ServerMigrationTaskResult result, Object text) {
@@ -240,6 +318,10 @@ public class HtmlReportWriter {
         private final String environmentToTaskSummary;
         private final String taskSummaryToTaskMap;
         private final String footer;
+        /**
+         * if the template defines the task map rendering script, otherwise the default script is included in reports
+         */
+        private final boolean definesTaskMapScript;
 
         private ReportTemplate(String header, String summaryToEnvironment, String environmentToTaskSummary, String taskSummaryToTaskMap, String footer) {
             this.header = header;
@@ -247,6 +329,7 @@ public class HtmlReportWriter {
             this.environmentToTaskSummary = environmentToTaskSummary;
             this.taskSummaryToTaskMap = taskSummaryToTaskMap;
             this.footer = footer;
+            this.definesTaskMapScript = header.contains("function renderTaskMap") || summaryToEnvironment.contains("function renderTaskMap") || environmentToTaskSummary.contains("function renderTaskMap") || taskSummaryToTaskMap.contains("function renderTaskMap");
         }
 
         public static ReportTemplate from(Path path) throws IOException {
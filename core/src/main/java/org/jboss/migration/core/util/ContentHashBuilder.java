@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A builder of SHA-256 content hashes, of strings and files.
+ * @author emmartins
+ */
+public class ContentHashBuilder {
+
+    private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest messageDigest;
+
+    public ContentHashBuilder() {
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Adds a string to the content hash.
+     * @param s the string to add, may be null
+     * @return the builder
+     */
+    public ContentHashBuilder add(String s) {
+        if (s == null) {
+            messageDigest.update((byte) 0);
+        } else {
+            messageDigest.update((byte) 1);
+            messageDigest.update(s.getBytes(StandardCharsets.UTF_8));
+            messageDigest.update((byte) 0);
+        }
+        return this;
+    }
+
+    /**
+     * Adds a file's content to the content hash.
+     * @param path the file's path, the file may not exist
+     * @return the builder
+     * @throws IOException if the file read failed
+     */
+    public ContentHashBuilder add(Path path) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            messageDigest.update((byte) 0);
+        } else {
+            messageDigest.update((byte) 1);
+            final byte[] buffer = new byte[8192];
+            try (InputStream in = Files.newInputStream(path)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    messageDigest.update(buffer, 0, read);
+                }
+            }
+            messageDigest.update((byte) 0);
+        }
+        return this;
+    }
+
+    /**
+     * Builds the content hash.
+     * @return the content hash, as an hexadecimal string
+     */
+    public String build() {
+        final byte[] digest = messageDigest.digest();
+        final char[] chars = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            chars[i * 2] = HEX_CHARS[(digest[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX_CHARS[digest[i] & 0xf];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A trie of string prefixes, which retrieves the value associated with the longest prefix of a string, in time proportional to the string length, regardless of the number of prefixes.
+ * @author emmartins
+ */
+public class PrefixTrie<V> {
+
+    private final Node<V> root = new Node<>();
+
+    /**
+     * Associates a value with a prefix.
+     * @param prefix the prefix
+     * @param value the value
+     * @return the trie
+     */
+    public PrefixTrie<V> put(String prefix, V value) {
+        Node<V> node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            final Character c = prefix.charAt(i);
+            Node<V> child = node.children.get(c);
+            if (child == null) {
+                child = new Node<>();
+                node.children.put(c, child);
+            }
+            node = child;
+        }
+        node.value = value;
+        return this;
+    }
+
+    /**
+     * Retrieves the value associated with the longest prefix of the specified string.
+     * @param s the string
+     * @return the value associated with the longest prefix of the specified string, null if none of the prefixes matches
+     */
+    public V getLongestPrefixValue(String s) {
+        V value = root.value;
+        Node<V> node = root;
+        for (int i = 0; i < s.length(); i++) {
+            node = node.children.get(s.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.value != null) {
+                value = node.value;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Indicates if any of the prefixes matches the specified string.
+     * @param s the string
+     * @return true if any of the prefixes matches the specified string, false otherwise
+     */
+    public boolean matches(String s) {
+        return getLongestPrefixValue(s) != null;
+    }
+
+    private static class Node<V> {
+        private final Map<Character, Node<V>> children = new HashMap<>();
+        private V value;
+    }
+}
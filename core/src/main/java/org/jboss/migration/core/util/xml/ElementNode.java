@@ -18,23 +18,28 @@ package org.jboss.migration.core.util.xml;
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
 
 /**
- *
+ * An element node, with a compact representation: names and namespaces are interned, attributes are stored in parallel arrays, and attributes and children arrays are only allocated when needed.
  * @author <a href="kabir.khan@jboss.com">Kabir Khan</a>
  */
 public class ElementNode extends Node {
 
+    private static final String[] NO_ATTRIBUTE_NAMES = {};
+    private static final AttributeValue[] NO_ATTRIBUTE_VALUES = {};
+    private static final Node[] NO_CHILDREN = {};
+
     private final ElementNode parent;
     private final String name;
     private final String namespace;
-    private final Map<String, AttributeValue> attributes = new LinkedHashMap<String, AttributeValue>();
-    private List<Node> children = new ArrayList<Node>();
+    private String[] attributeNames = NO_ATTRIBUTE_NAMES;
+    private AttributeValue[] attributeValues = NO_ATTRIBUTE_VALUES;
+    private int attributeCount;
+    private Node[] children = NO_CHILDREN;
+    private int childCount;
 
     public ElementNode(final ElementNode parent, final String name) {
         this(parent, name, parent.getNamespace());
@@ -42,8 +47,8 @@ public class ElementNode extends Node {
 
     public ElementNode(final ElementNode parent, final String name, final String namespace) {
         this.parent = parent;
-        this.name = name;
-        this.namespace = namespace == null ? namespace : namespace.isEmpty() ? null : namespace;
+        this.name = name.intern();
+        this.namespace = namespace == null || namespace.isEmpty() ? null : namespace.intern();
     }
 
     public String getNamespace() {
@@ -55,15 +60,39 @@ public class ElementNode extends Node {
     }
 
     public void addAttribute(String name, AttributeValue value) {
-        attributes.put(name, value);
+        final int index = indexOfAttribute(name);
+        if (index >= 0) {
+            attributeValues[index] = value;
+            return;
+        }
+        if (attributeCount == attributeNames.length) {
+            final int length = attributeCount == 0 ? 4 : attributeCount * 2;
+            attributeNames = Arrays.copyOf(attributeNames, length);
+            attributeValues = Arrays.copyOf(attributeValues, length);
+        }
+        attributeNames[attributeCount] = name.intern();
+        attributeValues[attributeCount] = value;
+        attributeCount++;
+    }
+
+    private int indexOfAttribute(String name) {
+        for (int i = 0; i < attributeCount; i++) {
+            if (attributeNames[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     public void addChild(Node child) {
-        children.add(child);
+        if (childCount == children.length) {
+            children = Arrays.copyOf(children, childCount == 0 ? 4 : childCount * 2);
+        }
+        children[childCount++] = child;
     }
 
     public Iterator<Node> getChildren() {
-        return children.iterator();
+        return iterateChildren();
     }
 
     public ElementNode getParent() {
@@ -71,15 +100,18 @@ public class ElementNode extends Node {
     }
 
     public Iterator<Node> iterateChildren(){
-        return children.iterator();
+        if (childCount == 0) {
+            return Collections.<Node>emptyIterator();
+        }
+        return Collections.unmodifiableList(Arrays.asList(children).subList(0, childCount)).iterator();
     }
 
     public String getAttributeValue(String name) {
-        AttributeValue av = attributes.get(name);
-        if (av == null) {
+        final int index = indexOfAttribute(name);
+        if (index < 0) {
             return null;
         }
-        return av.getValue();
+        return attributeValues[index].getValue();
     }
 
     public String getAttributeValue(String name, String defaultValue) {
@@ -90,6 +122,19 @@ public class ElementNode extends Node {
         return s;
     }
 
+    /**
+     * Releases the unused capacity of the attributes and children arrays, expected to be invoked once the element is completely built.
+     */
+    void trimToSize() {
+        if (attributeCount < attributeNames.length) {
+            attributeNames = Arrays.copyOf(attributeNames, attributeCount);
+            attributeValues = Arrays.copyOf(attributeValues, attributeCount);
+        }
+        if (childCount < children.length) {
+            children = Arrays.copyOf(children, childCount);
+        }
+    }
+
     @Override
     public void marshall(XMLStreamWriter writer) throws XMLStreamException {
 //        boolean empty = false;//children.isEmpty()
@@ -116,12 +161,12 @@ public class ElementNode extends Node {
             }
         }
 
-        for (Map.Entry<String, AttributeValue> attr : attributes.entrySet()) {
-            writer.writeAttribute(attr.getKey(), attr.getValue().getValue());
+        for (int i = 0; i < attributeCount; i++) {
+            writer.writeAttribute(attributeNames[i], attributeValues[i].getValue());
         }
 
-        for (Node child : children) {
-            child.marshall(writer);
+        for (int i = 0; i < childCount; i++) {
+            children[i].marshall(writer);
         }
 
         if (!empty) {
@@ -135,11 +180,8 @@ public class ElementNode extends Node {
     }
 
     private boolean isEmpty() {
-        if (children.isEmpty()) {
-            return true;
-        }
-        for (Node child : children) {
-            if (child.hasContent()) {
+        for (int i = 0; i < childCount; i++) {
+            if (children[i].hasContent()) {
                 return false;
             }
         }
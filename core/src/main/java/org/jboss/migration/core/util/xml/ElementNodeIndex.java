@@ -0,0 +1,323 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core.util.xml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index of an {@link ElementNode} tree, which answers path queries without walking the whole tree. Elements are indexed by name when the first query is done, and by attribute value when the first query with such attribute predicate is done.
+ * <p>
+ * The supported path expressions are a subset of XPath, made of steps separated by '/' (child) or '//' (descendant), where each step is an element local name, or '*', optionally followed by attribute predicates, such as <code>[@name]</code> or <code>[@name='value']</code>. Expressions starting with '/' are absolute, the others are relative to the root element. Examples:
+ * <ul>
+ *     <li><code>/server/profile/subsystem</code></li>
+ *     <li><code>//datasource[@jndi-name='java:jboss/datasources/ExampleDS']</code></li>
+ *     <li><code>profile//*[@enabled='true']</code></li>
+ * </ul>
+ * Attribute values in predicates may contain any character but their quote, including '/' and ']'.
+ * <p>
+ * The index is a snapshot of the tree, thus changes made to the tree after the index was built are not visible to queries. Code which queries a parsed tree many times, e.g. a task migrating a config parsed with {@link NodeParser}, should create one index per parsed tree, and a new one after changing the tree.
+ * @author emmartins
+ */
+public class ElementNodeIndex {
+
+    private static final String ANY_NAME = "*";
+
+    private final ElementNode root;
+    private List<ElementNode> elements;
+    private Map<String, List<ElementNode>> elementsByName;
+    private final Map<String, Map<String, Map<String, List<ElementNode>>>> elementsByAttributeValue = new HashMap<>();
+    private final Map<String, List<Step>> expressions = new HashMap<>();
+
+    /**
+     *
+     * @param root the root element of the tree to index
+     */
+    public ElementNodeIndex(ElementNode root) {
+        this.root = root;
+    }
+
+    /**
+     * Retrieves the root element of the indexed tree.
+     * @return the root element of the indexed tree
+     */
+    public ElementNode getRoot() {
+        return root;
+    }
+
+    /**
+     * Retrieves all elements matching the specified path expression.
+     * @param expression the path expression
+     * @return the elements matching the path expression, in document order
+     * @throws IllegalArgumentException if the expression is not a valid path expression
+     */
+    public synchronized List<ElementNode> select(String expression) throws IllegalArgumentException {
+        List<Step> steps = expressions.get(expression);
+        if (steps == null) {
+            steps = parse(expression);
+            expressions.put(expression, steps);
+        }
+        // null context is the document, which has the root element as its only child
+        Set<ElementNode> context = null;
+        if (!expression.startsWith("/")) {
+            context = newElementSet();
+            context.add(root);
+        }
+        List<ElementNode> result = Collections.emptyList();
+        for (Step step : steps) {
+            result = new ArrayList<>();
+            for (ElementNode candidate : getCandidates(step)) {
+                if (step.matches(candidate) && (step.descendant ? hasAncestor(candidate, context) : hasParent(candidate, context))) {
+                    result.add(candidate);
+                }
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+            context = newElementSet();
+            context.addAll(result);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Retrieves the first element matching the specified path expression.
+     * @param expression the path expression
+     * @return the first element matching the path expression, in document order, null if there is no match
+     * @throws IllegalArgumentException if the expression is not a valid path expression
+     */
+    public ElementNode selectFirst(String expression) throws IllegalArgumentException {
+        final List<ElementNode> result = select(expression);
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    private List<ElementNode> getCandidates(Step step) {
+        buildIndex();
+        if (ANY_NAME.equals(step.name)) {
+            return elements;
+        }
+        for (Predicate predicate : step.predicates) {
+            if (predicate.value != null) {
+                return getElementsByAttributeValue(step.name, predicate.name, predicate.value);
+            }
+        }
+        final List<ElementNode> result = elementsByName.get(step.name);
+        return result != null ? result : Collections.<ElementNode>emptyList();
+    }
+
+    private void buildIndex() {
+        if (elements != null) {
+            return;
+        }
+        elements = new ArrayList<>();
+        elementsByName = new HashMap<>();
+        index(root);
+    }
+
+    private void index(ElementNode element) {
+        elements.add(element);
+        List<ElementNode> elementsWithName = elementsByName.get(element.getName());
+        if (elementsWithName == null) {
+            elementsWithName = new ArrayList<>();
+            elementsByName.put(element.getName(), elementsWithName);
+        }
+        elementsWithName.add(element);
+        for (Iterator<Node> children = element.iterateChildren(); children.hasNext(); ) {
+            final Node child = children.next();
+            if (child instanceof ElementNode) {
+                index((ElementNode) child);
+            }
+        }
+    }
+
+    private List<ElementNode> getElementsByAttributeValue(String elementName, String attributeName, String attributeValue) {
+        Map<String, Map<String, List<ElementNode>>> attributes = elementsByAttributeValue.get(elementName);
+        if (attributes == null) {
+            attributes = new HashMap<>();
+            elementsByAttributeValue.put(elementName, attributes);
+        }
+        Map<String, List<ElementNode>> values = attributes.get(attributeName);
+        if (values == null) {
+            values = new HashMap<>();
+            final List<ElementNode> elementsWithName = elementsByName.get(elementName);
+            if (elementsWithName != null) {
+                for (ElementNode element : elementsWithName) {
+                    final String value = element.getAttributeValue(attributeName);
+                    if (value != null) {
+                        List<ElementNode> elementsWithValue = values.get(value);
+                        if (elementsWithValue == null) {
+                            elementsWithValue = new ArrayList<>();
+                            values.put(value, elementsWithValue);
+                        }
+                        elementsWithValue.add(element);
+                    }
+                }
+            }
+            attributes.put(attributeName, values);
+        }
+        final List<ElementNode> result = values.get(attributeValue);
+        return result != null ? result : Collections.<ElementNode>emptyList();
+    }
+
+    private static boolean hasParent(ElementNode element, Set<ElementNode> context) {
+        return context == null ? element.getParent() == null : context.contains(element.getParent());
+    }
+
+    private static boolean hasAncestor(ElementNode element, Set<ElementNode> context) {
+        if (context == null) {
+            return true;
+        }
+        for (ElementNode ancestor = element.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+            if (context.contains(ancestor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Set<ElementNode> newElementSet() {
+        return Collections.newSetFromMap(new IdentityHashMap<ElementNode, Boolean>());
+    }
+
+    private static List<Step> parse(String expression) throws IllegalArgumentException {
+        final List<Step> steps = new ArrayList<>();
+        final int length = expression.length();
+        int i = 0;
+        boolean descendant = false;
+        if (expression.startsWith("//")) {
+            descendant = true;
+            i = 2;
+        } else if (expression.startsWith("/")) {
+            i = 1;
+        }
+        while (true) {
+            // name
+            final int nameStart = i;
+            while (i < length && expression.charAt(i) != '/' && expression.charAt(i) != '[') {
+                i++;
+            }
+            final String name = expression.substring(nameStart, i).trim();
+            if (name.isEmpty()) {
+                throw invalidExpression(expression);
+            }
+            final Step step = new Step(descendant, name);
+            // predicates
+            while (i < length && expression.charAt(i) == '[') {
+                final int predicateEnd = indexOfPredicateEnd(expression, i + 1);
+                if (predicateEnd < 0) {
+                    throw invalidExpression(expression);
+                }
+                step.predicates.add(parsePredicate(expression, expression.substring(i + 1, predicateEnd).trim()));
+                i = predicateEnd + 1;
+            }
+            steps.add(step);
+            if (i == length) {
+                return steps;
+            }
+            // separator
+            if (expression.charAt(i) != '/') {
+                throw invalidExpression(expression);
+            }
+            if (i + 1 < length && expression.charAt(i + 1) == '/') {
+                descendant = true;
+                i += 2;
+            } else {
+                descendant = false;
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the index of the ']' ending a predicate, skipping quoted attribute values.
+     * @param expression the path expression
+     * @param start the index of the predicate's first char, after its '['
+     * @return the index of the ']' ending the predicate, or -1 if the predicate does not end
+     */
+    private static int indexOfPredicateEnd(String expression, int start) {
+        char quote = 0;
+        for (int i = start; i < expression.length(); i++) {
+            final char c = expression.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == ']') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Predicate parsePredicate(String expression, String predicate) throws IllegalArgumentException {
+        if (!predicate.startsWith("@")) {
+            throw invalidExpression(expression);
+        }
+        final int equals = predicate.indexOf('=');
+        if (equals < 0) {
+            return new Predicate(predicate.substring(1).trim(), null);
+        }
+        final String name = predicate.substring(1, equals).trim();
+        final String value = predicate.substring(equals + 1).trim();
+        if (name.isEmpty() || value.length() < 2 || (value.charAt(0) != '\'' && value.charAt(0) != '"') || value.charAt(value.length() - 1) != value.charAt(0)) {
+            throw invalidExpression(expression);
+        }
+        return new Predicate(name, value.substring(1, value.length() - 1));
+    }
+
+    private static IllegalArgumentException invalidExpression(String expression) {
+        return new IllegalArgumentException("Invalid path expression "+expression);
+    }
+
+    private static class Step {
+        private final boolean descendant;
+        private final String name;
+        private final List<Predicate> predicates = new ArrayList<>();
+        private Step(boolean descendant, String name) {
+            this.descendant = descendant;
+            this.name = name;
+        }
+        private boolean matches(ElementNode element) {
+            if (!ANY_NAME.equals(name) && !name.equals(element.getName())) {
+                return false;
+            }
+            for (Predicate predicate : predicates) {
+                final String value = element.getAttributeValue(predicate.name);
+                if (value == null || (predicate.value != null && !predicate.value.equals(value))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class Predicate {
+        private final String name;
+        private final String value;
+        private Predicate(String name, String value) {
+            this.name = name;
+            this.value = value;
+        }
+    }
+}
@@ -24,12 +24,12 @@ import javax.xml.namespace.NamespaceContext;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
-import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.NoSuchElementException;
 
 /**
  * An XML stream writer which nicely formats the XML for configuration files.
+ * Indentation and text splitting use reusable buffers, thus writing does not allocate, once the buffers grow to the document's max depth and text size.
  * This gets rid of the attribute queue used in the org.jboss.staxmapper version which breaks the behaviour.
  *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
@@ -37,54 +37,86 @@ import java.util.NoSuchElementException;
  */
 public final class FormattingXMLStreamWriter implements XMLStreamWriter, XMLStreamConstants {
     private static final String NO_NAMESPACE = new String();
+    private static final int INDENT_SIZE = 4;
     private final XMLStreamWriter delegate;
     private int level;
     private int state = START_DOCUMENT;
     private boolean indentEndElement = false;
-    private ArrayDeque<String> unspecifiedNamespaces = new ArrayDeque<String>();
+    /**
+     * the unspecified namespace of each element level, where index 0 is the document
+     */
+    private String[] unspecifiedNamespaces = new String[16];
+    /**
+     * a new line followed by the indentation spaces of the deepest level written so far, reused by every new line and indentation written
+     */
+    private char[] indentBuffer = new char[0];
+    /**
+     * reusable buffer for the chars of the text written
+     */
+    private char[] textBuffer = new char[256];
+    /**
+     * reusable builder for multi-line comments
+     */
+    private final StringBuilder commentBuilder = new StringBuilder();
 
 
     public FormattingXMLStreamWriter(final XMLStreamWriter delegate) {
         this.delegate = delegate;
-        unspecifiedNamespaces.push(NO_NAMESPACE);
+        unspecifiedNamespaces[0] = NO_NAMESPACE;
+    }
+
+    private char[] getIndentBuffer() {
+        final int length = 1 + level * INDENT_SIZE;
+        if (indentBuffer.length < length) {
+            final char[] buffer = new char[Math.max(length, 1 + 8 * INDENT_SIZE)];
+            buffer[0] = '\n';
+            Arrays.fill(buffer, 1, buffer.length, ' ');
+            indentBuffer = buffer;
+        }
+        return indentBuffer;
     }
 
     private void nl() throws XMLStreamException {
-        delegate.writeCharacters("\n");
+        delegate.writeCharacters(getIndentBuffer(), 0, 1);
     }
 
-    private void indent() throws XMLStreamException {
-        int level = this.level;
-        final XMLStreamWriter delegate = this.delegate;
-        for (int i = 0; i < level; i ++) {
-            delegate.writeCharacters("    ");
-        }
+    private void nlAndIndent() throws XMLStreamException {
+        delegate.writeCharacters(getIndentBuffer(), 0, 1 + level * INDENT_SIZE);
     }
 
     public interface ArgRunnable {
         void run(int arg) throws XMLStreamException;
     }
 
+    private String getUnspecifiedNamespace() {
+        return unspecifiedNamespaces[level];
+    }
+
+    private void pushUnspecifiedNamespace(String namespace) {
+        final int index = level + 1;
+        if (index == unspecifiedNamespaces.length) {
+            unspecifiedNamespaces = Arrays.copyOf(unspecifiedNamespaces, index * 2);
+        }
+        unspecifiedNamespaces[index] = namespace;
+    }
+
     private String nestUnspecifiedNamespace() {
-        ArrayDeque<String> namespaces = unspecifiedNamespaces;
-        String clone = namespaces.getFirst();
-        namespaces.push(clone);
+        String clone = getUnspecifiedNamespace();
+        pushUnspecifiedNamespace(clone);
         return clone;
     }
 
     public void writeStartElement(final String localName) throws XMLStreamException {
-        ArrayDeque<String> namespaces = unspecifiedNamespaces;
-        String namespace = namespaces.getFirst();
+        String namespace = getUnspecifiedNamespace();
         if (namespace != NO_NAMESPACE) {
             writeStartElement(namespace, localName);
             return;
         }
 
-        unspecifiedNamespaces.push(namespace);
+        pushUnspecifiedNamespace(namespace);
 
         // If this is a nested element flush the outer
-        nl();
-        indent();
+        nlAndIndent();
         delegate.writeStartElement(localName);
 
         level++;
@@ -96,8 +128,7 @@ public final class FormattingXMLStreamWriter implements XMLStreamWriter, XMLStre
         nestUnspecifiedNamespace();
 
         // If this is a nested element flush the outer
-        nl();
-        indent();
+        nlAndIndent();
         delegate.writeStartElement(namespaceURI, localName);
         level++;
         state = START_ELEMENT;
@@ -108,8 +139,7 @@ public final class FormattingXMLStreamWriter implements XMLStreamWriter, XMLStre
         nestUnspecifiedNamespace();
 
         // If this is a nested element flush the outer
-        nl();
-        indent();
+        nlAndIndent();
         delegate.writeStartElement(prefix, namespaceURI, localName);
         level++;
         state = START_ELEMENT;
@@ -117,28 +147,25 @@ public final class FormattingXMLStreamWriter implements XMLStreamWriter, XMLStre
     }
 
     public void writeEmptyElement(final String namespaceURI, final String localName) throws XMLStreamException {
-        nl();
-        indent();
+        nlAndIndent();
         delegate.writeEmptyElement(namespaceURI, localName);
         state = END_ELEMENT;
     }
 
     public void writeEmptyElement(final String prefix, final String localName, final String namespaceURI) throws XMLStreamException {
-        nl();
-        indent();
+        nlAndIndent();
         delegate.writeEmptyElement(prefix, namespaceURI, localName);
         state = END_ELEMENT;
     }
 
     public void writeEmptyElement(final String localName) throws XMLStreamException {
-        String namespace = unspecifiedNamespaces.getFirst();
+        String namespace = getUnspecifiedNamespace();
         if (namespace != NO_NAMESPACE) {
             writeEmptyElement(namespace, localName);
             return;
         }
 
-        nl();
-        indent();
+        nlAndIndent();
         delegate.writeEmptyElement(localName);
         state = END_ELEMENT;
     }
@@ -147,8 +174,7 @@ public final class FormattingXMLStreamWriter implements XMLStreamWriter, XMLStre
         level--;
         if (state != START_ELEMENT) {
             if (state != CHARACTERS || indentEndElement) {
-                nl();
-                indent();
+                nlAndIndent();
                 indentEndElement = false;
             }
             delegate.writeEndElement();
@@ -161,7 +187,7 @@ public final class FormattingXMLStreamWriter implements XMLStreamWriter, XMLStre
             throw new IllegalStateException("Should not happen?");
         }
 
-        unspecifiedNamespaces.pop();
+        unspecifiedNamespaces[level + 1] = null;
         state = END_ELEMENT;
     }
 
@@ -224,54 +250,47 @@ public final class FormattingXMLStreamWriter implements XMLStreamWriter, XMLStre
     }
 
     public void writeComment(final String data) throws XMLStreamException {
-        nl();
-        indent();
-        final StringBuilder b = new StringBuilder(data.length());
-        final Iterator<String> i = Spliterator.over(data, '\n');
-        if (! i.hasNext()) {
+        nlAndIndent();
+        int lineEnd = data.indexOf('\n');
+        if (lineEnd == -1) {
+            delegate.writeComment(data);
+            state = COMMENT;
             return;
-        } else {
-            final String first = i.next();
-            if (! i.hasNext()) {
-                delegate.writeComment(first);
-                state = COMMENT;
-                return;
-            } else {
-                b.append('\n');
-                for (int q = 0; q < level; q++) {
-                    b.append("    ");
-                }
-                b.append("  ~ ");
-                b.append(first);
-                do {
-                    b.append('\n');
-                    for (int q = 0; q < level; q++) {
-                        b.append("    ");
-                    }
-                    b.append("  ~ ");
-                    b.append(i.next());
-                } while (i.hasNext());
-            }
+        }
+        final StringBuilder b = commentBuilder;
+        b.setLength(0);
+        int lineStart = 0;
+        while (true) {
             b.append('\n');
-            for (int q = 0; q < level; q ++) {
-                b.append("    ");
+            appendIndent(b);
+            b.append("  ~ ");
+            if (lineEnd == -1) {
+                b.append(data, lineStart, data.length());
+                break;
             }
-            b.append("  ");
-            delegate.writeComment(b.toString());
-            state = COMMENT;
+            b.append(data, lineStart, lineEnd);
+            lineStart = lineEnd + 1;
+            lineEnd = data.indexOf('\n', lineStart);
         }
+        b.append('\n');
+        appendIndent(b);
+        b.append("  ");
+        delegate.writeComment(b.toString());
+        state = COMMENT;
+    }
+
+    private void appendIndent(StringBuilder b) {
+        b.append(getIndentBuffer(), 1, level * INDENT_SIZE);
     }
 
     public void writeProcessingInstruction(final String target) throws XMLStreamException {
-        nl();
-        indent();
+        nlAndIndent();
         delegate.writeProcessingInstruction(target);
         state = PROCESSING_INSTRUCTION;
     }
 
     public void writeProcessingInstruction(final String target, final String data) throws XMLStreamException {
-        nl();
-        indent();
+        nlAndIndent();
         delegate.writeProcessingInstruction(target, data);
         state = PROCESSING_INSTRUCTION;
     }
@@ -282,8 +301,7 @@ public final class FormattingXMLStreamWriter implements XMLStreamWriter, XMLStre
     }
 
     public void writeDTD(final String dtd) throws XMLStreamException {
-        nl();
-        indent();
+        nlAndIndent();
         delegate.writeDTD(dtd);
         state = DTD;
     }
@@ -312,31 +330,52 @@ public final class FormattingXMLStreamWriter implements XMLStreamWriter, XMLStre
     }
 
     public void writeCharacters(final String text) throws XMLStreamException {
+        final int length = text.length();
+        if (textBuffer.length < length) {
+            textBuffer = new char[Math.max(length, textBuffer.length * 2)];
+        }
+        final char[] chars = textBuffer;
+        text.getChars(0, length, chars, 0);
         if (state != CHARACTERS) {
-            String trimmed = text.trim();
-            if (trimmed.contains("\n")) {
-                nl();
-                indent();
+            // trim, as String.trim() does, but without creating a new string
+            int start = 0;
+            int end = length;
+            while (start < end && chars[start] <= ' ') {
+                start++;
+            }
+            while (start < end && chars[end - 1] <= ' ') {
+                end--;
+            }
+            if (indexOf(chars, '\n', start, end) != -1) {
+                nlAndIndent();
             } else {
-                delegate.writeCharacters(trimmed);
+                delegate.writeCharacters(chars, start, end - start);
                 indentEndElement = false;
                 state = CHARACTERS;
                 return;
             }
         }
-        final Iterator<String> iterator = Spliterator.over(text, '\n');
-        while (iterator.hasNext()) {
-            final String t = iterator.next();
-            delegate.writeCharacters(t);
-            if (iterator.hasNext()) {
-                nl();
-                indent();
-            }
+        int lineStart = 0;
+        int lineEnd;
+        while ((lineEnd = indexOf(chars, '\n', lineStart, length)) != -1) {
+            delegate.writeCharacters(chars, lineStart, lineEnd - lineStart);
+            nlAndIndent();
+            lineStart = lineEnd + 1;
         }
+        delegate.writeCharacters(chars, lineStart, length - lineStart);
         state = CHARACTERS;
         indentEndElement = true;
     }
 
+    private static int indexOf(char[] chars, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (chars[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     public void writeCharacters(final char[] text, final int start, final int len) throws XMLStreamException {
         delegate.writeCharacters(text, start, len);
         state = CHARACTERS;
@@ -393,41 +432,4 @@ public final class FormattingXMLStreamWriter implements XMLStreamWriter, XMLStre
         return b.toString();
     }
 
-    static final class Spliterator implements Iterator<String> {
-        private final String subject;
-        private final char delimiter;
-        private int i;
-
-        Spliterator(final String subject, final char delimiter) {
-            this.subject = subject;
-            this.delimiter = delimiter;
-            i = 0;
-        }
-
-        static Spliterator over(String subject, char delimiter) {
-            return new Spliterator(subject, delimiter);
-        }
-
-        public boolean hasNext() {
-            return i != -1;
-        }
-
-        public String next() {
-            final int i = this.i;
-            if (i == -1) {
-                throw new NoSuchElementException();
-            }
-            int n = subject.indexOf(delimiter, i);
-            try {
-                return n == -1 ? subject.substring(i) : subject.substring(i, n);
-            } finally {
-                this.i = n == -1 ? -1 : n + 1;
-            }
-        }
-
-        public void remove() {
-            throw new UnsupportedOperationException();
-        }
-    }
-
 }
@@ -49,10 +49,17 @@ public class NodeParser {
 
         ElementNode rootNode = createNodeWithAttributesAndNs(reader, null);
         ElementNode currentNode = rootNode;
+        // adjacent text events are coalesced into a single text node
+        StringBuilder text = null;
         while (reader.hasNext()) {
             int type = reader.next();
+            if (text != null && type != CHARACTERS) {
+                currentNode.addChild(new TextNode(text.toString()));
+                text = null;
+            }
             switch (type) {
             case END_ELEMENT:
+                currentNode.trimToSize();
                 currentNode = currentNode.getParent();
                 String name = reader.getLocalName();
                 //TODO this looks wrong
@@ -74,7 +81,10 @@ public class NodeParser {
                 break;
             case CHARACTERS:
                 if (!reader.isWhiteSpace()) {
-                    currentNode.addChild(new TextNode(reader.getText()));
+                    if (text == null) {
+                        text = new StringBuilder(reader.getTextLength());
+                    }
+                    text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
                 }
                 break;
             case PROCESSING_INSTRUCTION:
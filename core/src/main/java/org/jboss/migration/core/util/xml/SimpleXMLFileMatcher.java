@@ -16,44 +16,26 @@
 
 package org.jboss.migration.core.util.xml;
 
-import javax.xml.stream.XMLInputFactory;
-import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.XMLStreamReader;
+import javax.xml.namespace.QName;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
 
-import static javax.xml.stream.XMLStreamConstants.START_DOCUMENT;
-import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
-
 /**
- * A simple extendable implementation of a {@link XMLFileMatcher}, which by default will match any file with a name ending with ".xml".
+ * A simple extendable implementation of a {@link XMLFileMatcher}, which by default will match any file with a name ending with ".xml". The document element is retrieved with {@link XMLFileDocumentElements}, thus only the file header is parsed, and only if the file changed since last parsed.
+ *
+ * The matcher is thread safe, as required by {@link XMLFileMatcher}, if the overridden methods are.
  * @author emmartins
  */
 public abstract class SimpleXMLFileMatcher implements XMLFileMatcher {
 
     @Override
     public boolean matches(Path path) throws IOException {
-        boolean match = false;
         final String fileName = path.getFileName().toString();
-        if (fileNameMatches(fileName)) {
-            try (final InputStream inputStream = Files.newInputStream(path)) {
-                XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(inputStream);
-                reader.require(START_DOCUMENT, null, null);
-                while (reader.hasNext()) {
-                    if (reader.next() == START_ELEMENT) {
-                        if (documentElementLocalNameMatches(reader.getLocalName()) && documentNamespaceURIMatches(reader.getNamespaceURI())) {
-                            match = true;
-                        }
-                        break;
-                    }
-                }
-            } catch (XMLStreamException e) {
-                throw new IOException("failed to parse xml file "+path, e);
-            }
+        if (!fileNameMatches(fileName)) {
+            return false;
         }
-        return match;
+        final QName documentElementName = XMLFileDocumentElements.getDocumentElementName(path);
+        return documentElementName != null && documentElementLocalNameMatches(documentElementName.getLocalPart()) && documentNamespaceURIMatches(documentElementName.getNamespaceURI());
     }
 
     /**
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core.util.xml;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+/**
+ * Retrieves the document element name of XML files, by parsing only the files header, and caches it, keyed by the file path, size and last modified time, thus a file is only parsed again if it changed.
+ * @author emmartins
+ */
+public class XMLFileDocumentElements {
+
+    /**
+     * the size of the header read, which in most XML files includes the document element
+     */
+    private static final int HEADER_SIZE = 8 * 1024;
+
+    private static final int MAX_CACHE_SIZE = 4 * 1024;
+
+    private static final Map<Path, CacheEntry> CACHE = new LinkedHashMap<Path, CacheEntry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, CacheEntry> eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
+
+    private XMLFileDocumentElements() {
+    }
+
+    /**
+     * Retrieves the name of the specified XML file's document element.
+     * @param path the XML file path
+     * @return the name of the XML file's document element, null if the file has no document element
+     * @throws IOException if the file could not be read or parsed
+     */
+    public static QName getDocumentElementName(Path path) throws IOException {
+        path = path.toAbsolutePath().normalize();
+        final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        final long size = attributes.size();
+        final long lastModifiedTime = attributes.lastModifiedTime().toMillis();
+        synchronized (CACHE) {
+            final CacheEntry entry = CACHE.get(path);
+            if (entry != null && entry.size == size && entry.lastModifiedTime == lastModifiedTime) {
+                return entry.documentElementName;
+            }
+        }
+        final QName documentElementName = readDocumentElementName(path);
+        synchronized (CACHE) {
+            CACHE.put(path, new CacheEntry(size, lastModifiedTime, documentElementName));
+        }
+        return documentElementName;
+    }
+
+    private static QName readDocumentElementName(Path path) throws IOException {
+        final byte[] header = new byte[HEADER_SIZE];
+        int headerLength = 0;
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            int read;
+            while (headerLength < header.length && (read = inputStream.read(header, headerLength, header.length - headerLength)) != -1) {
+                headerLength += read;
+            }
+        }
+        try {
+            return readDocumentElementName(new ByteArrayInputStream(header, 0, headerLength));
+        } catch (XMLStreamException e) {
+            if (headerLength < header.length) {
+                // the whole file was read
+                throw new IOException("failed to parse xml file "+path, e);
+            }
+        }
+        // the document element is not in the header, parse the whole file
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            return readDocumentElementName(inputStream);
+        } catch (XMLStreamException e) {
+            throw new IOException("failed to parse xml file "+path, e);
+        }
+    }
+
+    private static QName readDocumentElementName(InputStream inputStream) throws XMLStreamException {
+        final XMLStreamReader reader = XMLIOProvider.getInstance().createXMLStreamReader(inputStream);
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == START_ELEMENT) {
+                    return reader.getName();
+                }
+            }
+            return null;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static class CacheEntry {
+        private final long size;
+        private final long lastModifiedTime;
+        private final QName documentElementName;
+        private CacheEntry(long size, long lastModifiedTime, QName documentElementName) {
+            this.size = size;
+            this.lastModifiedTime = lastModifiedTime;
+            this.documentElementName = documentElementName;
+        }
+    }
+}
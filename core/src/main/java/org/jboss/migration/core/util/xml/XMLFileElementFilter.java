@@ -0,0 +1,37 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core.util.xml;
+
+import javax.xml.namespace.QName;
+import java.util.Set;
+
+/**
+ * A XML file content filter which declares the names of the elements it applies to, thus it is only invoked for such elements.
+ * @author emmartins
+ */
+public interface XMLFileElementFilter extends XMLFileFilter {
+
+    /**
+     * the namespace URI of an element name which matches elements with same local name in any namespace
+     */
+    String ANY_NAMESPACE = "*";
+
+    /**
+     * Retrieves the names of the elements the filter applies to. An element name with {@link #ANY_NAMESPACE} as namespace URI matches elements with such local name in any namespace.
+     * @return the names of the elements the filter applies to
+     */
+    Set<QName> getElementNames();
+}
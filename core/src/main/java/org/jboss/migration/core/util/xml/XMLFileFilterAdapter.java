@@ -0,0 +1,306 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core.util.xml;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Adapts an event based {@link XMLFileFilter} to the cursor based filtering. The start element event, and the event reader and writer, are only created when the adapted filter is invoked.
+ *
+ * As with event based filtering, the start element delivered to the adapted filter is already consumed from the event reader, which reads the events that follow it from the cursor. If the adapted filter reads events then the element is completed by the adapter: if removed the rest of the element is skipped, otherwise the start element, and the event peeked but not consumed, if any, are written, and in both cases {@link #isElementProcessed()} returns true.
+ * @author emmartins
+ */
+class XMLFileFilterAdapter implements XMLFileStreamElementFilter {
+
+    private final XMLFileFilter filter;
+    private final XMLEventFactory xmlEventFactory;
+    private final CursorEventReader cursorEventReader;
+    private XMLStreamWriter xmlStreamWriter;
+    private XMLEventWriter xmlEventWriter;
+    private boolean elementProcessed;
+
+    XMLFileFilterAdapter(XMLFileFilter filter, XMLEventFactory xmlEventFactory) {
+        this.filter = filter;
+        this.xmlEventFactory = xmlEventFactory;
+        this.cursorEventReader = new CursorEventReader();
+    }
+
+    @Override
+    public Set<QName> getElementNames() {
+        return filter instanceof XMLFileElementFilter ? ((XMLFileElementFilter) filter).getElementNames() : null;
+    }
+
+    @Override
+    public XMLFileFilter.Result filter(XMLStreamReader xmlStreamReader, XMLStreamWriter xmlStreamWriter) throws IOException {
+        elementProcessed = false;
+        try {
+            if (this.xmlStreamWriter != xmlStreamWriter) {
+                this.xmlStreamWriter = xmlStreamWriter;
+                this.xmlEventWriter = new XMLStreamEventWriter(xmlStreamWriter);
+            }
+            final StartElement startElement = getStartElement(xmlStreamReader);
+            cursorEventReader.reset(xmlStreamReader);
+            final XMLFileFilter.Result result = filter.filter(startElement, cursorEventReader, xmlEventWriter);
+            if (cursorEventReader.moved) {
+                // the cursor is no longer at the element's start, complete the element
+                if (result == XMLFileFilter.Result.REMOVE) {
+                    while (cursorEventReader.depth > 0 && cursorEventReader.hasNext()) {
+                        cursorEventReader.skipEvent();
+                    }
+                } else {
+                    xmlEventWriter.add(startElement);
+                    if (cursorEventReader.peeked != null) {
+                        xmlEventWriter.add(cursorEventReader.nextEvent());
+                    }
+                }
+                elementProcessed = true;
+            }
+            return result;
+        } catch (XMLStreamException e) {
+            throw new IOException("XML file filtering failed", e);
+        }
+    }
+
+    /**
+     * Indicates if the element was completely processed by the last filtering, because the adapted filter read events, thus the cursor is no longer at the element's start.
+     * @return true if the element was completely processed by the last filtering, false otherwise
+     */
+    boolean isElementProcessed() {
+        return elementProcessed;
+    }
+
+    private StartElement getStartElement(XMLStreamReader xmlStreamReader) {
+        final List<Attribute> attributes = new ArrayList<>(xmlStreamReader.getAttributeCount());
+        for (int i = 0; i < xmlStreamReader.getAttributeCount(); i++) {
+            attributes.add(xmlEventFactory.createAttribute(nonNull(xmlStreamReader.getAttributePrefix(i)), nonNull(xmlStreamReader.getAttributeNamespace(i)), xmlStreamReader.getAttributeLocalName(i), xmlStreamReader.getAttributeValue(i)));
+        }
+        return xmlEventFactory.createStartElement(nonNull(xmlStreamReader.getPrefix()), nonNull(xmlStreamReader.getNamespaceURI()), xmlStreamReader.getLocalName(), attributes.iterator(), getNamespaces(xmlStreamReader).iterator(), xmlStreamReader.getNamespaceContext());
+    }
+
+    private List<Namespace> getNamespaces(XMLStreamReader xmlStreamReader) {
+        final List<Namespace> namespaces = new ArrayList<>(xmlStreamReader.getNamespaceCount());
+        for (int i = 0; i < xmlStreamReader.getNamespaceCount(); i++) {
+            final String prefix = xmlStreamReader.getNamespacePrefix(i);
+            namespaces.add(prefix == null || prefix.isEmpty() ? xmlEventFactory.createNamespace(nonNull(xmlStreamReader.getNamespaceURI(i))) : xmlEventFactory.createNamespace(prefix, nonNull(xmlStreamReader.getNamespaceURI(i))));
+        }
+        return namespaces;
+    }
+
+    private XMLEvent createEvent(XMLStreamReader xmlStreamReader) throws XMLStreamException {
+        switch (xmlStreamReader.getEventType()) {
+            case XMLStreamConstants.START_ELEMENT:
+                return getStartElement(xmlStreamReader);
+            case XMLStreamConstants.END_ELEMENT:
+                return xmlEventFactory.createEndElement(nonNull(xmlStreamReader.getPrefix()), nonNull(xmlStreamReader.getNamespaceURI()), xmlStreamReader.getLocalName(), getNamespaces(xmlStreamReader).iterator());
+            case XMLStreamConstants.CHARACTERS:
+                return xmlEventFactory.createCharacters(xmlStreamReader.getText());
+            case XMLStreamConstants.SPACE:
+                return xmlEventFactory.createSpace(xmlStreamReader.getText());
+            case XMLStreamConstants.CDATA:
+                return xmlEventFactory.createCData(xmlStreamReader.getText());
+            case XMLStreamConstants.COMMENT:
+                return xmlEventFactory.createComment(xmlStreamReader.getText());
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                return xmlEventFactory.createProcessingInstruction(xmlStreamReader.getPITarget(), xmlStreamReader.getPIData());
+            case XMLStreamConstants.ENTITY_REFERENCE:
+                return xmlEventFactory.createEntityReference(xmlStreamReader.getLocalName(), null);
+            case XMLStreamConstants.DTD:
+                return xmlEventFactory.createDTD(xmlStreamReader.getText());
+            case XMLStreamConstants.END_DOCUMENT:
+                return xmlEventFactory.createEndDocument();
+            default:
+                throw new XMLStreamException("Unsupported event type " + xmlStreamReader.getEventType());
+        }
+    }
+
+    private static String nonNull(String s) {
+        return s != null ? s : "";
+    }
+
+    /**
+     * A {@link XMLEventReader} which reads the events that follow the start element delivered to the adapted filter, from the cursor. Events are only created, and the cursor only moved, when read or peeked.
+     */
+    private class CursorEventReader implements XMLEventReader {
+
+        private XMLStreamReader xmlStreamReader;
+        /**
+         * if the cursor was moved from the delivered element's start
+         */
+        private boolean moved;
+        /**
+         * the event at the cursor, if peeked but not consumed
+         */
+        private XMLEvent peeked;
+        /**
+         * the depth of the consumed events, relative to the delivered element's parent
+         */
+        private int depth;
+
+        void reset(XMLStreamReader xmlStreamReader) {
+            this.xmlStreamReader = xmlStreamReader;
+            this.moved = false;
+            this.peeked = null;
+            this.depth = 1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                return peeked != null || xmlStreamReader.hasNext();
+            } catch (XMLStreamException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public XMLEvent nextEvent() throws XMLStreamException {
+            final XMLEvent event;
+            if (peeked != null) {
+                event = peeked;
+                peeked = null;
+            } else {
+                advance();
+                event = createEvent(xmlStreamReader);
+            }
+            consumed(event.getEventType());
+            return event;
+        }
+
+        /**
+         * Consumes the next event, without creating it.
+         * @throws XMLStreamException
+         */
+        void skipEvent() throws XMLStreamException {
+            if (peeked != null) {
+                nextEvent();
+            } else {
+                advance();
+                consumed(xmlStreamReader.getEventType());
+            }
+        }
+
+        private void advance() throws XMLStreamException {
+            if (!xmlStreamReader.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            moved = true;
+            xmlStreamReader.next();
+        }
+
+        private void consumed(int eventType) {
+            if (eventType == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (eventType == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+
+        @Override
+        public XMLEvent peek() throws XMLStreamException {
+            if (peeked == null && xmlStreamReader.hasNext()) {
+                advance();
+                peeked = createEvent(xmlStreamReader);
+            }
+            return peeked;
+        }
+
+        @Override
+        public String getElementText() throws XMLStreamException {
+            final StringBuilder sb = new StringBuilder();
+            while (true) {
+                final XMLEvent event = nextEvent();
+                switch (event.getEventType()) {
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.SPACE:
+                    case XMLStreamConstants.CDATA:
+                        sb.append(event.asCharacters().getData());
+                        break;
+                    case XMLStreamConstants.ENTITY_REFERENCE:
+                    case XMLStreamConstants.COMMENT:
+                    case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        return sb.toString();
+                    default:
+                        throw new XMLStreamException("Unexpected event type " + event.getEventType() + " while reading element text");
+                }
+            }
+        }
+
+        @Override
+        public XMLEvent nextTag() throws XMLStreamException {
+            while (true) {
+                final XMLEvent event = nextEvent();
+                switch (event.getEventType()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                    case XMLStreamConstants.END_ELEMENT:
+                        return event;
+                    case XMLStreamConstants.SPACE:
+                    case XMLStreamConstants.COMMENT:
+                    case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                        if (event.asCharacters().isWhiteSpace()) {
+                            break;
+                        }
+                    default:
+                        throw new XMLStreamException("Unexpected event type " + event.getEventType() + " while looking for a tag");
+                }
+            }
+        }
+
+        @Override
+        public Object getProperty(String name) throws IllegalArgumentException {
+            return xmlStreamReader.getProperty(name);
+        }
+
+        @Override
+        public void close() throws XMLStreamException {
+            // the cursor is closed by the filtering
+        }
+
+        @Override
+        public Object next() {
+            try {
+                return nextEvent();
+            } catch (XMLStreamException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
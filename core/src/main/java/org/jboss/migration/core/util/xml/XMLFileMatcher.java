@@ -21,6 +21,8 @@ import java.nio.file.Path;
 
 /**
  * A matcher for XML files.
+ *
+ * Thread safety: {@link XMLFiles#scan(Path, boolean, XMLFileMatcher)} invokes {@link #matches(Path)} concurrently, from multiple threads, thus implementations must be thread safe, e.g. stateless, or with state that is immutable or synchronized.
  * @author emmartins
  */
 public interface XMLFileMatcher {
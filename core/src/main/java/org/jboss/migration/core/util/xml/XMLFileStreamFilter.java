@@ -0,0 +1,36 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core.util.xml;
+
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+
+/**
+ * A XML file content filter, based on the StAX cursor API, which unlike {@link XMLFileFilter} does not require the allocation of an event object per XML token.
+ * @author emmartins
+ */
+public interface XMLFileStreamFilter {
+
+    /**
+     * Filters an XML element. The reader is positioned at the element's start, and the filter should not move it, if the element is kept it is copied to the writer once the filter returns.
+     * @param xmlStreamReader the source XML file reader
+     * @param xmlStreamWriter the target xml file writer
+     * @return the {@link XMLFileFilter.Result} of the element filtering
+     * @throws IOException if there was a failure filtering the element
+     */
+    XMLFileFilter.Result filter(XMLStreamReader xmlStreamReader, XMLStreamWriter xmlStreamWriter) throws IOException;
+}
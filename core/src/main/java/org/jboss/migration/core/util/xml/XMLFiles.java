@@ -16,26 +16,43 @@
 
 package org.jboss.migration.core.util.xml;
 
-import javax.xml.stream.XMLEventReader;
-import javax.xml.stream.XMLEventWriter;
-import javax.xml.stream.XMLInputFactory;
-import javax.xml.stream.XMLOutputFactory;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.StartElement;
-import javax.xml.stream.events.XMLEvent;
-import java.io.ByteArrayInputStream;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Convenience operations related to XML Files.
@@ -44,7 +61,12 @@ import java.util.TreeSet;
 public class XMLFiles {
 
     /**
-     * Scans a path for XML files.
+     * the max number of threads used to match the files found by a scan
+     */
+    private static final int MAX_SCAN_THREADS = 8;
+
+    /**
+     * Scans a path for XML files. Symbolic links to files are included, and not resolved, i.e. the matched paths are the links' paths. The files found are matched in parallel, thus the matcher must be thread safe.
      * @param start the starting directory path
      * @param recursive if the scan should include sub directories
      * @param matcher the xml file matcher
@@ -52,100 +74,268 @@ public class XMLFiles {
      * @throws IOException if there was a failure in the scanning process
      */
     public static Collection<Path> scan(final Path start, final boolean recursive, final XMLFileMatcher matcher) throws IOException {
-        final SortedSet<Path> result = new TreeSet<>();
+        final List<Path> files = new ArrayList<>();
         Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
             @Override
             public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                if (matcher.matches(file)) {
-                    result.add(file);
+                // links are not followed, thus the attributes of a link are the link's
+                if (attrs.isRegularFile() || (attrs.isSymbolicLink() && Files.isRegularFile(file))) {
+                    files.add(file);
                 }
                 return FileVisitResult.CONTINUE;
             }
             @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                return recursive || dir.equals(start) ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+            }
+            @Override
             public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
                 if (e == null) {
-                    return recursive ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+                    return FileVisitResult.CONTINUE;
                 } else {
                     // directory iteration failed
                     throw e;
                 }
             }
         });
+        final SortedSet<Path> result = new TreeSet<>();
+        final int threads = Math.min(files.size(), Math.min(Runtime.getRuntime().availableProcessors(), MAX_SCAN_THREADS));
+        if (threads < 2) {
+            for (Path file : files) {
+                if (matcher.matches(file)) {
+                    result.add(file);
+                }
+            }
+            return Collections.unmodifiableSet(result);
+        }
+        // match files in parallel, matching is mostly IO bound
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread thread = new Thread(r, "xml-files-scan");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            final List<Future<Boolean>> matches = new ArrayList<>(files.size());
+            for (final Path file : files) {
+                matches.add(executorService.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        return matcher.matches(file);
+                    }
+                }));
+            }
+            for (int i = 0; i < files.size(); i++) {
+                if (matches.get(i).get()) {
+                    result.add(files.get(i));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("xml files scan interrupted");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IOException(cause);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
         return Collections.unmodifiableSet(result);
     }
 
     /**
-     * Copy a XML file.
+     * Copy a XML file. The filtered content is streamed to a temp file, in the target's dir, which then atomically replaces the target, thus a failure never leaves the target partially written.
      * @param source the source XML file
      * @param target the target XML file
      * @param filters the xml file content filters
      * @throws IOException if there was a failure in the copy process
      */
     public static void copy(Path source, Path target, XMLFileFilter... filters) throws IOException {
-        try (InputStream inputStream = Files.newInputStream(source); OutputStream outputStream = Files.newOutputStream(target)) {
-            filter(inputStream, outputStream, filters);
-        }
+        copy(XMLIOProvider.getInstance(), source, target, filters);
+    }
+
+    /**
+     * Copy a XML file, using the specified StAX factories provider. The filtered content is streamed to a temp file, in the target's dir, which then atomically replaces the target, thus a failure never leaves the target partially written.
+     * @param xmlIOProvider the StAX factories provider
+     * @param source the source XML file
+     * @param target the target XML file
+     * @param filters the xml file content filters
+     * @throws IOException if there was a failure in the copy process
+     */
+    public static void copy(XMLIOProvider xmlIOProvider, Path source, Path target, XMLFileFilter... filters) throws IOException {
+        filter(xmlIOProvider, source, target, adapt(xmlIOProvider, filters));
     }
 
     /**
-     * Filters the specified XML file.
+     * Filters the specified XML file. The filtered content is streamed to a temp file, in the XML file's dir, which then atomically replaces the XML file, thus memory usage does not depend on the file size, and a failure never leaves the XML file partially written.
      * @param xmlFile the xml file to filter
      * @param filters the xml file content filters
      * @throws IOException
      */
     public static void filter(Path xmlFile, XMLFileFilter... filters) throws IOException {
-        byte[] xmlFileBytes = Files.readAllBytes(xmlFile);
-        try (InputStream inputStream = new ByteArrayInputStream(xmlFileBytes); OutputStream outputStream = Files.newOutputStream(xmlFile)) {
-            filter(inputStream, outputStream, filters);
+        filter(XMLIOProvider.getInstance(), xmlFile, filters);
+    }
+
+    /**
+     * Filters the specified XML file, using the specified StAX factories provider. The filtered content is streamed to a temp file, in the XML file's dir, which then atomically replaces the XML file, thus memory usage does not depend on the file size, and a failure never leaves the XML file partially written.
+     * @param xmlIOProvider the StAX factories provider
+     * @param xmlFile the xml file to filter
+     * @param filters the xml file content filters
+     * @throws IOException
+     */
+    public static void filter(XMLIOProvider xmlIOProvider, Path xmlFile, XMLFileFilter... filters) throws IOException {
+        filter(xmlIOProvider, xmlFile, xmlFile, adapt(xmlIOProvider, filters));
+    }
+
+    /**
+     * Copy a XML file, using cursor based filters. The filtered content is streamed to a temp file, in the target's dir, which then atomically replaces the target, thus a failure never leaves the target partially written.
+     * @param source the source XML file
+     * @param target the target XML file
+     * @param filters the xml file content filters
+     * @throws IOException if there was a failure in the copy process
+     */
+    public static void streamCopy(Path source, Path target, XMLFileStreamFilter... filters) throws IOException {
+        streamCopy(XMLIOProvider.getInstance(), source, target, filters);
+    }
+
+    /**
+     * Copy a XML file, using cursor based filters and the specified StAX factories provider. The filtered content is streamed to a temp file, in the target's dir, which then atomically replaces the target.
+     * @param xmlIOProvider the StAX factories provider
+     * @param source the source XML file
+     * @param target the target XML file
+     * @param filters the xml file content filters
+     * @throws IOException if there was a failure in the copy process
+     */
+    public static void streamCopy(XMLIOProvider xmlIOProvider, Path source, Path target, XMLFileStreamFilter... filters) throws IOException {
+        filter(xmlIOProvider, source, target, filters);
+    }
+
+    /**
+     * Filters the specified XML file, using cursor based filters. The filtered content is streamed to a temp file, in the XML file's dir, which then atomically replaces the XML file, thus memory usage does not depend on the file size, and a failure never leaves the XML file partially written.
+     * @param xmlFile the xml file to filter
+     * @param filters the xml file content filters
+     * @throws IOException
+     */
+    public static void streamFilter(Path xmlFile, XMLFileStreamFilter... filters) throws IOException {
+        streamFilter(XMLIOProvider.getInstance(), xmlFile, filters);
+    }
+
+    /**
+     * Filters the specified XML file, using cursor based filters and the specified StAX factories provider. The filtered content is streamed to a temp file, in the XML file's dir, which then atomically replaces the XML file.
+     * @param xmlIOProvider the StAX factories provider
+     * @param xmlFile the xml file to filter
+     * @param filters the xml file content filters
+     * @throws IOException
+     */
+    public static void streamFilter(XMLIOProvider xmlIOProvider, Path xmlFile, XMLFileStreamFilter... filters) throws IOException {
+        filter(xmlIOProvider, xmlFile, xmlFile, filters);
+    }
+
+    private static XMLFileStreamFilter[] adapt(XMLIOProvider xmlIOProvider, XMLFileFilter... filters) {
+        if (filters == null) {
+            return null;
+        }
+        final XMLEventFactory xmlEventFactory = xmlIOProvider.getEventFactory();
+        final XMLFileStreamFilter[] streamFilters = new XMLFileStreamFilter[filters.length];
+        for (int i = 0; i < filters.length; i++) {
+            streamFilters[i] = new XMLFileFilterAdapter(filters[i], xmlEventFactory);
+        }
+        return streamFilters;
+    }
+
+    private static void filter(XMLIOProvider xmlIOProvider, Path source, Path target, XMLFileStreamFilter... filters) throws IOException {
+        final Path targetDir = target.toAbsolutePath().getParent();
+        final Path tempFile = Files.createTempFile(targetDir, target.getFileName().toString() + ".", ".tmp");
+        try {
+            try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(source));
+                 FileChannel tempFileChannel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                final OutputStream outputStream = new BufferedOutputStream(Channels.newOutputStream(tempFileChannel));
+                filter(xmlIOProvider, inputStream, outputStream, filters);
+                outputStream.flush();
+                tempFileChannel.force(true);
+            }
+            copyPermissions(Files.exists(target) ? target : source, tempFile);
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static void copyPermissions(Path source, Path target) throws IOException {
+        final PosixFileAttributeView targetAttributeView = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        if (targetAttributeView != null) {
+            targetAttributeView.setPermissions(Files.getFileAttributeView(source, PosixFileAttributeView.class).readAttributes().permissions());
         }
     }
 
-    private static void filter(final InputStream inputStream, final OutputStream outputStream, XMLFileFilter... filters) throws IOException {
-        XMLEventReader xmlEventReader = null;
-        XMLEventWriter xmlEventWriter = null;
+    private static void filter(final XMLIOProvider xmlIOProvider, final InputStream inputStream, final OutputStream outputStream, XMLFileStreamFilter... filters) throws IOException {
+        XMLStreamReader xmlStreamReader = null;
+        XMLStreamWriter xmlStreamWriter = null;
+        final FilterDispatcher filterDispatcher = new FilterDispatcher(filters);
         try {
-            xmlEventReader = XMLInputFactory.newInstance().createXMLEventReader(inputStream);
-            xmlEventWriter = XMLOutputFactory.newInstance().createXMLEventWriter(outputStream);
-            while (xmlEventReader.hasNext()) {
-                XMLEvent xmlEvent = xmlEventReader.nextEvent();
-                if (xmlEvent.isStartElement()) {
-                    final StartElement startElement = xmlEvent.asStartElement();
+            xmlStreamReader = xmlIOProvider.createXMLStreamReader(inputStream);
+            xmlStreamWriter = xmlIOProvider.createXMLStreamWriter(outputStream, xmlStreamReader.getCharacterEncodingScheme() != null ? xmlStreamReader.getCharacterEncodingScheme() : "UTF-8");
+            // the reader starts positioned at the document's start
+            copyEvent(xmlStreamReader, xmlStreamWriter);
+            while (xmlStreamReader.hasNext()) {
+                if (xmlStreamReader.next() == XMLStreamConstants.START_ELEMENT) {
                     XMLFileFilter.Result filterResult = XMLFileFilter.Result.NOT_APPLICABLE;
-                    if (filters != null) {
-                        for (XMLFileFilter filter : filters) {
-                            filterResult = filter.filter(startElement, xmlEventReader, xmlEventWriter);
-                            if (filterResult != XMLFileFilter.Result.NOT_APPLICABLE) {
-                                break;
-                            }
+                    boolean elementProcessed = false;
+                    for (XMLFileStreamFilter filter : filterDispatcher.getFilters(xmlStreamReader.getName())) {
+                        filterResult = filter.filter(xmlStreamReader, xmlStreamWriter);
+                        if (filter instanceof XMLFileFilterAdapter && ((XMLFileFilterAdapter) filter).isElementProcessed()) {
+                            // an event based filter read the element's events, and the adapter completed the element
+                            elementProcessed = true;
+                            break;
+                        }
+                        if (filterResult != XMLFileFilter.Result.NOT_APPLICABLE) {
+                            break;
                         }
                     }
+                    if (elementProcessed) {
+                        continue;
+                    }
                     switch (filterResult) {
                         case REMOVE:
-                            skipTillEndElement(xmlEventReader);
+                            skipTillEndElement(xmlStreamReader);
                             break;
                         case KEEP:
                         case NOT_APPLICABLE:
                         default:
-                            xmlEventWriter.add(xmlEvent);
+                            copyEvent(xmlStreamReader, xmlStreamWriter);
                             break;
                     }
                 } else {
-                    xmlEventWriter.add(xmlEvent);
+                    copyEvent(xmlStreamReader, xmlStreamWriter);
                 }
             }
+            xmlStreamWriter.flush();
         } catch (XMLStreamException e) {
-            throw new IOException("XML file filtering failed");
+            throw new IOException("XML file filtering failed", e);
         } finally {
-            if (xmlEventReader != null) {
+            if (xmlStreamReader != null) {
                 try {
-                    xmlEventReader.close();
+                    xmlStreamReader.close();
                 } catch (XMLStreamException e) {
                     // ignore
                 }
             }
-            if (xmlEventWriter != null) {
+            if (xmlStreamWriter != null) {
                 try {
-                    xmlEventWriter.close();
+                    xmlStreamWriter.close();
                 } catch (XMLStreamException e) {
                     // ignore
                 }
@@ -153,16 +343,116 @@ public class XMLFiles {
         }
     }
 
-    private static void skipTillEndElement(XMLEventReader xmlEventReader) throws XMLStreamException {
+    /**
+     * Copies the reader's current event to the writer, without allocating an event object.
+     * @param xmlStreamReader the reader
+     * @param xmlStreamWriter the writer
+     * @throws XMLStreamException
+     */
+    private static void copyEvent(XMLStreamReader xmlStreamReader, XMLStreamWriter xmlStreamWriter) throws XMLStreamException {
+        switch (xmlStreamReader.getEventType()) {
+            case XMLStreamConstants.START_ELEMENT:
+                xmlStreamWriter.writeStartElement(nonNull(xmlStreamReader.getPrefix()), xmlStreamReader.getLocalName(), nonNull(xmlStreamReader.getNamespaceURI()));
+                for (int i = 0; i < xmlStreamReader.getNamespaceCount(); i++) {
+                    final String prefix = xmlStreamReader.getNamespacePrefix(i);
+                    if (prefix == null || prefix.isEmpty()) {
+                        xmlStreamWriter.writeDefaultNamespace(nonNull(xmlStreamReader.getNamespaceURI(i)));
+                    } else {
+                        xmlStreamWriter.writeNamespace(prefix, nonNull(xmlStreamReader.getNamespaceURI(i)));
+                    }
+                }
+                for (int i = 0; i < xmlStreamReader.getAttributeCount(); i++) {
+                    xmlStreamWriter.writeAttribute(nonNull(xmlStreamReader.getAttributePrefix(i)), nonNull(xmlStreamReader.getAttributeNamespace(i)), xmlStreamReader.getAttributeLocalName(i), xmlStreamReader.getAttributeValue(i));
+                }
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                xmlStreamWriter.writeEndElement();
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.SPACE:
+                xmlStreamWriter.writeCharacters(xmlStreamReader.getTextCharacters(), xmlStreamReader.getTextStart(), xmlStreamReader.getTextLength());
+                break;
+            case XMLStreamConstants.CDATA:
+                xmlStreamWriter.writeCData(xmlStreamReader.getText());
+                break;
+            case XMLStreamConstants.COMMENT:
+                xmlStreamWriter.writeComment(xmlStreamReader.getText());
+                break;
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                xmlStreamWriter.writeProcessingInstruction(xmlStreamReader.getPITarget(), xmlStreamReader.getPIData());
+                break;
+            case XMLStreamConstants.ENTITY_REFERENCE:
+                xmlStreamWriter.writeEntityRef(xmlStreamReader.getLocalName());
+                break;
+            case XMLStreamConstants.DTD:
+                xmlStreamWriter.writeDTD(xmlStreamReader.getText());
+                break;
+            case XMLStreamConstants.START_DOCUMENT:
+                final String version = xmlStreamReader.getVersion() != null ? xmlStreamReader.getVersion() : "1.0";
+                if (xmlStreamReader.getCharacterEncodingScheme() != null) {
+                    xmlStreamWriter.writeStartDocument(xmlStreamReader.getCharacterEncodingScheme(), version);
+                } else {
+                    xmlStreamWriter.writeStartDocument(version);
+                }
+                break;
+            case XMLStreamConstants.END_DOCUMENT:
+                xmlStreamWriter.writeEndDocument();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static String nonNull(String s) {
+        return s != null ? s : "";
+    }
+
+    private static void skipTillEndElement(XMLStreamReader xmlStreamReader) throws XMLStreamException {
         int endElementsLeft = 1;
         do {
-            XMLEvent xmlEvent = xmlEventReader.nextEvent();
-            if (xmlEvent.isStartElement()) {
+            final int eventType = xmlStreamReader.next();
+            if (eventType == XMLStreamConstants.START_ELEMENT) {
                 endElementsLeft++;
             }
-            else if(xmlEvent.isEndElement()){
+            else if(eventType == XMLStreamConstants.END_ELEMENT){
                 endElementsLeft--;
             }
-        } while (xmlEventReader.hasNext() && endElementsLeft > 0);
+        } while (xmlStreamReader.hasNext() && endElementsLeft > 0);
+    }
+
+    /**
+     * Dispatches elements to the filters applicable to these, keeping the filters order. The applicable filters are computed once per element name, and then retrieved in constant time.
+     */
+    private static class FilterDispatcher {
+
+        private final XMLFileStreamFilter[] filters;
+        private final Map<QName, XMLFileStreamFilter[]> filtersByElementName = new HashMap<>();
+
+        FilterDispatcher(XMLFileStreamFilter[] filters) {
+            this.filters = filters != null ? filters : new XMLFileStreamFilter[0];
+        }
+
+        XMLFileStreamFilter[] getFilters(QName elementName) {
+            XMLFileStreamFilter[] elementFilters = filtersByElementName.get(elementName);
+            if (elementFilters == null) {
+                final List<XMLFileStreamFilter> list = new ArrayList<>();
+                for (XMLFileStreamFilter filter : filters) {
+                    if (isApplicable(filter, elementName)) {
+                        list.add(filter);
+                    }
+                }
+                elementFilters = list.toArray(new XMLFileStreamFilter[list.size()]);
+                filtersByElementName.put(elementName, elementFilters);
+            }
+            return elementFilters;
+        }
+
+        private static boolean isApplicable(XMLFileStreamFilter filter, QName elementName) {
+            if (!(filter instanceof XMLFileStreamElementFilter)) {
+                return true;
+            }
+            final Collection<QName> filterElementNames = ((XMLFileStreamElementFilter) filter).getElementNames();
+            return filterElementNames == null || filterElementNames.contains(elementName) || filterElementNames.contains(new QName(XMLFileElementFilter.ANY_NAMESPACE, elementName.getLocalPart()));
+        }
     }
 }
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core.util.xml;
+
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The provider of the StAX factories used to read and write XML, which are created and configured once, and then shared, since StAX factories are thread safe once configured.
+ *
+ * The input factories do not support external entities, which configs do not use, and which are slow and insecure to resolve, thus references to external entities are not replaced with the entities' content.
+ *
+ * There is one provider per StAX implementation. Each migration selects its StAX implementation through its environment, and its context holds the selected provider, which is passed explicitly to the XML utilities, thus concurrent migrations do not affect each other. Utilities invoked without a provider use the default provider, retrieved with {@link #getInstance()}, which by default uses the implementation retrieved by the standard StAX lookup, and may be overridden with {@link #setImplementation(String)}.
+ * @author emmartins
+ */
+public class XMLIOProvider {
+
+    public interface EnvironmentProperties {
+        /**
+         * the prefix for the name of XML related properties
+         */
+        String PROPERTIES_PREFIX = "xml.";
+        /**
+         * the StAX implementation, one of {@code default}, {@code jdk}, {@code woodstox} or {@code aalto}
+         */
+        String STAX_IMPLEMENTATION = PROPERTIES_PREFIX + "staxImplementation";
+    }
+
+    /**
+     * the StAX implementation retrieved by the standard StAX lookup
+     */
+    public static final String DEFAULT_IMPLEMENTATION = "default";
+
+    private static final Map<String, String[]> IMPLEMENTATIONS = new HashMap<>();
+
+    static {
+        IMPLEMENTATIONS.put("jdk", new String[]{"com.sun.xml.internal.stream.XMLInputFactoryImpl", "com.sun.xml.internal.stream.XMLOutputFactoryImpl", "com.sun.xml.internal.stream.events.XMLEventFactoryImpl"});
+        IMPLEMENTATIONS.put("woodstox", new String[]{"com.ctc.wstx.stax.WstxInputFactory", "com.ctc.wstx.stax.WstxOutputFactory", "com.ctc.wstx.stax.WstxEventFactory"});
+        IMPLEMENTATIONS.put("aalto", new String[]{"com.fasterxml.aalto.stax.InputFactoryImpl", "com.fasterxml.aalto.stax.OutputFactoryImpl", "com.fasterxml.aalto.stax.EventFactoryImpl"});
+    }
+
+    private static final Map<String, XMLIOProvider> PROVIDERS = new HashMap<>();
+
+    private static XMLIOProvider defaultInstance;
+
+    /**
+     * Retrieves the default provider.
+     * @return the default provider
+     */
+    public static synchronized XMLIOProvider getInstance() {
+        if (defaultInstance == null) {
+            defaultInstance = getInstance(DEFAULT_IMPLEMENTATION);
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * Retrieves the provider of the specified StAX implementation.
+     * @param implementation the StAX implementation, if null the default implementation is used
+     * @return the provider of the specified StAX implementation
+     * @throws IllegalArgumentException if the implementation is unknown or not available
+     */
+    public static synchronized XMLIOProvider getInstance(String implementation) throws IllegalArgumentException {
+        if (implementation == null || implementation.trim().isEmpty()) {
+            implementation = DEFAULT_IMPLEMENTATION;
+        }
+        implementation = implementation.trim();
+        XMLIOProvider provider = PROVIDERS.get(implementation);
+        if (provider == null) {
+            provider = new XMLIOProvider(implementation);
+            PROVIDERS.put(implementation, provider);
+        }
+        return provider;
+    }
+
+    /**
+     * Selects the StAX implementation of the default provider, which does not affect the providers selected by migrations.
+     * @param implementation the StAX implementation, if null the default implementation is selected
+     * @throws IllegalArgumentException if the implementation is unknown or not available
+     */
+    public static synchronized void setImplementation(String implementation) throws IllegalArgumentException {
+        defaultInstance = getInstance(implementation);
+    }
+
+    private final String implementation;
+    private final XMLInputFactory inputFactory;
+    private final XMLOutputFactory outputFactory;
+    private final XMLEventFactory eventFactory;
+
+    private XMLIOProvider(String implementation) throws IllegalArgumentException {
+        this.implementation = implementation;
+        if (DEFAULT_IMPLEMENTATION.equals(implementation)) {
+            inputFactory = XMLInputFactory.newInstance();
+            outputFactory = XMLOutputFactory.newInstance();
+            eventFactory = XMLEventFactory.newInstance();
+        } else {
+            final String[] classNames = IMPLEMENTATIONS.get(implementation);
+            if (classNames == null) {
+                throw new IllegalArgumentException("Unknown StAX implementation "+implementation);
+            }
+            inputFactory = newFactory(XMLInputFactory.class, classNames[0]);
+            outputFactory = newFactory(XMLOutputFactory.class, classNames[1]);
+            eventFactory = newFactory(XMLEventFactory.class, classNames[2]);
+        }
+        // configs do not depend on external entities, and resolving these is slow and insecure
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+
+    private static <T> T newFactory(Class<T> factoryType, String className) throws IllegalArgumentException {
+        if (className.startsWith("com.sun.xml.internal.")) {
+            // the JDK internal classes are not accessible since Java 9, which provides the JDK factories through newDefaultFactory()
+            try {
+                return factoryType.cast(factoryType.getMethod("newDefaultFactory").invoke(null));
+            } catch (NoSuchMethodException e) {
+                // Java 8 or older
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("StAX factory "+className+" not available", e);
+            }
+        }
+        try {
+            return factoryType.cast(Class.forName(className, true, XMLIOProvider.class.getClassLoader()).getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            throw new IllegalArgumentException("StAX factory "+className+" not available", e);
+        }
+    }
+
+    /**
+     * Retrieves the selected StAX implementation.
+     * @return the selected StAX implementation
+     */
+    public String getImplementation() {
+        return implementation;
+    }
+
+    /**
+     * Retrieves the shared input factory, which should not be reconfigured. The factory does not support external entities.
+     * @return the shared input factory
+     */
+    public XMLInputFactory getInputFactory() {
+        return inputFactory;
+    }
+
+    /**
+     * Retrieves the shared output factory, which should not be reconfigured.
+     * @return the shared output factory
+     */
+    public XMLOutputFactory getOutputFactory() {
+        return outputFactory;
+    }
+
+    /**
+     * Retrieves the shared event factory.
+     * @return the shared event factory
+     */
+    public XMLEventFactory getEventFactory() {
+        return eventFactory;
+    }
+
+    /**
+     * Creates a XML stream reader.
+     * @param inputStream the input stream to read from
+     * @return the created reader
+     * @throws XMLStreamException if the reader creation failed
+     */
+    public XMLStreamReader createXMLStreamReader(InputStream inputStream) throws XMLStreamException {
+        return inputFactory.createXMLStreamReader(inputStream);
+    }
+
+    /**
+     * Creates a XML stream writer.
+     * @param outputStream the output stream to write to
+     * @param encoding the encoding
+     * @return the created writer
+     * @throws XMLStreamException if the writer creation failed
+     */
+    public XMLStreamWriter createXMLStreamWriter(OutputStream outputStream, String encoding) throws XMLStreamException {
+        return outputFactory.createXMLStreamWriter(outputStream, encoding);
+    }
+}
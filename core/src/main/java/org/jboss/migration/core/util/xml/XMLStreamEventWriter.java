@@ -0,0 +1,161 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core.util.xml;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Characters;
+import javax.xml.stream.events.Comment;
+import javax.xml.stream.events.DTD;
+import javax.xml.stream.events.EntityReference;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.ProcessingInstruction;
+import javax.xml.stream.events.StartDocument;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.util.Iterator;
+
+/**
+ * A {@link XMLEventWriter} which writes events to a {@link XMLStreamWriter}. Closing the event writer does not close the stream writer.
+ * @author emmartins
+ */
+class XMLStreamEventWriter implements XMLEventWriter {
+
+    private final XMLStreamWriter xmlStreamWriter;
+
+    XMLStreamEventWriter(XMLStreamWriter xmlStreamWriter) {
+        this.xmlStreamWriter = xmlStreamWriter;
+    }
+
+    @Override
+    public void add(XMLEvent event) throws XMLStreamException {
+        switch (event.getEventType()) {
+            case XMLEvent.START_ELEMENT:
+                final StartElement startElement = event.asStartElement();
+                xmlStreamWriter.writeStartElement(startElement.getName().getPrefix(), startElement.getName().getLocalPart(), startElement.getName().getNamespaceURI());
+                for (Iterator<?> i = startElement.getNamespaces(); i.hasNext();) {
+                    writeNamespace((Namespace) i.next());
+                }
+                for (Iterator<?> i = startElement.getAttributes(); i.hasNext();) {
+                    writeAttribute((Attribute) i.next());
+                }
+                break;
+            case XMLEvent.END_ELEMENT:
+                xmlStreamWriter.writeEndElement();
+                break;
+            case XMLEvent.CHARACTERS:
+            case XMLEvent.SPACE:
+            case XMLEvent.CDATA:
+                final Characters characters = event.asCharacters();
+                if (characters.isCData()) {
+                    xmlStreamWriter.writeCData(characters.getData());
+                } else {
+                    xmlStreamWriter.writeCharacters(characters.getData());
+                }
+                break;
+            case XMLEvent.COMMENT:
+                xmlStreamWriter.writeComment(((Comment) event).getText());
+                break;
+            case XMLEvent.PROCESSING_INSTRUCTION:
+                final ProcessingInstruction processingInstruction = (ProcessingInstruction) event;
+                xmlStreamWriter.writeProcessingInstruction(processingInstruction.getTarget(), processingInstruction.getData());
+                break;
+            case XMLEvent.START_DOCUMENT:
+                final StartDocument startDocument = (StartDocument) event;
+                if (startDocument.encodingSet()) {
+                    xmlStreamWriter.writeStartDocument(startDocument.getCharacterEncodingScheme(), startDocument.getVersion());
+                } else {
+                    xmlStreamWriter.writeStartDocument(startDocument.getVersion());
+                }
+                break;
+            case XMLEvent.END_DOCUMENT:
+                xmlStreamWriter.writeEndDocument();
+                break;
+            case XMLEvent.DTD:
+                xmlStreamWriter.writeDTD(((DTD) event).getDocumentTypeDeclaration());
+                break;
+            case XMLEvent.ENTITY_REFERENCE:
+                xmlStreamWriter.writeEntityRef(((EntityReference) event).getName());
+                break;
+            case XMLEvent.ATTRIBUTE:
+                writeAttribute((Attribute) event);
+                break;
+            case XMLEvent.NAMESPACE:
+                writeNamespace((Namespace) event);
+                break;
+            default:
+                throw new XMLStreamException("Unsupported event type " + event.getEventType());
+        }
+    }
+
+    private void writeNamespace(Namespace namespace) throws XMLStreamException {
+        if (namespace.isDefaultNamespaceDeclaration()) {
+            xmlStreamWriter.writeDefaultNamespace(namespace.getNamespaceURI());
+        } else {
+            xmlStreamWriter.writeNamespace(namespace.getPrefix(), namespace.getNamespaceURI());
+        }
+    }
+
+    private void writeAttribute(Attribute attribute) throws XMLStreamException {
+        xmlStreamWriter.writeAttribute(attribute.getName().getPrefix(), attribute.getName().getNamespaceURI(), attribute.getName().getLocalPart(), attribute.getValue());
+    }
+
+    @Override
+    public void add(XMLEventReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            add(reader.nextEvent());
+        }
+    }
+
+    @Override
+    public void flush() throws XMLStreamException {
+        xmlStreamWriter.flush();
+    }
+
+    @Override
+    public void close() throws XMLStreamException {
+        xmlStreamWriter.flush();
+    }
+
+    @Override
+    public String getPrefix(String uri) throws XMLStreamException {
+        return xmlStreamWriter.getPrefix(uri);
+    }
+
+    @Override
+    public void setPrefix(String prefix, String uri) throws XMLStreamException {
+        xmlStreamWriter.setPrefix(prefix, uri);
+    }
+
+    @Override
+    public void setDefaultNamespace(String uri) throws XMLStreamException {
+        xmlStreamWriter.setDefaultNamespace(uri);
+    }
+
+    @Override
+    public void setNamespaceContext(NamespaceContext context) throws XMLStreamException {
+        xmlStreamWriter.setNamespaceContext(context);
+    }
+
+    @Override
+    public NamespaceContext getNamespaceContext() {
+        return xmlStreamWriter.getNamespaceContext();
+    }
+}
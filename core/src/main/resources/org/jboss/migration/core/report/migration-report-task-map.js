@@ -0,0 +1,207 @@
+/*
+ * Renders the task map of the HTML migration report, which the report writer includes unless the report template defines
+ * renderTaskMap(). The report writer writes the tasks as JSON literals, in chunks passed to addTasks(), in task tree pre-order,
+ * and then invokes renderTaskMap(). Each task is an object with the following keys: n (number), p (parent number, absent for
+ * the root task), name, depth (task path size), path, logger, mdc, wall, cpu, mem, status, reason (if failed or cancelled),
+ * attrs (result attributes, as [name, value] pairs) and subtree (subtree results, if the task has subtasks).
+ * Only the visible tasks are rendered, the details and subtasks of a task are rendered when first shown.
+ */
+var tasks = {};
+var maxTaskPathSizeToDisplaySubtasks = 4;
+
+function addTasks(chunk) {
+    for (var i = 0; i < chunk.length; i++) {
+        var task = chunk[i];
+        tasks['task'+task.n] = task;
+        if (task.p !== undefined) {
+            var parent = tasks['task'+task.p];
+            if (!parent.subtasks) {
+                parent.subtasks = [];
+            }
+            parent.subtasks.push(task);
+        }
+    }
+}
+
+function renderTaskMap(container, options) {
+    maxTaskPathSizeToDisplaySubtasks = options.maxTaskPathSizeToDisplaySubtasks;
+    container.appendChild(renderTask(tasks['task'+options.root]));
+}
+
+function createElement(tagName, className) {
+    var element = document.createElement(tagName);
+    if (className) {
+        element.className = className;
+    }
+    return element;
+}
+
+function createTaskStatus(task, text) {
+    var span = createElement('span', 'task-result-'+task.status);
+    span.appendChild(document.createTextNode(text));
+    return span;
+}
+
+function createTaskLink(id, text, title, onclick) {
+    var a = createElement('a', 'task-display-toggle');
+    a.href = '#'+id;
+    if (title) {
+        a.title = title;
+    }
+    a.onclick = onclick;
+    a.appendChild(typeof text === 'string' ? document.createTextNode(text) : text);
+    return a;
+}
+
+function renderTask(task) {
+    var id = 'task'+task.n;
+    var displaySubtasks = task.depth <= maxTaskPathSizeToDisplaySubtasks;
+    var table = createElement('table', (task.depth % 2) === 0 ? 'task-map-even' : 'task-map-odd');
+    // header
+    var headerCell = table.insertRow(-1).insertCell(-1);
+    headerCell.className = 'task-map-header';
+    var header = createElement('table', 'task-header');
+    var headerRow = header.insertRow(-1);
+    var nameCell = headerRow.insertCell(-1);
+    nameCell.className = 'task-header-name';
+    nameCell.id = id;
+    nameCell.appendChild(createTaskLink(id, createTaskStatus(task, task.name), 'Show or hide the task details', function() { toggleDisplayTaskDetails(id); return false; }));
+    if (task.subtasks) {
+        var togglesCell = headerRow.insertCell(-1);
+        togglesCell.className = 'task-header-toggles';
+        var toggles = createElement('table');
+        var togglesRow = toggles.insertRow(-1);
+        task.hideToggle = togglesRow.insertCell(-1);
+        task.hideToggle.className = 'task-display-toggle';
+        task.hideToggle.appendChild(createTaskLink(id, '-', 'Hide subtasks', function() { hideSubtasks(id); return false; }));
+        task.showToggle = togglesRow.insertCell(-1);
+        task.showToggle.className = 'task-display-toggle';
+        task.showToggle.appendChild(createTaskLink(id, '+', 'Show subtasks', function() { showSubtasks(id); return false; }));
+        togglesCell.appendChild(toggles);
+    }
+    headerCell.appendChild(header);
+    // details
+    task.detailsCell = table.insertRow(-1).insertCell(-1);
+    task.detailsCell.className = 'task-map-details';
+    task.detailsCell.style.display = 'none';
+    // subtasks
+    if (task.subtasks) {
+        task.subtasksCell = table.insertRow(-1).insertCell(-1);
+        task.subtasksCell.className = 'task-map-subtasks';
+        if (displaySubtasks) {
+            showSubtasks(id);
+        } else {
+            hideSubtasks(id);
+        }
+    }
+    return table;
+}
+
+function renderTaskDetails(task) {
+    var table = createElement('table', 'task-details');
+    function addProperty(name, value) {
+        var row = table.insertRow(-1);
+        var nameCell = row.insertCell(-1);
+        nameCell.className = 'task-details-property-name';
+        nameCell.appendChild(document.createTextNode(name+':'));
+        var valueCell = row.insertCell(-1);
+        valueCell.className = 'task-details-property-value';
+        valueCell.appendChild(typeof value === 'string' ? document.createTextNode(value) : value);
+    }
+    function createLines() {
+        var lines = createElement('span');
+        lines.addLine = function(line) {
+            if (lines.firstChild) {
+                lines.appendChild(createElement('br'));
+            }
+            lines.appendChild(typeof line === 'string' ? document.createTextNode(line) : line);
+        };
+        return lines;
+    }
+    addProperty('Task Number', String(task.n));
+    addProperty('Task Name', task.name);
+    addProperty('Task Path', task.path);
+    addProperty('Logger Name', task.logger);
+    addProperty('Logging Context', task.mdc);
+    addProperty('Wall Time', task.wall);
+    addProperty('CPU Time', task.cpu);
+    addProperty('Allocated Memory', task.mem);
+    addProperty('Result Status', createTaskStatus(task, task.status));
+    if (task.status === 'FAIL') {
+        addProperty('Fail Reason', String(task.reason));
+    } else if (task.status === 'CANCELLED') {
+        addProperty('Cancel Reason', String(task.reason));
+    }
+    if (task.subtree) {
+        addProperty('Subtree Results', task.subtree);
+    }
+    if (task.attrs) {
+        var attributes = createLines();
+        for (var i = 0; i < task.attrs.length; i++) {
+            attributes.addLine(task.attrs[i][0]+' = '+task.attrs[i][1]);
+        }
+        addProperty('Result Attributes', attributes);
+    }
+    if (task.subtasks) {
+        var subtasks = createLines();
+        for (var j = 0; j < task.subtasks.length; j++) {
+            (function(id, subtaskId, subtaskName) {
+                subtasks.addLine(createTaskLink(subtaskId, subtaskName, null, function() { showSubtasks(id); showTaskDetails(subtaskId); }));
+            })('task'+task.n, 'task'+task.subtasks[j].n, task.subtasks[j].name);
+        }
+        addProperty('Subtasks', subtasks);
+    }
+    task.detailsCell.appendChild(table);
+    task.detailsRendered = true;
+}
+
+function renderSubtasks(task) {
+    var table = createElement('table', 'task-subtasks');
+    for (var i = 0; i < task.subtasks.length; i++) {
+        table.insertRow(-1).insertCell(-1).appendChild(renderTask(task.subtasks[i]));
+    }
+    task.subtasksCell.appendChild(table);
+    task.subtasksRendered = true;
+}
+
+function toggleDisplayTaskDetails(id) {
+    var task = tasks[id];
+    if (task != null && task.detailsCell) {
+        if (task.detailsCell.style.display === 'none') {
+            showTaskDetails(id);
+        } else {
+            task.detailsCell.style.display = 'none';
+        }
+    }
+}
+
+function showTaskDetails(id) {
+    var task = tasks[id];
+    if (task != null && task.detailsCell) {
+        if (!task.detailsRendered) {
+            renderTaskDetails(task);
+        }
+        task.detailsCell.style.display = 'block';
+    }
+}
+
+function showSubtasks(id) {
+    var task = tasks[id];
+    if (task != null && task.subtasksCell) {
+        if (!task.subtasksRendered) {
+            renderSubtasks(task);
+        }
+        task.subtasksCell.style.display = 'block';
+        task.hideToggle.style.display = 'block';
+        task.showToggle.style.display = 'none';
+    }
+}
+
+function hideSubtasks(id) {
+    var task = tasks[id];
+    if (task != null && task.subtasksCell) {
+        task.subtasksCell.style.display = 'none';
+        task.hideToggle.style.display = 'none';
+        task.showToggle.style.display = 'block';
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core;
+
+import org.jboss.migration.core.console.JavaConsole;
+import org.jboss.migration.core.env.MigrationEnvironment;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author emmartins
+ */
+public class MigrationJournalTestCase {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<String> runs = Collections.synchronizedList(new ArrayList<String>());
+    private final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+    private ServerMigrationTask newTask(final String name, final boolean resumable, final ServerMigrationTask... subtasks) {
+        final ServerMigrationTaskName taskName = new ServerMigrationTaskName.Builder().setName(name).build();
+        if (resumable) {
+            return new ResumableServerMigrationTask() {
+                @Override
+                public ServerMigrationTaskName getName() {
+                    return taskName;
+                }
+                @Override
+                public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                    return runTask(name, context, subtasks);
+                }
+            };
+        } else {
+            return new ServerMigrationTask() {
+                @Override
+                public ServerMigrationTaskName getName() {
+                    return taskName;
+                }
+                @Override
+                public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                    return runTask(name, context, subtasks);
+                }
+            };
+        }
+    }
+
+    private ServerMigrationTaskResult runTask(String name, ServerMigrationTaskContext context, ServerMigrationTask... subtasks) {
+        runs.add(name);
+        for (ServerMigrationTask subtask : subtasks) {
+            context.execute(subtask);
+        }
+        return ServerMigrationTaskResult.SUCCESS;
+    }
+
+    private ServerMigrationTaskExecution migrate(Path path, MigrationJournal.Mode mode) throws IOException {
+        final ServerMigrationTask a = newTask("a", true, newTask("a1", false));
+        final ServerMigrationTask b = newTask("b", true);
+        return migrate(path, mode, new MigrationEnvironment(), a, b);
+    }
+
+    private ServerMigrationTaskExecution migrate(Path path, MigrationJournal.Mode mode, MigrationEnvironment environment, ServerMigrationTask... tasks) throws IOException {
+        final MigrationJournal journal = MigrationJournal.open(path, mode);
+        final ServerMigrationListener listener = new ServerMigrationListener() {
+            @Override
+            public void taskStarted(ServerMigrationTaskExecution taskExecution) {
+                events.add(taskExecution.getTaskName().getName() + ".started" + (taskExecution.isRestored() ? ".restored" : ""));
+            }
+            @Override
+            public void taskFinished(ServerMigrationTaskExecution taskExecution) {
+                events.add(taskExecution.getTaskName().getName() + ".finished" + (taskExecution.isRestored() ? ".restored" : ""));
+            }
+            @Override
+            public void managementOperationExecuted(ServerMigrationTaskExecution taskExecution, String operationName, String address, long wallTime, boolean successful) {
+            }
+        };
+        final ServerMigrationContext context = new ServerMigrationContext(new JavaConsole(), false, environment, Collections.singletonList(listener), journal);
+        final ServerMigrationTaskExecution root = new ServerMigrationTaskExecution(newTask("root", false, tasks), context);
+        try {
+            root.run();
+        } finally {
+            context.close();
+        }
+        return root;
+    }
+
+    /**
+     * Creates an incremental task, which reads the specified environment property, and copies the specified file, if any.
+     */
+    private ServerMigrationTask newIncrementalTask(final String name, final String propertyName, final Path source, final Path target) {
+        final ServerMigrationTaskName taskName = new ServerMigrationTaskName.Builder().setName(name).build();
+        return new IncrementalServerMigrationTask() {
+            @Override
+            public ServerMigrationTaskName getName() {
+                return taskName;
+            }
+            @Override
+            public String getContentHash(ServerMigrationTaskContext context) throws Exception {
+                return name;
+            }
+            @Override
+            public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                runs.add(name);
+                context.getServerMigrationContext().getMigrationEnvironment().getPropertyAsString(propertyName);
+                if (source != null) {
+                    context.getServerMigrationContext().getMigrationFiles().copy(source, target);
+                }
+                return ServerMigrationTaskResult.SUCCESS;
+            }
+        };
+    }
+
+    private void clear() {
+        runs.clear();
+        events.clear();
+    }
+
+    private static void writeInt(Path path, long position, int value) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(position);
+            file.writeInt(value);
+        }
+    }
+
+    private static void flipByte(Path path, long position) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(position);
+            final int b = file.read();
+            file.seek(position);
+            file.write(b ^ 0xFF);
+        }
+    }
+
+    @Test
+    public void testResume() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("journal");
+        migrate(path, MigrationJournal.Mode.NEW);
+        Assert.assertEquals(Arrays.asList("root", "a", "a1", "b"), runs);
+        clear();
+        final ServerMigrationTaskExecution root = migrate(path, MigrationJournal.Mode.RESUME);
+        Assert.assertEquals(Arrays.asList("root"), runs);
+        Assert.assertTrue(root.getSubtasks().get(0).isRestored());
+        Assert.assertEquals(Arrays.asList("a1"), ServerMigrationTaskExecutionTestCase.getSubtaskNames(root.getSubtasks().get(0)));
+        // restored tasks fire the same events as executed ones
+        Assert.assertEquals(Arrays.asList("root.started", "a.started.restored", "a1.started.restored", "a1.finished.restored", "a.finished.restored", "b.started.restored", "b.finished.restored", "root.finished"), events);
+        clear();
+        migrate(path, MigrationJournal.Mode.NEW);
+        Assert.assertEquals(Arrays.asList("root", "a", "a1", "b"), runs);
+    }
+
+    @Test
+    public void testTruncatedJournal() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("journal");
+        migrate(path, MigrationJournal.Mode.NEW);
+        final long length = Files.size(path);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(length - 3);
+        }
+        clear();
+        migrate(path, MigrationJournal.Mode.RESUME);
+        // the incomplete record was discarded, its task run again, and recorded
+        Assert.assertEquals(Arrays.asList("root", "b"), runs);
+        Assert.assertEquals(length, Files.size(path));
+        clear();
+        migrate(path, MigrationJournal.Mode.RESUME);
+        Assert.assertEquals(Arrays.asList("root"), runs);
+    }
+
+    @Test
+    public void testCorruptRecord() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("journal");
+        migrate(path, MigrationJournal.Mode.NEW);
+        // a byte in the payload of the first record, which is after the journal's header, and the record's length and checksum
+        flipByte(path, 8 + 8 + 5);
+        clear();
+        migrate(path, MigrationJournal.Mode.RESUME);
+        // the records from the first invalid one on are discarded
+        Assert.assertEquals(Arrays.asList("root", "a", "a1", "b"), runs);
+        clear();
+        migrate(path, MigrationJournal.Mode.RESUME);
+        Assert.assertEquals(Arrays.asList("root"), runs);
+    }
+
+    @Test
+    public void testCorruptRecordLength() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("journal");
+        migrate(path, MigrationJournal.Mode.NEW);
+        writeInt(path, 8, Integer.MAX_VALUE);
+        clear();
+        migrate(path, MigrationJournal.Mode.RESUME);
+        Assert.assertEquals(Arrays.asList("root", "a", "a1", "b"), runs);
+    }
+
+    @Test
+    public void testNotAJournal() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("journal");
+        Files.write(path, "not a migration journal".getBytes("UTF-8"));
+        migrate(path, MigrationJournal.Mode.RESUME);
+        Assert.assertEquals(Arrays.asList("root", "a", "a1", "b"), runs);
+        clear();
+        migrate(path, MigrationJournal.Mode.RESUME);
+        Assert.assertEquals(Arrays.asList("root"), runs);
+    }
+
+    @Test
+    public void testUnsupportedVersion() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("journal");
+        migrate(path, MigrationJournal.Mode.NEW);
+        writeInt(path, 4, 0);
+        clear();
+        migrate(path, MigrationJournal.Mode.RESUME);
+        Assert.assertEquals(Arrays.asList("root", "a", "a1", "b"), runs);
+    }
+
+    @Test
+    public void testIncrementalEnvironmentPerTask() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("journal");
+        final MigrationEnvironment environment = new MigrationEnvironment();
+        environment.setProperty("x.prop", "1");
+        migrate(path, MigrationJournal.Mode.NEW, environment, newIncrementalTask("x", "x.prop", null, null), newIncrementalTask("y", "y.prop", null, null));
+        Assert.assertEquals(Arrays.asList("root", "x", "y"), runs);
+        // a property not read by any task does not affect these
+        clear();
+        environment.setProperty("z.prop", "1");
+        migrate(path, MigrationJournal.Mode.INCREMENTAL, environment, newIncrementalTask("x", "x.prop", null, null), newIncrementalTask("y", "y.prop", null, null));
+        Assert.assertEquals(Arrays.asList("root"), runs);
+        // a property read only affects the task which read it
+        clear();
+        environment.setProperty("x.prop", "2");
+        migrate(path, MigrationJournal.Mode.INCREMENTAL, environment, newIncrementalTask("x", "x.prop", null, null), newIncrementalTask("y", "y.prop", null, null));
+        Assert.assertEquals(Arrays.asList("root", "x"), runs);
+        // a property read while not set affects the task once set
+        clear();
+        environment.setProperty("y.prop", "1");
+        migrate(path, MigrationJournal.Mode.INCREMENTAL, environment, newIncrementalTask("x", "x.prop", null, null), newIncrementalTask("y", "y.prop", null, null));
+        Assert.assertEquals(Arrays.asList("root", "y"), runs);
+    }
+
+    @Test
+    public void testIncrementalCopiedFiles() throws IOException {
+        final Path path = temporaryFolder.getRoot().toPath().resolve("journal");
+        final Path source = temporaryFolder.newFile("mgmt-users.properties").toPath();
+        final Path target = temporaryFolder.getRoot().toPath().resolve("target").resolve("mgmt-users.properties");
+        Files.write(source, "admin=1".getBytes("UTF-8"));
+        migrate(path, MigrationJournal.Mode.NEW, new MigrationEnvironment(), newIncrementalTask("x", "x.prop", source, target), newIncrementalTask("y", "y.prop", null, null));
+        Assert.assertEquals(Arrays.asList("root", "x", "y"), runs);
+        clear();
+        migrate(path, MigrationJournal.Mode.INCREMENTAL, new MigrationEnvironment(), newIncrementalTask("x", "x.prop", source, target), newIncrementalTask("y", "y.prop", null, null));
+        Assert.assertEquals(Arrays.asList("root"), runs);
+        // a change in a copied file affects only the task which copied it
+        clear();
+        Files.write(source, "admin=2".getBytes("UTF-8"));
+        migrate(path, MigrationJournal.Mode.INCREMENTAL, new MigrationEnvironment(), newIncrementalTask("x", "x.prop", source, target), newIncrementalTask("y", "y.prop", null, null));
+        Assert.assertEquals(Arrays.asList("root", "x"), runs);
+        // and so does a change in the copy
+        clear();
+        Files.write(target, "admin=3".getBytes("UTF-8"));
+        migrate(path, MigrationJournal.Mode.INCREMENTAL, new MigrationEnvironment(), newIncrementalTask("x", "x.prop", source, target), newIncrementalTask("y", "y.prop", null, null));
+        Assert.assertEquals(Arrays.asList("root", "x"), runs);
+    }
+}
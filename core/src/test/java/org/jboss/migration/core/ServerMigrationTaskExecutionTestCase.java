@@ -0,0 +1,313 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core;
+
+import org.jboss.migration.core.console.JavaConsole;
+import org.jboss.migration.core.env.MigrationEnvironment;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author emmartins
+ */
+public class ServerMigrationTaskExecutionTestCase {
+
+    static ServerMigrationContext newServerMigrationContext(MigrationEnvironment migrationEnvironment) {
+        return new ServerMigrationContext(new JavaConsole(), false, migrationEnvironment);
+    }
+
+    static ServerMigrationTask newTask(final String name, final ServerMigrationTaskResult result, final long sleep, final RuntimeException failure) {
+        final ServerMigrationTaskName taskName = new ServerMigrationTaskName.Builder().setName(name).build();
+        return new ServerMigrationTask() {
+            @Override
+            public ServerMigrationTaskName getName() {
+                return taskName;
+            }
+            @Override
+            public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                if (sleep > 0) {
+                    Thread.sleep(sleep);
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+                return result;
+            }
+        };
+    }
+
+    static List<String> getSubtaskNames(ServerMigrationTaskExecution taskExecution) {
+        final List<String> names = new ArrayList<>();
+        for (ServerMigrationTaskExecution subtask : taskExecution.getSubtasks()) {
+            names.add(subtask.getTaskName().getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testConcurrentSubtasksKeepOrder() {
+        final ServerMigrationContext context = newServerMigrationContext(new MigrationEnvironment());
+        final List<ServerMigrationTask> subtasks = new ArrayList<>();
+        subtasks.add(newTask("a", ServerMigrationTaskResult.SUCCESS, 150, null));
+        subtasks.add(newTask("b", ServerMigrationTaskResult.SUCCESS, 100, null));
+        subtasks.add(newTask("c", ServerMigrationTaskResult.SKIPPED, 50, null));
+        subtasks.add(newTask("d", ServerMigrationTaskResult.SUCCESS, 0, null));
+        final ServerMigrationTaskExecution root = new ServerMigrationTaskExecution(new ServerMigrationTask() {
+            @Override
+            public ServerMigrationTaskName getName() {
+                return new ServerMigrationTaskName.Builder().setName("root").build();
+            }
+            @Override
+            public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                context.execute(subtasks, 4);
+                return ServerMigrationTaskResult.SUCCESS;
+            }
+        }, context);
+        root.run();
+        Assert.assertEquals(ServerMigrationTaskResult.Status.SUCCESS, root.getResult().getStatus());
+        Assert.assertEquals(Arrays.asList("a", "b", "c", "d"), getSubtaskNames(root));
+        long previousTaskNumber = root.getTaskNumber();
+        for (ServerMigrationTaskExecution subtask : root.getSubtasks()) {
+            Assert.assertNotNull(subtask.getResult());
+            Assert.assertTrue(subtask.getTaskNumber() > previousTaskNumber);
+            previousTaskNumber = subtask.getTaskNumber();
+        }
+        Assert.assertEquals(5, root.getSubtreeTaskCount());
+        Assert.assertEquals(1, root.getSubtreeTaskCount(ServerMigrationTaskResult.Status.SKIPPED));
+    }
+
+    @Test
+    public void testConcurrentSubtasksFirstFailureInOrder() {
+        final ServerMigrationContext context = newServerMigrationContext(new MigrationEnvironment());
+        final RuntimeException firstFailure = new RuntimeException("first");
+        final List<ServerMigrationTask> subtasks = new ArrayList<>();
+        subtasks.add(newTask("a", null, 100, firstFailure));
+        subtasks.add(newTask("b", null, 0, new RuntimeException("second")));
+        subtasks.add(newTask("c", ServerMigrationTaskResult.SUCCESS, 200, null));
+        final ServerMigrationTaskExecution root = new ServerMigrationTaskExecution(new ServerMigrationTask() {
+            @Override
+            public ServerMigrationTaskName getName() {
+                return new ServerMigrationTaskName.Builder().setName("root").build();
+            }
+            @Override
+            public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                context.execute(subtasks, 3);
+                return ServerMigrationTaskResult.SUCCESS;
+            }
+        }, context);
+        try {
+            root.run();
+            Assert.fail();
+        } catch (ServerMigrationFailedException e) {
+            Assert.assertSame(firstFailure, e.getCause());
+        }
+        Assert.assertEquals(ServerMigrationTaskResult.Status.FAIL, root.getResult().getStatus());
+        // the running subtasks complete before the failure is thrown
+        Assert.assertEquals(ServerMigrationTaskResult.Status.SUCCESS, root.getSubtasks().get(2).getResult().getStatus());
+    }
+
+    @Test
+    public void testSequentialSubtasksNumbering() {
+        final ServerMigrationContext context = newServerMigrationContext(new MigrationEnvironment());
+        final ServerMigrationTaskExecution root = new ServerMigrationTaskExecution(new ServerMigrationTask() {
+            @Override
+            public ServerMigrationTaskName getName() {
+                return new ServerMigrationTaskName.Builder().setName("root").build();
+            }
+            @Override
+            public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                final List<ServerMigrationTask> subtasks = new ArrayList<>();
+                subtasks.add(newTask("a", ServerMigrationTaskResult.SUCCESS, 0, null));
+                subtasks.add(newTask("b", ServerMigrationTaskResult.SUCCESS, 0, null));
+                context.execute(subtasks, 1);
+                return ServerMigrationTaskResult.SUCCESS;
+            }
+        }, context);
+        root.run();
+        Assert.assertEquals(1, root.getTaskNumber());
+        Assert.assertEquals(2, root.getSubtasks().get(0).getTaskNumber());
+        Assert.assertEquals(3, root.getSubtasks().get(1).getTaskNumber());
+    }
+
+    @Test
+    public void testSelfUsageExcludesOnlyInlineSubtasks() {
+        final ServerMigrationContext context = newServerMigrationContext(new MigrationEnvironment());
+        final Map<String, Thread> threads = new ConcurrentHashMap<>();
+        final List<ServerMigrationTask> subtasks = new ArrayList<>();
+        for (final String name : Arrays.asList("a", "b", "c", "d")) {
+            subtasks.add(new ServerMigrationTask() {
+                @Override
+                public ServerMigrationTaskName getName() {
+                    return new ServerMigrationTaskName.Builder().setName(name).build();
+                }
+                @Override
+                public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                    threads.put(name, Thread.currentThread());
+                    Thread.sleep(20);
+                    return ServerMigrationTaskResult.SUCCESS;
+                }
+            });
+        }
+        final ServerMigrationTaskExecution root = new ServerMigrationTaskExecution(new ServerMigrationTask() {
+            @Override
+            public ServerMigrationTaskName getName() {
+                return new ServerMigrationTaskName.Builder().setName("root").build();
+            }
+            @Override
+            public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                threads.put("root", Thread.currentThread());
+                context.execute(subtasks.get(0));
+                context.execute(subtasks.subList(1, subtasks.size()), 3);
+                return ServerMigrationTaskResult.SUCCESS;
+            }
+        }, context);
+        root.run();
+        Assert.assertFalse(root.isInline());
+        long expectedSelfCpuTime = root.getCpuTime();
+        for (ServerMigrationTaskExecution subtask : root.getSubtasks()) {
+            // only the subtasks run by the root's thread, within its execution, share its thread usage
+            final boolean inline = threads.get(subtask.getTaskName().getName()) == threads.get("root");
+            Assert.assertEquals(subtask.getTaskName().getName(), inline, subtask.isInline());
+            if (inline && subtask.getCpuTime() > 0) {
+                expectedSelfCpuTime -= subtask.getCpuTime();
+            }
+        }
+        Assert.assertTrue(root.getSubtasks().get(0).isInline());
+        if (root.getCpuTime() >= 0) {
+            Assert.assertEquals(expectedSelfCpuTime, root.getSelfCpuTime());
+        }
+    }
+
+    @Test
+    public void testTimeoutCancelsTask() {
+        final MigrationEnvironment migrationEnvironment = new MigrationEnvironment();
+        migrationEnvironment.setProperty("slow.timeout", "100");
+        final ServerMigrationTaskExecution taskExecution = new ServerMigrationTaskExecution(newTask("slow", ServerMigrationTaskResult.SUCCESS, 10000, null), newServerMigrationContext(migrationEnvironment));
+        final long startTime = System.nanoTime();
+        try {
+            taskExecution.run();
+            Assert.fail();
+        } catch (ServerMigrationCancelledException e) {
+            // expected
+        }
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) < 5000);
+        Assert.assertEquals(ServerMigrationTaskResult.Status.CANCELLED, taskExecution.getResult().getStatus());
+        Assert.assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    public void testMalformedTimeoutIgnored() {
+        final MigrationEnvironment migrationEnvironment = new MigrationEnvironment();
+        migrationEnvironment.setProperty("task.timeout", "10s");
+        final ServerMigrationTaskExecution taskExecution = new ServerMigrationTaskExecution(newTask("task", ServerMigrationTaskResult.SUCCESS, 0, null), newServerMigrationContext(migrationEnvironment));
+        taskExecution.run();
+        Assert.assertEquals(ServerMigrationTaskResult.Status.SUCCESS, taskExecution.getResult().getStatus());
+        Assert.assertNull(ServerMigrationTaskExecution.getCurrent());
+    }
+
+    @Test
+    public void testTimeoutUsesTaskPropertiesPrefix() {
+        final MigrationEnvironment migrationEnvironment = new MigrationEnvironment();
+        // ignored, the task defines its own prefix
+        migrationEnvironment.setProperty("slow.timeout", "10000");
+        migrationEnvironment.setProperty("custom.prefix.timeout", "100");
+        final ServerMigrationTask slowTask = newTask("slow", ServerMigrationTaskResult.SUCCESS, 10000, null);
+        final ServerMigrationTaskExecution taskExecution = new ServerMigrationTaskExecution(new EnvironmentConfiguredServerMigrationTask() {
+            @Override
+            public String getEnvironmentPropertiesPrefix() {
+                return "custom.prefix.";
+            }
+            @Override
+            public ServerMigrationTaskName getName() {
+                return slowTask.getName();
+            }
+            @Override
+            public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                return slowTask.run(context);
+            }
+        }, newServerMigrationContext(migrationEnvironment));
+        final long startTime = System.nanoTime();
+        try {
+            taskExecution.run();
+            Assert.fail();
+        } catch (ServerMigrationCancelledException e) {
+            // expected
+        }
+        Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) < 5000);
+        Assert.assertEquals(ServerMigrationTaskResult.Status.CANCELLED, taskExecution.getResult().getStatus());
+    }
+
+    @Test
+    public void testSubtreeTaskCounts() {
+        final ServerMigrationContext context = newServerMigrationContext(new MigrationEnvironment());
+        final int[] countsWhileRunning = new int[2];
+        final ServerMigrationTaskExecution root = new ServerMigrationTaskExecution(new ServerMigrationTask() {
+            @Override
+            public ServerMigrationTaskName getName() {
+                return new ServerMigrationTaskName.Builder().setName("root").build();
+            }
+            @Override
+            public ServerMigrationTaskResult run(final ServerMigrationTaskContext rootContext) throws Exception {
+                rootContext.execute(newTask("a", ServerMigrationTaskResult.SUCCESS, 0, null));
+                rootContext.execute(new ServerMigrationTask() {
+                    @Override
+                    public ServerMigrationTaskName getName() {
+                        return new ServerMigrationTaskName.Builder().setName("b").build();
+                    }
+                    @Override
+                    public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                        context.execute(newTask("b1", ServerMigrationTaskResult.SKIPPED, 0, null));
+                        context.execute(newTask("b2", ServerMigrationTaskResult.SUCCESS, 0, null));
+                        return ServerMigrationTaskResult.SUCCESS;
+                    }
+                });
+                // the aggregates are maintained while the root task runs
+                countsWhileRunning[0] = rootContext.getSubtasks().get(0).getSubtreeTaskCount();
+                countsWhileRunning[1] = rootContext.getSubtasks().get(1).getSubtreeTaskCount();
+                rootContext.execute(newTask("c", null, 0, new RuntimeException("c failed")));
+                return ServerMigrationTaskResult.SUCCESS;
+            }
+        }, context);
+        try {
+            root.run();
+            Assert.fail();
+        } catch (ServerMigrationFailedException e) {
+            // expected
+        }
+        Assert.assertEquals(1, countsWhileRunning[0]);
+        Assert.assertEquals(3, countsWhileRunning[1]);
+        Assert.assertEquals(6, root.getSubtreeTaskCount());
+        Assert.assertEquals(3, root.getSubtreeTaskCount(ServerMigrationTaskResult.Status.SUCCESS));
+        Assert.assertEquals(1, root.getSubtreeTaskCount(ServerMigrationTaskResult.Status.SKIPPED));
+        Assert.assertEquals(2, root.getSubtreeTaskCount(ServerMigrationTaskResult.Status.FAIL));
+        final ServerMigrationTaskExecution b = root.getSubtasks().get(1);
+        Assert.assertEquals(3, b.getSubtreeTaskCount());
+        Assert.assertEquals(1, b.getSubtreeTaskCount(ServerMigrationTaskResult.Status.SKIPPED));
+        Assert.assertEquals(0, b.getSubtreeTaskCount(ServerMigrationTaskResult.Status.FAIL));
+        // failed tasks in completion order
+        final List<ServerMigrationTaskExecution> failedTasks = context.getFailedTasks();
+        Assert.assertEquals(2, failedTasks.size());
+        Assert.assertSame(root.getSubtasks().get(2), failedTasks.get(0));
+        Assert.assertSame(root, failedTasks.get(1));
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core;
+
+import org.jboss.migration.core.console.JavaConsole;
+import org.jboss.migration.core.env.MigrationEnvironment;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs tasks in their own migration context, for tests outside the core package.
+ * @author emmartins
+ */
+public class ServerMigrationTaskRunner {
+
+    /**
+     * Runs a task, as the root task of a non interactive migration.
+     * @param task the task to run
+     * @param migrationEnvironment the migration's environment
+     * @return the task's execution
+     * @throws ServerMigrationFailedException if the task execution failed
+     */
+    public static ServerMigrationTaskExecution run(ServerMigrationTask task, MigrationEnvironment migrationEnvironment) throws ServerMigrationFailedException {
+        return run(task, migrationEnvironment, Collections.<ServerMigrationListener>emptyList());
+    }
+
+    /**
+     * Runs a task, as the root task of a non interactive migration, with the specified listeners.
+     * @param task the task to run
+     * @param migrationEnvironment the migration's environment
+     * @param listeners the migration's listeners
+     * @return the task's execution
+     * @throws ServerMigrationFailedException if the task execution failed
+     */
+    public static ServerMigrationTaskExecution run(ServerMigrationTask task, MigrationEnvironment migrationEnvironment, List<ServerMigrationListener> listeners) throws ServerMigrationFailedException {
+        final ServerMigrationContext context = new ServerMigrationContext(new JavaConsole(), false, migrationEnvironment, listeners, null);
+        try {
+            final ServerMigrationTaskExecution taskExecution = new ServerMigrationTaskExecution(task, context);
+            taskExecution.run();
+            return taskExecution;
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Creates the data of a migration, e.g. to test report writers.
+     * @param source the source server
+     * @param target the target server
+     * @param rootTask the migration's root task execution
+     * @param migrationEnvironment the migration's environment
+     * @return the migration data
+     */
+    public static MigrationData newMigrationData(Server source, Server target, ServerMigrationTaskExecution rootTask, MigrationEnvironment migrationEnvironment) {
+        return new MigrationData(source, target, rootTask, migrationEnvironment);
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core;
+
+import org.jboss.migration.core.env.MigrationEnvironment;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.jboss.migration.core.ServerMigrationTaskExecutionTestCase.getSubtaskNames;
+import static org.jboss.migration.core.ServerMigrationTaskExecutionTestCase.newServerMigrationContext;
+import static org.jboss.migration.core.ServerMigrationTaskExecutionTestCase.newTask;
+
+/**
+ * @author emmartins
+ */
+public class ServerMigrationTaskSchedulerTestCase {
+
+    private ServerMigrationContext context;
+    private final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void setup() {
+        final MigrationEnvironment migrationEnvironment = new MigrationEnvironment();
+        migrationEnvironment.setProperty(ServerMigrationContext.EnvironmentProperties.MAX_THREADS, "4");
+        context = newServerMigrationContext(migrationEnvironment);
+    }
+
+    @After
+    public void cleanup() {
+        context.close();
+    }
+
+    private ServerMigrationTask newRecordingTask(final String name, final long sleep, final RuntimeException failure) {
+        final ServerMigrationTaskName taskName = new ServerMigrationTaskName.Builder().setName(name).build();
+        return new ServerMigrationTask() {
+            @Override
+            public ServerMigrationTaskName getName() {
+                return taskName;
+            }
+            @Override
+            public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                events.add(name + ".start");
+                Thread.sleep(sleep);
+                events.add(name + ".end");
+                if (failure != null) {
+                    throw failure;
+                }
+                return ServerMigrationTaskResult.SUCCESS;
+            }
+        };
+    }
+
+    private ServerMigrationTaskExecution newRootTaskExecution(final ServerMigrationTask task) {
+        return new ServerMigrationTaskExecution(task, context);
+    }
+
+    private void assertBefore(String first, String second) {
+        final int firstIndex = events.indexOf(first);
+        final int secondIndex = events.indexOf(second);
+        Assert.assertTrue(first + " not found in " + events, firstIndex >= 0);
+        Assert.assertTrue(second + " not found in " + events, secondIndex >= 0);
+        Assert.assertTrue(first + " not before " + second + " in " + events, firstIndex < secondIndex);
+    }
+
+    private static void assertCausedBy(Throwable cause, Throwable t) {
+        for (Throwable current = t; current != null; current = current.getCause()) {
+            if (current == cause) {
+                return;
+            }
+        }
+        Assert.fail(t + " not caused by " + cause);
+    }
+
+    @Test
+    public void testDependencyOrder() {
+        final ServerMigrationTaskExecution root = newRootTaskExecution(new ServerMigrationTask() {
+            @Override
+            public ServerMigrationTaskName getName() {
+                return new ServerMigrationTaskName.Builder().setName("root").build();
+            }
+            @Override
+            public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                final ScheduledServerMigrationTask a = context.submit(newRecordingTask("a", 100, null));
+                final ScheduledServerMigrationTask b = context.submit(newRecordingTask("b", 50, null), a);
+                final ScheduledServerMigrationTask c = context.submit(newRecordingTask("c", 10, null));
+                context.submit(newRecordingTask("d", 0, null), b, c);
+                context.awaitSubtasks();
+                Assert.assertTrue(a.isDone() && b.isDone() && c.isDone());
+                return ServerMigrationTaskResult.SUCCESS;
+            }
+        });
+        root.run();
+        Assert.assertEquals(ServerMigrationTaskResult.Status.SUCCESS, root.getResult().getStatus());
+        assertBefore("a.end", "b.start");
+        assertBefore("b.end", "d.start");
+        assertBefore("c.end", "d.start");
+        // independent subtasks run concurrently
+        assertBefore("c.end", "a.end");
+        // the subtasks keep submission order, not completion order
+        Assert.assertEquals(Arrays.asList("a", "b", "c", "d"), getSubtaskNames(root));
+    }
+
+    @Test
+    public void testDependencyOrderWithoutExecutor() {
+        context.close();
+        context = newServerMigrationContext(new MigrationEnvironment());
+        final ServerMigrationTaskExecution root = newRootTaskExecution(new ServerMigrationTask() {
+            @Override
+            public ServerMigrationTaskName getName() {
+                return new ServerMigrationTaskName.Builder().setName("root").build();
+            }
+            @Override
+            public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                final ScheduledServerMigrationTask b = context.submit(newRecordingTask("b", 0, null));
+                final ScheduledServerMigrationTask a = context.submit(newRecordingTask("a", 0, null));
+                context.submit(newRecordingTask("c", 0, null), a, b);
+                // not awaited by the task
+                return ServerMigrationTaskResult.SUCCESS;
+            }
+        });
+        root.run();
+        Assert.assertEquals(Arrays.asList("b.start", "b.end", "a.start", "a.end", "c.start", "c.end"), events);
+        Assert.assertEquals(Arrays.asList("b", "a", "c"), getSubtaskNames(root));
+        for (ServerMigrationTaskExecution subtask : root.getSubtasks()) {
+            Assert.assertEquals(ServerMigrationTaskResult.Status.SUCCESS, subtask.getResult().getStatus());
+        }
+    }
+
+    @Test
+    public void testFailurePropagation() {
+        final RuntimeException failure = new RuntimeException("a failed");
+        final ServerMigrationTaskExecution root = newRootTaskExecution(new ServerMigrationTask() {
+            @Override
+            public ServerMigrationTaskName getName() {
+                return new ServerMigrationTaskName.Builder().setName("root").build();
+            }
+            @Override
+            public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                final ScheduledServerMigrationTask a = context.submit(newRecordingTask("a", 100, failure));
+                context.submit(newRecordingTask("b", 0, null), a);
+                context.submit(newRecordingTask("c", 200, null));
+                context.awaitSubtasks();
+                return ServerMigrationTaskResult.SUCCESS;
+            }
+        });
+        try {
+            root.run();
+            Assert.fail();
+        } catch (ServerMigrationFailedException e) {
+            assertCausedBy(failure, e);
+        }
+        Assert.assertEquals(ServerMigrationTaskResult.Status.FAIL, root.getResult().getStatus());
+        // the dependent subtask was never started, and the running one completed
+        Assert.assertFalse(events.contains("b.start"));
+        Assert.assertEquals(Arrays.asList("a", "c"), getSubtaskNames(root));
+        Assert.assertEquals(ServerMigrationTaskResult.Status.FAIL, root.getSubtasks().get(0).getResult().getStatus());
+        Assert.assertEquals(ServerMigrationTaskResult.Status.SUCCESS, root.getSubtasks().get(1).getResult().getStatus());
+    }
+
+    @Test
+    public void testTaskFailureAwaitsSubmittedSubtasks() {
+        final RuntimeException failure = new RuntimeException("root failed");
+        final ServerMigrationTaskExecution root = newRootTaskExecution(new ServerMigrationTask() {
+            @Override
+            public ServerMigrationTaskName getName() {
+                return new ServerMigrationTaskName.Builder().setName("root").build();
+            }
+            @Override
+            public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                final ScheduledServerMigrationTask a = context.submit(newRecordingTask("a", 200, null));
+                context.submit(newRecordingTask("b", 0, null), a);
+                while (!events.contains("a.start")) {
+                    Thread.sleep(10);
+                }
+                throw failure;
+            }
+        });
+        try {
+            root.run();
+            Assert.fail();
+        } catch (ServerMigrationFailedException e) {
+            assertCausedBy(failure, e);
+        }
+        // the running subtask completed before the task result was set, and the dependent one was never started
+        Assert.assertTrue(events.contains("a.end"));
+        Assert.assertFalse(events.contains("b.start"));
+        Assert.assertEquals(Arrays.asList("a"), getSubtaskNames(root));
+        Assert.assertNotNull(root.getSubtasks().get(0).getResult());
+    }
+
+    @Test
+    public void testInterruptedAwait() throws Exception {
+        final AtomicReference<Throwable> awaitFailure = new AtomicReference<>();
+        final AtomicBoolean subtaskInterrupted = new AtomicBoolean();
+        final ServerMigrationTaskExecution root = newRootTaskExecution(new ServerMigrationTask() {
+            @Override
+            public ServerMigrationTaskName getName() {
+                return new ServerMigrationTaskName.Builder().setName("root").build();
+            }
+            @Override
+            public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                context.submit(new ServerMigrationTask() {
+                    @Override
+                    public ServerMigrationTaskName getName() {
+                        return new ServerMigrationTaskName.Builder().setName("blocked").build();
+                    }
+                    @Override
+                    public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                        try {
+                            Thread.sleep(10000);
+                        } catch (InterruptedException e) {
+                            subtaskInterrupted.set(true);
+                            throw e;
+                        }
+                        return ServerMigrationTaskResult.SUCCESS;
+                    }
+                });
+                try {
+                    context.awaitSubtasks();
+                } catch (ServerMigrationFailedException e) {
+                    awaitFailure.set(e);
+                    throw e;
+                }
+                return ServerMigrationTaskResult.SUCCESS;
+            }
+        });
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    root.run();
+                } catch (ServerMigrationFailedException e) {
+                    // expected
+                }
+            }
+        });
+        thread.start();
+        Thread.sleep(200);
+        thread.interrupt();
+        thread.join(5000);
+        Assert.assertFalse(thread.isAlive());
+        Assert.assertNotNull(awaitFailure.get());
+        Assert.assertTrue(subtaskInterrupted.get());
+        // the scheduler completed, and the subtask has a result
+        Assert.assertNotNull(root.getSubtasks().get(0).getResult());
+        Assert.assertNotEquals(ServerMigrationTaskResult.Status.SUCCESS, root.getSubtasks().get(0).getResult().getStatus());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDependencyOfAnotherScheduler() {
+        final ServerMigrationTaskExecution first = newRootTaskExecution(newTask("first", ServerMigrationTaskResult.SUCCESS, 0, null));
+        final ServerMigrationTaskExecution second = newRootTaskExecution(newTask("second", ServerMigrationTaskResult.SUCCESS, 0, null));
+        final ScheduledServerMigrationTask dependency = first.submit(newTask("a", ServerMigrationTaskResult.SUCCESS, 0, null));
+        first.awaitSubtasks();
+        second.submit(newTask("b", ServerMigrationTaskResult.SUCCESS, 0, null), dependency);
+    }
+}
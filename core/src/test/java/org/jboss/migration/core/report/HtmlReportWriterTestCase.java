@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core.report;
+
+import org.jboss.migration.core.MigrationData;
+import org.jboss.migration.core.ProductInfo;
+import org.jboss.migration.core.ServerMigrationTask;
+import org.jboss.migration.core.ServerMigrationTaskContext;
+import org.jboss.migration.core.ServerMigrationTaskExecution;
+import org.jboss.migration.core.ServerMigrationTaskName;
+import org.jboss.migration.core.ServerMigrationTaskResult;
+import org.jboss.migration.core.ServerMigrationTaskRunner;
+import org.jboss.migration.core.env.MigrationEnvironment;
+import org.jboss.migration.core.ts.TestServer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+
+/**
+ * @author emmartins
+ */
+public class HtmlReportWriterTestCase {
+
+    private static final String TEMPLATE = "<html><body>$SUMMARY$ENVIRONMENT$TASK_SUMMARY$TASK_MAP</body></html>";
+
+    private static ServerMigrationTask newTask(String name, final int subtasks) {
+        final ServerMigrationTaskName taskName = new ServerMigrationTaskName.Builder().setName(name).build();
+        return new ServerMigrationTask() {
+            @Override
+            public ServerMigrationTaskName getName() {
+                return taskName;
+            }
+            @Override
+            public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                for (int i = 0; i < subtasks; i++) {
+                    context.execute(newTask("subtask-" + i, 0));
+                }
+                return ServerMigrationTaskResult.SUCCESS;
+            }
+        };
+    }
+
+    private static MigrationData newMigrationData(ServerMigrationTask rootTask) {
+        final MigrationEnvironment migrationEnvironment = new MigrationEnvironment();
+        final ServerMigrationTaskExecution rootTaskExecution = ServerMigrationTaskRunner.run(rootTask, migrationEnvironment);
+        final ProductInfo productInfo = new ProductInfo("test", "1.0");
+        final TestServer server = new TestServer(productInfo, Collections.singleton(productInfo));
+        return ServerMigrationTaskRunner.newMigrationData(server, server, rootTaskExecution, migrationEnvironment);
+    }
+
+    private static int count(String string, String substring) {
+        int count = 0;
+        for (int i = string.indexOf(substring); i != -1; i = string.indexOf(substring, i + substring.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void testTaskMapScriptIncluded() {
+        final MigrationData migrationData = newMigrationData(newTask("root", 2));
+        final String report = HtmlReportWriter.INSTANCE.toString(migrationData, HtmlReportWriter.ReportTemplate.from(TEMPLATE));
+        Assert.assertEquals(1, count(report, "function addTasks"));
+        Assert.assertEquals(1, count(report, "function renderTaskMap"));
+        Assert.assertEquals(1, count(report, "addTasks(["));
+        Assert.assertTrue(report.contains("renderTaskMap(document.getElementById('task-map-tree'), {\"maxTaskPathSizeToDisplaySubtasks\":4,\"root\":" + migrationData.getRootTask().getTaskNumber() + "});"));
+    }
+
+    @Test
+    public void testTaskMapScriptDefinedByTemplate() {
+        final String template = "<html><head><script>function addTasks(chunk) {} function renderTaskMap(container, options) {}</script></head><body>$SUMMARY$ENVIRONMENT$TASK_SUMMARY$TASK_MAP</body></html>";
+        final String report = HtmlReportWriter.INSTANCE.toString(newMigrationData(newTask("root", 2)), HtmlReportWriter.ReportTemplate.from(template));
+        Assert.assertEquals(1, count(report, "function addTasks"));
+        Assert.assertEquals(1, count(report, "function renderTaskMap"));
+    }
+
+    @Test
+    public void testTaskMapChunks() {
+        final MigrationData migrationData = newMigrationData(newTask("root", 1200));
+        final String report = HtmlReportWriter.INSTANCE.toString(migrationData, HtmlReportWriter.ReportTemplate.from(TEMPLATE));
+        // the root task and its 1200 subtasks, in chunks of 500 tasks
+        Assert.assertEquals(3, count(report, "addTasks(["));
+        Assert.assertEquals(1201, count(report, "{\"n\":"));
+        Assert.assertEquals(1200, count(report, ",\"p\":" + migrationData.getRootTask().getTaskNumber() + ","));
+    }
+
+    @Test
+    public void testTaskNameEscaped() {
+        final String report = HtmlReportWriter.INSTANCE.toString(newMigrationData(newTask("</script><script>alert(1)</script>", 0)), HtmlReportWriter.ReportTemplate.from(TEMPLATE));
+        Assert.assertFalse(report.contains("</script><script>alert(1)"));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core.ts;
+
+import org.jboss.migration.core.MigrationData;
+import org.jboss.migration.core.ServerMigration;
+import org.jboss.migration.core.report.XmlReportWriter;
+import org.jboss.migration.core.util.xml.XMLIOProvider;
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * @author emmartins
+ */
+public class XmlReportTestCase {
+
+    private static final String NAMESPACE = "urn:jboss:server-migration:1.0";
+
+    @Test
+    public void testTaskLoggers() throws Exception {
+        final MigrationData migrationData = new ServerMigration().from(TestSourceServerProvider.SERVER.getBaseDir()).to(TestTargetServerProvider.SERVER.getBaseDir()).run();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final XMLStreamWriter writer = XMLIOProvider.getInstance().getOutputFactory().createXMLStreamWriter(out);
+        XmlReportWriter.INSTANCE.writeContent(writer, migrationData);
+        writer.close();
+        final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        documentBuilderFactory.setNamespaceAware(true);
+        final Document document = documentBuilderFactory.newDocumentBuilder().parse(new ByteArrayInputStream(out.toByteArray()));
+        Assert.assertEquals(NAMESPACE, document.getDocumentElement().getNamespaceURI());
+        final NodeList tasks = document.getElementsByTagNameNS(NAMESPACE, "task");
+        Assert.assertTrue(tasks.getLength() > 0);
+        for (int i = 0; i < tasks.getLength(); i++) {
+            final Element task = (Element) tasks.item(i);
+            final Element logger = (Element) task.getElementsByTagNameNS(NAMESPACE, "logger").item(0);
+            Assert.assertEquals(migrationData.getRootTask().getLogger().getName() + '#' + task.getAttribute("number"), logger.getAttribute("logger"));
+            Assert.assertFalse(logger.hasAttribute("mdc"));
+        }
+    }
+}
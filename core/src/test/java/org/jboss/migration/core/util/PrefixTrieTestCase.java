@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author emmartins
+ */
+public class PrefixTrieTestCase {
+
+    @Test
+    public void testLongestPrefix() {
+        final PrefixTrie<String> trie = new PrefixTrie<String>()
+                .put("urn:jboss:domain:", "domain")
+                .put("urn:jboss:domain:ee:", "ee")
+                .put("urn:jboss:domain:ejb3:", "ejb3");
+        Assert.assertEquals("ee", trie.getLongestPrefixValue("urn:jboss:domain:ee:4.0"));
+        Assert.assertEquals("ejb3", trie.getLongestPrefixValue("urn:jboss:domain:ejb3:4.0"));
+        Assert.assertEquals("domain", trie.getLongestPrefixValue("urn:jboss:domain:ejb:1.0"));
+        Assert.assertEquals("domain", trie.getLongestPrefixValue("urn:jboss:domain:"));
+        Assert.assertTrue(trie.matches("urn:jboss:domain:web:1.0"));
+    }
+
+    @Test
+    public void testNoMatch() {
+        final PrefixTrie<String> trie = new PrefixTrie<String>()
+                .put("urn:jboss:domain:ee:", "ee");
+        Assert.assertNull(trie.getLongestPrefixValue("urn:jboss:domain:e"));
+        Assert.assertNull(trie.getLongestPrefixValue("urn:jboss:domain:ejb3:4.0"));
+        Assert.assertNull(trie.getLongestPrefixValue(""));
+        Assert.assertFalse(trie.matches("urn:wildfly:ee:1.0"));
+    }
+
+    @Test
+    public void testEmptyPrefix() {
+        final PrefixTrie<String> trie = new PrefixTrie<String>()
+                .put("", "any")
+                .put("urn:", "urn");
+        Assert.assertEquals("any", trie.getLongestPrefixValue(""));
+        Assert.assertEquals("any", trie.getLongestPrefixValue("http://"));
+        Assert.assertEquals("urn", trie.getLongestPrefixValue("urn:jboss"));
+    }
+
+    @Test
+    public void testReplaceValue() {
+        final PrefixTrie<String> trie = new PrefixTrie<String>()
+                .put("urn:jboss:domain:ee:", "ee")
+                .put("urn:jboss:domain:ee:", "ee4");
+        Assert.assertEquals("ee4", trie.getLongestPrefixValue("urn:jboss:domain:ee:4.0"));
+    }
+}
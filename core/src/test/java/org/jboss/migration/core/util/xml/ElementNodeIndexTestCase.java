@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core.util.xml;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author emmartins
+ */
+public class ElementNodeIndexTestCase {
+
+    private ElementNode server;
+    private ElementNodeIndex index;
+
+    private static ElementNode addElement(ElementNode parent, String name, String... attributes) {
+        final ElementNode element = parent != null ? new ElementNode(parent, name) : new ElementNode(null, name, null);
+        for (int i = 0; i < attributes.length; i += 2) {
+            element.addAttribute(attributes[i], new AttributeValue(attributes[i + 1]));
+        }
+        if (parent != null) {
+            parent.addChild(element);
+        }
+        return element;
+    }
+
+    private static List<String> ids(List<ElementNode> elements) {
+        final List<String> ids = new ArrayList<>();
+        for (ElementNode element : elements) {
+            ids.add(element.getAttributeValue("id"));
+        }
+        return ids;
+    }
+
+    private List<String> select(String expression) {
+        return ids(index.select(expression));
+    }
+
+    @Before
+    public void setUp() {
+        server = addElement(null, "server", "id", "server");
+        final ElementNode profile = addElement(server, "profile", "id", "profile");
+        final ElementNode datasourcesSubsystem = addElement(profile, "subsystem", "id", "subsystem-ds", "name", "datasources");
+        final ElementNode datasources = addElement(datasourcesSubsystem, "datasources", "id", "datasources");
+        addElement(datasources, "datasource", "id", "ds-a", "jndi-name", "java:/A", "enabled", "true");
+        addElement(datasources, "datasource", "id", "ds-b", "jndi-name", "java:/B]", "enabled", "false");
+        final ElementNode webSubsystem = addElement(profile, "subsystem", "id", "subsystem-web", "name", "web");
+        addElement(webSubsystem, "datasource", "id", "ds-c", "jndi-name", "x/y");
+        final ElementNode interfaces = addElement(server, "interfaces", "id", "interfaces");
+        addElement(interfaces, "interface", "id", "interface", "name", "public");
+        index = new ElementNodeIndex(server);
+    }
+
+    @Test
+    public void testChildSteps() {
+        Assert.assertEquals(Arrays.asList("server"), select("/server"));
+        Assert.assertEquals(Arrays.asList("subsystem-ds", "subsystem-web"), select("/server/profile/subsystem"));
+        Assert.assertEquals(Arrays.asList("ds-a", "ds-b"), select("/server/profile/subsystem/datasources/datasource"));
+        // the root element is the only child of the document
+        Assert.assertTrue(select("/profile").isEmpty());
+        Assert.assertTrue(select("/server/subsystem").isEmpty());
+    }
+
+    @Test
+    public void testDescendantSteps() {
+        Assert.assertEquals(Arrays.asList("ds-a", "ds-b", "ds-c"), select("//datasource"));
+        Assert.assertEquals(Arrays.asList("ds-a", "ds-b", "ds-c"), select("/server//datasource"));
+        Assert.assertEquals(Arrays.asList("ds-a", "ds-b"), select("//datasources//datasource"));
+        Assert.assertEquals(Arrays.asList("ds-c"), select("//subsystem/datasource"));
+        Assert.assertEquals(Arrays.asList("server"), select("//server"));
+        Assert.assertTrue(select("//interfaces//datasource").isEmpty());
+    }
+
+    @Test
+    public void testAnyName() {
+        Assert.assertEquals(Arrays.asList("profile", "interfaces"), select("/server/*"));
+        Assert.assertEquals(Arrays.asList("datasources", "ds-c"), select("//subsystem/*"));
+        Assert.assertEquals(Arrays.asList("server", "profile", "subsystem-ds", "datasources", "ds-a", "ds-b", "subsystem-web", "ds-c", "interfaces", "interface"), select("//*"));
+    }
+
+    @Test
+    public void testRelativePaths() {
+        // relative to the root element
+        Assert.assertEquals(Arrays.asList("subsystem-ds", "subsystem-web"), select("profile/subsystem"));
+        Assert.assertEquals(Arrays.asList("ds-a", "ds-b", "ds-c"), select("profile//datasource"));
+        Assert.assertEquals(Arrays.asList("interface"), select("*/interface"));
+        Assert.assertTrue(select("server").isEmpty());
+    }
+
+    @Test
+    public void testPredicates() {
+        Assert.assertEquals(Arrays.asList("ds-a", "ds-b"), select("//datasource[@enabled]"));
+        Assert.assertEquals(Arrays.asList("ds-a"), select("//datasource[@jndi-name='java:/A']"));
+        Assert.assertEquals(Arrays.asList("ds-a"), select("//datasource[@jndi-name=\"java:/A\"]"));
+        Assert.assertEquals(Arrays.asList("ds-a"), select("//datasource[@jndi-name='java:/A'][@enabled='true']"));
+        Assert.assertTrue(select("//datasource[@jndi-name='java:/A'][@enabled='false']").isEmpty());
+        Assert.assertEquals(Arrays.asList("interface"), select("//*[@name='public']"));
+        Assert.assertEquals(Arrays.asList("ds-c"), select("/server/profile/subsystem[@name='web']/datasource"));
+        Assert.assertTrue(select("//datasource[@unknown]").isEmpty());
+        Assert.assertTrue(select("//datasource[@jndi-name='unknown']").isEmpty());
+    }
+
+    @Test
+    public void testQuotedPredicateValues() {
+        // quoted values may contain ']' and '/'
+        Assert.assertEquals(Arrays.asList("ds-b"), select("//datasource[@jndi-name='java:/B]']"));
+        Assert.assertEquals(Arrays.asList("ds-b"), select("//datasource[@jndi-name='java:/B]'][@enabled='false']"));
+        Assert.assertEquals(Arrays.asList("ds-c"), select("//datasource[@jndi-name='x/y']"));
+        Assert.assertEquals(Arrays.asList("ds-c"), select("//subsystem[@name=\"web\"]/datasource[@jndi-name='x/y']"));
+    }
+
+    @Test
+    public void testSelectFirst() {
+        Assert.assertEquals("ds-a", index.selectFirst("//datasource").getAttributeValue("id"));
+        Assert.assertNull(index.selectFirst("//unknown"));
+    }
+
+    @Test
+    public void testInvalidExpressions() {
+        for (String expression : Arrays.asList("", "/", "//", "/server/", "/server//", "/server[name]", "/server[@id", "/server[@id='server]", "/server[@id=server]", "/server[@id='server\"]", "/server[@id='server']x")) {
+            try {
+                index.select(expression);
+                Assert.fail(expression);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testSnapshot() {
+        Assert.assertEquals(Arrays.asList("interface"), select("//interface"));
+        addElement(server, "interface", "id", "added");
+        Assert.assertEquals(Arrays.asList("interface"), select("//interface"));
+        Assert.assertEquals(Arrays.asList("interface", "added"), ids(new ElementNodeIndex(server).select("//interface")));
+    }
+}
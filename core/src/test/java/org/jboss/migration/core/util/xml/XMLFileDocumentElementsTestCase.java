@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core.util.xml;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * @author emmartins
+ */
+public class XMLFileDocumentElementsTestCase {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static void write(Path path, String content) throws IOException {
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String largeComment(int size) {
+        final StringBuilder sb = new StringBuilder("<!--");
+        for (int i = 0; i < size; i++) {
+            sb.append('x');
+        }
+        return sb.append("-->").toString();
+    }
+
+    @Test
+    public void testDocumentElementInHeader() throws IOException {
+        final Path xmlFile = temporaryFolder.newFile("standalone.xml").toPath();
+        // the header is parsed without the rest of the document, which is malformed
+        write(xmlFile, "<?xml version=\"1.0\"?><server xmlns=\"urn:jboss:domain:4.0\"><a>" + largeComment(16 * 1024) + "</b></server>");
+        Assert.assertEquals(new QName("urn:jboss:domain:4.0", "server"), XMLFileDocumentElements.getDocumentElementName(xmlFile));
+    }
+
+    @Test
+    public void testDocumentElementAfterHeader() throws IOException {
+        final Path xmlFile = temporaryFolder.newFile("standalone.xml").toPath();
+        write(xmlFile, "<?xml version=\"1.0\"?>" + largeComment(16 * 1024) + "<server xmlns=\"urn:jboss:domain:4.0\"/>");
+        Assert.assertEquals(new QName("urn:jboss:domain:4.0", "server"), XMLFileDocumentElements.getDocumentElementName(xmlFile));
+    }
+
+    @Test
+    public void testChangedFileParsedAgain() throws IOException {
+        final Path xmlFile = temporaryFolder.newFile("standalone.xml").toPath();
+        write(xmlFile, "<server xmlns=\"urn:jboss:domain:4.0\"/>");
+        final FileTime lastModifiedTime = Files.getLastModifiedTime(xmlFile);
+        Assert.assertEquals(new QName("urn:jboss:domain:4.0", "server"), XMLFileDocumentElements.getDocumentElementName(xmlFile));
+        write(xmlFile, "<domain xmlns=\"urn:jboss:domain:4.0\"/>");
+        // same size, the modified time must differ
+        Files.setLastModifiedTime(xmlFile, FileTime.fromMillis(lastModifiedTime.toMillis() + 2000));
+        Assert.assertEquals(new QName("urn:jboss:domain:4.0", "domain"), XMLFileDocumentElements.getDocumentElementName(xmlFile));
+    }
+
+    @Test
+    public void testMalformedFile() throws IOException {
+        final Path xmlFile = temporaryFolder.newFile("standalone.xml").toPath();
+        write(xmlFile, "not xml");
+        try {
+            XMLFileDocumentElements.getDocumentElementName(xmlFile);
+            Assert.fail();
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core.util.xml;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author emmartins
+ */
+public class XMLFileFilterAdapterTestCase {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private String filter(String xml, XMLFileFilter... filters) throws IOException {
+        final Path xmlFile = temporaryFolder.newFile().toPath();
+        Files.write(xmlFile, xml.getBytes(StandardCharsets.UTF_8));
+        XMLFiles.filter(xmlFile, filters);
+        final String content = new String(Files.readAllBytes(xmlFile), StandardCharsets.UTF_8);
+        // skip the xml declaration
+        return content.substring(content.indexOf("?>") + 2);
+    }
+
+    @Test
+    public void testEventsFollowStartElement() throws IOException {
+        final List<String> events = new ArrayList<>();
+        final String result = filter("<a><b>text</b></a>", new XMLFileFilter() {
+            @Override
+            public Result filter(StartElement startElement, XMLEventReader xmlEventReader, XMLEventWriter xmlEventWriter) throws IOException {
+                if (!startElement.getName().getLocalPart().equals("b")) {
+                    return Result.NOT_APPLICABLE;
+                }
+                try {
+                    // the delivered start element is already consumed
+                    events.add(String.valueOf(xmlEventReader.peek().getEventType()));
+                    events.add(xmlEventReader.nextEvent().asCharacters().getData());
+                    events.add(xmlEventReader.nextEvent().asEndElement().getName().getLocalPart());
+                } catch (XMLStreamException e) {
+                    throw new IOException(e);
+                }
+                return Result.REMOVE;
+            }
+        });
+        Assert.assertEquals(String.valueOf(XMLEvent.CHARACTERS), events.get(0));
+        Assert.assertEquals("text", events.get(1));
+        Assert.assertEquals("b", events.get(2));
+        Assert.assertEquals("<a></a>", result);
+    }
+
+    @Test
+    public void testPeekedEventKept() throws IOException {
+        // keeps the b elements which text is not "remove", by peeking the text
+        final String result = filter("<a><b>remove</b><b>keep</b><c><b>remove</b></c></a>", new XMLFileFilter() {
+            @Override
+            public Result filter(StartElement startElement, XMLEventReader xmlEventReader, XMLEventWriter xmlEventWriter) throws IOException {
+                if (!startElement.getName().getLocalPart().equals("b")) {
+                    return Result.NOT_APPLICABLE;
+                }
+                try {
+                    final XMLEvent next = xmlEventReader.peek();
+                    return next.isCharacters() && next.asCharacters().getData().equals("remove") ? Result.REMOVE : Result.KEEP;
+                } catch (XMLStreamException e) {
+                    throw new IOException(e);
+                }
+            }
+        });
+        Assert.assertEquals("<a><b>keep</b><c></c></a>", result);
+    }
+
+    @Test
+    public void testPartiallyReadElementRemoved() throws IOException {
+        final String result = filter("<a><b><c>c</c><d>d</d></b><e>e</e></a>", new XMLFileFilter() {
+            @Override
+            public Result filter(StartElement startElement, XMLEventReader xmlEventReader, XMLEventWriter xmlEventWriter) throws IOException {
+                if (!startElement.getName().getLocalPart().equals("b")) {
+                    return Result.NOT_APPLICABLE;
+                }
+                try {
+                    Assert.assertEquals("c", xmlEventReader.nextTag().asStartElement().getName().getLocalPart());
+                    Assert.assertEquals("c", xmlEventReader.getElementText());
+                } catch (XMLStreamException e) {
+                    throw new IOException(e);
+                }
+                return Result.REMOVE;
+            }
+        });
+        Assert.assertEquals("<a><e>e</e></a>", result);
+    }
+
+    @Test
+    public void testReadElementReplaced() throws IOException {
+        final String result = filter("<a><b>b</b><c>c</c></a>", new XMLFileFilter() {
+            @Override
+            public Result filter(StartElement startElement, XMLEventReader xmlEventReader, XMLEventWriter xmlEventWriter) throws IOException {
+                if (!startElement.getName().getLocalPart().equals("b")) {
+                    return Result.NOT_APPLICABLE;
+                }
+                try {
+                    // reads the whole element, and writes a replacement
+                    final String text = xmlEventReader.getElementText();
+                    xmlEventWriter.add(startElement);
+                    xmlEventWriter.add(new XMLEventReaderOf(text));
+                } catch (XMLStreamException e) {
+                    throw new IOException(e);
+                }
+                return Result.REMOVE;
+            }
+        });
+        Assert.assertEquals("<a><b>B</b><c>c</c></a>", result);
+    }
+
+    @Test
+    public void testFiltersAfterProcessedElementNotInvoked() throws IOException {
+        final List<String> invoked = new ArrayList<>();
+        final String result = filter("<a><b>b</b></a>", new XMLFileFilter() {
+            @Override
+            public Result filter(StartElement startElement, XMLEventReader xmlEventReader, XMLEventWriter xmlEventWriter) throws IOException {
+                if (startElement.getName().getLocalPart().equals("b")) {
+                    try {
+                        xmlEventReader.peek();
+                    } catch (XMLStreamException e) {
+                        throw new IOException(e);
+                    }
+                }
+                return Result.NOT_APPLICABLE;
+            }
+        }, new XMLFileFilter() {
+            @Override
+            public Result filter(StartElement startElement, XMLEventReader xmlEventReader, XMLEventWriter xmlEventWriter) throws IOException {
+                invoked.add(startElement.getName().getLocalPart());
+                return Result.NOT_APPLICABLE;
+            }
+        });
+        Assert.assertEquals("<a><b>b</b></a>", result);
+        Assert.assertEquals(1, invoked.size());
+        Assert.assertEquals("a", invoked.get(0));
+    }
+
+    /**
+     * An event reader of the upper case text and end element of the replaced b element.
+     */
+    private static class XMLEventReaderOf implements XMLEventReader {
+        private final List<XMLEvent> events = new ArrayList<>();
+        XMLEventReaderOf(String text) {
+            final XMLEventFactory xmlEventFactory = XMLIOProvider.getInstance().getEventFactory();
+            events.add(xmlEventFactory.createCharacters(text.toUpperCase()));
+            events.add(xmlEventFactory.createEndElement("", "", "b"));
+        }
+        @Override
+        public XMLEvent nextEvent() {
+            return events.remove(0);
+        }
+        @Override
+        public boolean hasNext() {
+            return !events.isEmpty();
+        }
+        @Override
+        public XMLEvent peek() {
+            return events.isEmpty() ? null : events.get(0);
+        }
+        @Override
+        public String getElementText() {
+            throw new UnsupportedOperationException();
+        }
+        @Override
+        public XMLEvent nextTag() {
+            throw new UnsupportedOperationException();
+        }
+        @Override
+        public Object getProperty(String name) {
+            return null;
+        }
+        @Override
+        public void close() {
+        }
+        @Override
+        public Object next() {
+            return nextEvent();
+        }
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
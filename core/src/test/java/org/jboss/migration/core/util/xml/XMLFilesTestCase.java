@@ -0,0 +1,182 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core.util.xml;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author emmartins
+ */
+public class XMLFilesTestCase {
+
+    private static final String XML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><a xmlns=\"urn:test\"><b>b</b><c>c</c></a>";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static void write(Path path, String content) throws IOException {
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+
+    private static int countFiles(Path dir) throws IOException {
+        int count = 0;
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(dir)) {
+            for (Path ignored : directoryStream) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static XMLFileStreamFilter removeElement(final String localName) {
+        return new XMLFileStreamFilter() {
+            @Override
+            public XMLFileFilter.Result filter(XMLStreamReader xmlStreamReader, XMLStreamWriter xmlStreamWriter) throws IOException {
+                return xmlStreamReader.getLocalName().equals(localName) ? XMLFileFilter.Result.REMOVE : XMLFileFilter.Result.NOT_APPLICABLE;
+            }
+        };
+    }
+
+    @Test
+    public void testStreamFilterReplacesFile() throws IOException {
+        final Path dir = temporaryFolder.getRoot().toPath();
+        final Path xmlFile = dir.resolve("test.xml");
+        write(xmlFile, XML);
+        XMLFiles.streamFilter(xmlFile, removeElement("b"));
+        final String content = read(xmlFile);
+        Assert.assertFalse(content.contains("<b>"));
+        Assert.assertTrue(content.contains("<c>c</c>"));
+        // the temp file was moved onto the xml file
+        Assert.assertEquals(1, countFiles(dir));
+    }
+
+    @Test
+    public void testFailedFilterKeepsTarget() throws IOException {
+        final Path dir = temporaryFolder.getRoot().toPath();
+        final Path source = dir.resolve("source.xml");
+        final Path target = dir.resolve("target.xml");
+        write(source, XML);
+        write(target, "<target/>");
+        try {
+            XMLFiles.streamCopy(source, target, new XMLFileStreamFilter() {
+                @Override
+                public XMLFileFilter.Result filter(XMLStreamReader xmlStreamReader, XMLStreamWriter xmlStreamWriter) throws IOException {
+                    if (xmlStreamReader.getLocalName().equals("c")) {
+                        throw new IOException("filter failed");
+                    }
+                    return XMLFileFilter.Result.NOT_APPLICABLE;
+                }
+            });
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals("filter failed", e.getMessage());
+        }
+        Assert.assertEquals("<target/>", read(target));
+        Assert.assertEquals(2, countFiles(dir));
+    }
+
+    @Test
+    public void testMalformedSourceKeepsTarget() throws IOException {
+        final Path dir = temporaryFolder.getRoot().toPath();
+        final Path xmlFile = dir.resolve("test.xml");
+        final String malformed = "<a><b></a>";
+        write(xmlFile, malformed);
+        try {
+            XMLFiles.streamFilter(xmlFile, removeElement("b"));
+            Assert.fail();
+        } catch (IOException e) {
+            // expected
+        }
+        Assert.assertEquals(malformed, read(xmlFile));
+        Assert.assertEquals(1, countFiles(dir));
+    }
+
+    @Test
+    public void testFilterKeepsPermissions() throws IOException {
+        final Path dir = temporaryFolder.getRoot().toPath();
+        final Path xmlFile = dir.resolve("test.xml");
+        write(xmlFile, XML);
+        final PosixFileAttributeView attributeView = Files.getFileAttributeView(xmlFile, PosixFileAttributeView.class);
+        if (attributeView == null) {
+            // not a posix file system
+            return;
+        }
+        final Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r-----");
+        attributeView.setPermissions(permissions);
+        XMLFiles.streamFilter(xmlFile, removeElement("b"));
+        Assert.assertEquals(permissions, Files.getFileAttributeView(xmlFile, PosixFileAttributeView.class).readAttributes().permissions());
+    }
+
+    @Test
+    public void testScan() throws IOException {
+        final Path dir = temporaryFolder.newFolder("configuration").toPath();
+        final Path subDir = dir.resolve("sub");
+        Files.createDirectory(subDir);
+        write(dir.resolve("b.xml"), "<server xmlns=\"urn:jboss:domain:4.0\"/>");
+        write(dir.resolve("a.xml"), "<server xmlns=\"urn:jboss:domain:4.0\"/>");
+        write(dir.resolve("other.xml"), "<other/>");
+        write(dir.resolve("c.txt"), "<server xmlns=\"urn:jboss:domain:4.0\"/>");
+        write(subDir.resolve("d.xml"), "<server xmlns=\"urn:jboss:domain:4.0\"/>");
+        final Path target = temporaryFolder.newFile("target.xml").toPath();
+        write(target, "<server xmlns=\"urn:jboss:domain:4.0\"/>");
+        boolean links = true;
+        try {
+            Files.createSymbolicLink(dir.resolve("link.xml"), target);
+            Files.createSymbolicLink(dir.resolve("dir-link.xml"), subDir);
+        } catch (UnsupportedOperationException | IOException e) {
+            // the file system does not support symbolic links
+            links = false;
+        }
+        final XMLFileMatcher matcher = new SimpleXMLFileMatcher() {
+            @Override
+            protected boolean documentElementLocalNameMatches(String localName) {
+                return "server".equals(localName);
+            }
+        };
+        final List<Path> expected = new ArrayList<>();
+        expected.add(dir.resolve("a.xml"));
+        expected.add(dir.resolve("b.xml"));
+        if (links) {
+            expected.add(dir.resolve("link.xml"));
+        }
+        Assert.assertEquals(expected, new ArrayList<>(XMLFiles.scan(dir, false, matcher)));
+        expected.add(subDir.resolve("d.xml"));
+        Collections.sort(expected);
+        Assert.assertEquals(expected, new ArrayList<>(XMLFiles.scan(dir, true, matcher)));
+    }
+}
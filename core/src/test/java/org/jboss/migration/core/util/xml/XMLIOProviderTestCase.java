@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.core.util.xml;
+
+import org.jboss.migration.core.ServerMigrationTask;
+import org.jboss.migration.core.ServerMigrationTaskContext;
+import org.jboss.migration.core.ServerMigrationTaskName;
+import org.jboss.migration.core.ServerMigrationTaskResult;
+import org.jboss.migration.core.ServerMigrationTaskRunner;
+import org.jboss.migration.core.env.MigrationEnvironment;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author emmartins
+ */
+public class XMLIOProviderTestCase {
+
+    @Test
+    public void testProviderPerImplementation() {
+        Assert.assertSame(XMLIOProvider.getInstance("jdk"), XMLIOProvider.getInstance(" jdk "));
+        Assert.assertSame(XMLIOProvider.getInstance(null), XMLIOProvider.getInstance(XMLIOProvider.DEFAULT_IMPLEMENTATION));
+        Assert.assertNotSame(XMLIOProvider.getInstance("jdk"), XMLIOProvider.getInstance(XMLIOProvider.DEFAULT_IMPLEMENTATION));
+        Assert.assertEquals("jdk", XMLIOProvider.getInstance("jdk").getImplementation());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownImplementation() {
+        XMLIOProvider.getInstance("unknown");
+    }
+
+    @Test
+    public void testProviderPerMigration() {
+        final AtomicReference<XMLIOProvider> taskProvider = new AtomicReference<>();
+        final ServerMigrationTask task = new ServerMigrationTask() {
+            @Override
+            public ServerMigrationTaskName getName() {
+                return new ServerMigrationTaskName.Builder().setName("xml").build();
+            }
+            @Override
+            public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                taskProvider.set(context.getServerMigrationContext().getXMLIOProvider());
+                return ServerMigrationTaskResult.SUCCESS;
+            }
+        };
+        final MigrationEnvironment environment = new MigrationEnvironment();
+        environment.setProperty(XMLIOProvider.EnvironmentProperties.STAX_IMPLEMENTATION, "jdk");
+        ServerMigrationTaskRunner.run(task, environment);
+        Assert.assertEquals("jdk", taskProvider.get().getImplementation());
+        ServerMigrationTaskRunner.run(task, new MigrationEnvironment());
+        Assert.assertEquals(XMLIOProvider.DEFAULT_IMPLEMENTATION, taskProvider.get().getImplementation());
+        // the migrations do not change the default provider
+        Assert.assertEquals(XMLIOProvider.DEFAULT_IMPLEMENTATION, XMLIOProvider.getInstance().getImplementation());
+    }
+
+    @Test
+    public void testExternalEntitiesNotResolved() throws Exception {
+        final File entityFile = File.createTempFile("entity", ".txt");
+        try {
+            Files.write(entityFile.toPath(), "external".getBytes(StandardCharsets.UTF_8));
+            final String xml = "<?xml version=\"1.0\"?><!DOCTYPE a [<!ENTITY e SYSTEM \"" + entityFile.toURI() + "\">]><a>&e;</a>";
+            final XMLStreamReader reader = XMLIOProvider.getInstance().createXMLStreamReader(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+            final StringBuilder text = new StringBuilder();
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.CHARACTERS) {
+                    text.append(reader.getText());
+                }
+            }
+            reader.close();
+            Assert.assertFalse(text.toString().contains("external"));
+        } finally {
+            Files.delete(entityFile.toPath());
+        }
+    }
+}
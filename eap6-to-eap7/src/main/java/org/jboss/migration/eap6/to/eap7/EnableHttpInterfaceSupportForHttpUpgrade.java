@@ -63,11 +63,8 @@ public class EnableHttpInterfaceSupportForHttpUpgrade implements ServerMigration
     @Override
     public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
         if (!context.getServerMigrationContext().getMigrationEnvironment().getPropertyAsBoolean(EnvironmentProperties.SKIP, Boolean.FALSE)) {
-            final boolean targetStarted = target.isStarted();
-            if (!targetStarted) {
-                target.start();
-            }
-            try {
+            // borrows the session of the config file migration, if any
+            try (WildFly10StandaloneServer.Session session = target.openSession()) {
                 final ModelNode op = Util.createEmptyOperation(READ_CHILDREN_NAMES_OPERATION, pathAddress(pathElement(CORE_SERVICE, MANAGEMENT)));
                 op.get(CHILD_TYPE).set(MANAGEMENT_INTERFACE);
                 final ModelNode opResult = target.executeManagementOperation(op);
@@ -83,10 +80,6 @@ public class EnableHttpInterfaceSupportForHttpUpgrade implements ServerMigration
                         return ServerMigrationTaskResult.SUCCESS;
                     }
                 }
-            } finally {
-                if (!targetStarted) {
-                    target.stop();
-                }
             }
         }
         return ServerMigrationTaskResult.SKIPPED;
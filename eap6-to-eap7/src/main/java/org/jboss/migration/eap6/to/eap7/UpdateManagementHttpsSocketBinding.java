@@ -74,11 +74,8 @@ public class UpdateManagementHttpsSocketBinding implements ServerMigrationTask {
             if (envPropertyPort == null || envPropertyPort.isEmpty()) {
                 envPropertyPort = DEFAULT_PORT;
             }
-            final boolean targetStarted = target.isStarted();
-            if (!targetStarted) {
-                target.start();
-            }
-            try {
+            // borrows the session of the config file migration, if any
+            try (WildFly10StandaloneServer.Session session = target.openSession()) {
                 final ModelNode op = Util.createEmptyOperation(READ_CHILDREN_RESOURCES_OPERATION, pathAddress(pathElement(SOCKET_BINDING_GROUP, "standard-sockets")));
                 op.get(CHILD_TYPE).set(SOCKET_BINDING);
                 op.get(RECURSIVE).set(true);
@@ -97,10 +94,6 @@ public class UpdateManagementHttpsSocketBinding implements ServerMigrationTask {
                         return ServerMigrationTaskResult.SUCCESS;
                     }
                 }
-            } finally {
-                if (!targetStarted) {
-                    target.stop();
-                }
             }
         }
         return ServerMigrationTaskResult.SKIPPED;
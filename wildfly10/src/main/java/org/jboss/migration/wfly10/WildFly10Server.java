@@ -23,12 +23,18 @@ import org.jboss.migration.core.ServerMigrationTaskResult;
 import org.jboss.migration.core.env.MigrationEnvironment;
 
 import java.nio.file.Path;
+import java.util.concurrent.Semaphore;
 
 /**
  * @author emmartins
  */
 public abstract class WildFly10Server extends JBossServer<WildFly10Server> {
 
+    /**
+     * the embedded server relies on JVM wide state (system properties, module loader), thus the embedded servers of a target server, e.g. of concurrently migrated config files, run one at a time
+     */
+    private final Semaphore embeddedServerRunningPermit = new Semaphore(1, true);
+
     public WildFly10Server(String migrationName, ProductInfo productInfo, Path baseDir, MigrationEnvironment migrationEnvironment) {
         super(migrationName, productInfo, baseDir, migrationEnvironment);
     }
@@ -44,4 +50,12 @@ public abstract class WildFly10Server extends JBossServer<WildFly10Server> {
     }
 
     protected abstract WildFly10ServerMigration getMigration(Server source);
+
+    /**
+     * Retrieves the permit which an embedded server of this server must hold while running.
+     * @return the permit which an embedded server of this server must hold while running
+     */
+    public Semaphore getEmbeddedServerRunningPermit() {
+        return embeddedServerRunningPermit;
+    }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.wfly10.standalone;
+
+import java.io.IOException;
+
+/**
+ * A base for standalone server implementations, with reference counted sessions, and without batching of write operations, which servers supporting it should override.
+ * @author emmartins
+ */
+public abstract class AbstractWildFly10StandaloneServer implements WildFly10StandaloneServer {
+
+    private int sessions;
+    private boolean startedBySession;
+
+    @Override
+    public synchronized Session openSession() {
+        if (sessions == 0 && !isStarted()) {
+            start();
+            startedBySession = true;
+        }
+        sessions++;
+        return new Session() {
+            private boolean closed;
+            @Override
+            public void close() {
+                synchronized (AbstractWildFly10StandaloneServer.this) {
+                    if (closed) {
+                        return;
+                    }
+                    closed = true;
+                    if (--sessions == 0 && startedBySession) {
+                        startedBySession = false;
+                        if (isStarted()) {
+                            stop();
+                        }
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Does nothing, thus write operations are executed immediately.
+     */
+    @Override
+    public void beginOperationBatch() {
+    }
+
+    /**
+     * Does nothing, thus write operations are executed immediately.
+     */
+    @Override
+    public void endOperationBatch() throws IOException, IllegalStateException {
+    }
+}
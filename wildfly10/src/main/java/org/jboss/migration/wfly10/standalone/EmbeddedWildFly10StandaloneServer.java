@@ -19,18 +19,22 @@ import org.jboss.as.controller.PathAddress;
 import org.jboss.as.controller.client.ModelControllerClient;
 import org.jboss.as.controller.operations.common.Util;
 import org.jboss.dmr.ModelNode;
+import org.jboss.threads.AsyncFuture;
 import org.wildfly.core.embedded.EmbeddedServerFactory;
-import org.wildfly.core.embedded.ServerStartException;
 import org.wildfly.core.embedded.StandaloneServer;
-import org.jboss.migration.core.logger.ServerMigrationLogger;
+import org.jboss.migration.core.ServerMigrationContext;
 import org.jboss.migration.wfly10.WildFly10Server;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashSet;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import static org.jboss.as.controller.PathAddress.pathAddress;
 import static org.jboss.as.controller.PathElement.pathElement;
@@ -39,15 +43,31 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.*;
 /**
  * @author emmartins
  */
-public class EmbeddedWildFly10StandaloneServer implements WildFly10StandaloneServer {
+public class EmbeddedWildFly10StandaloneServer extends AbstractWildFly10StandaloneServer {
 
     private final String config;
     private StandaloneServer standaloneServer;
     private final WildFly10Server server;
+    private final ServerMigrationContext serverMigrationContext;
+    /**
+     * the management model is read once, and then served from memory, with writes invalidating only the subtrees affected
+     */
+    private final ManagementModelCache modelCache = new ManagementModelCache() {
+        @Override
+        protected ModelNode execute(ModelNode operation) throws IOException {
+            return executeOperation(operation);
+        }
+    };
+    private final ManagementOperationBatch operationBatch = new ManagementOperationBatch();
 
     public EmbeddedWildFly10StandaloneServer(String config, WildFly10Server server) {
+        this(config, server, null);
+    }
+
+    public EmbeddedWildFly10StandaloneServer(String config, WildFly10Server server, ServerMigrationContext serverMigrationContext) {
         this.config = config;
         this.server = server;
+        this.serverMigrationContext = serverMigrationContext;
     }
 
     @Override
@@ -55,13 +75,86 @@ public class EmbeddedWildFly10StandaloneServer implements WildFly10StandaloneSer
         if (isStarted()) {
             throw new IllegalStateException("server started");
         }
-        final String[] cmds = {"--server-config="+config,"--admin-only"};
-        standaloneServer = EmbeddedServerFactory.create(server.getBaseDir().toString(), null, null, cmds);
         try {
-            standaloneServer.start();
-        } catch (ServerStartException e) {
+            // interruptible, so that a cancelled task does not wait for the permit
+            server.getEmbeddedServerRunningPermit().acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             throw new RuntimeException(e);
         }
+        standaloneServer = boot();
+        serverBooted();
+    }
+
+    /**
+     * Boots the server, which requires the running permit to be held. The boot ignores interrupts, thus it is done by another thread, and awaited interruptibly. If interrupted, e.g. due to the task execution being cancelled, the boot is abandoned, and once it completes the server is stopped, and the running permit released.
+     * @return the booted server
+     */
+    private StandaloneServer boot() {
+        final String[] cmds = {"--server-config="+config,"--admin-only"};
+        final Path baseDir = server.getBaseDir();
+        final Object bootLock = new Object();
+        final boolean[] abandoned = {false};
+        final StandaloneServer[] booted = {null};
+        final FutureTask<StandaloneServer> boot = new FutureTask<>(new Callable<StandaloneServer>() {
+            @Override
+            public StandaloneServer call() throws Exception {
+                final StandaloneServer standaloneServer;
+                try {
+                    standaloneServer = EmbeddedServerFactory.create(baseDir.toString(), null, null, cmds);
+                    standaloneServer.start();
+                } catch (Throwable t) {
+                    synchronized (bootLock) {
+                        if (abandoned[0]) {
+                            server.getEmbeddedServerRunningPermit().release();
+                        }
+                    }
+                    throw t;
+                }
+                synchronized (bootLock) {
+                    if (!abandoned[0]) {
+                        booted[0] = standaloneServer;
+                        return standaloneServer;
+                    }
+                }
+                stopServer(standaloneServer);
+                return null;
+            }
+        });
+        final Thread bootThread = new Thread(boot, "embedded-server-boot-"+config);
+        bootThread.setDaemon(true);
+        bootThread.start();
+        try {
+            return boot.get();
+        } catch (InterruptedException e) {
+            final StandaloneServer abandonedServer;
+            synchronized (bootLock) {
+                abandoned[0] = true;
+                abandonedServer = booted[0];
+            }
+            if (abandonedServer != null) {
+                // booted meanwhile
+                stopServer(abandonedServer);
+            }
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Server "+config+" boot abandoned, the execution was interrupted", e);
+        } catch (ExecutionException e) {
+            server.getEmbeddedServerRunningPermit().release();
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private void serverBooted() {
+        if (serverMigrationContext != null) {
+            serverMigrationContext.serverBooted(server.getStandaloneConfigurationDir().resolve(config).toString());
+        }
     }
 
     @Override
@@ -69,8 +162,20 @@ public class EmbeddedWildFly10StandaloneServer implements WildFly10StandaloneSer
         if (!isStarted()) {
             throw new IllegalStateException("server not started");
         }
-        standaloneServer.stop();
+        final StandaloneServer stoppedServer = standaloneServer;
         standaloneServer = null;
+        modelCache.invalidate();
+        // pending writes of a batch not ended are discarded
+        operationBatch.reset();
+        stopServer(stoppedServer);
+    }
+
+    private void stopServer(StandaloneServer standaloneServer) {
+        try {
+            standaloneServer.stop();
+        } finally {
+            server.getEmbeddedServerRunningPermit().release();
+        }
     }
 
     @Override
@@ -80,15 +185,8 @@ public class EmbeddedWildFly10StandaloneServer implements WildFly10StandaloneSer
 
     @Override
     public Set<String> getExtensions() throws IOException {
-        final ModelNode op = Util.createEmptyOperation(READ_CHILDREN_NAMES_OPERATION, null);
-        op.get(CHILD_TYPE).set(EXTENSION);
-        final ModelNode opResult = executeManagementOperation(op);
-        ServerMigrationLogger.ROOT_LOGGER.debugf("Get Extensions Op result %s", opResult.toString());
-        Set<String> result = new HashSet<>();
-        for (ModelNode resultNode : opResult.get(RESULT).asList()) {
-            result.add(resultNode.asString());
-        }
-        return result;
+        flushOperationBatch(PathAddress.pathAddress());
+        return modelCache.getChildrenNames(PathAddress.pathAddress(), EXTENSION);
     }
 
     @Override
@@ -98,38 +196,26 @@ public class EmbeddedWildFly10StandaloneServer implements WildFly10StandaloneSer
 
     @Override
     public ModelNode getSubsystem(String subsystem) throws IOException {
-        if (!getSubsystems().contains(subsystem)) {
-            return null;
-        }
         final PathAddress address = pathAddress(pathElement(SUBSYSTEM, subsystem));
-        final ModelNode op = Util.createEmptyOperation(READ_RESOURCE_OPERATION, address);
-        op.get(RECURSIVE).set(true);
-        final ModelNode result = executeManagementOperation(op);
-        ServerMigrationLogger.ROOT_LOGGER.debugf("Op result %s", result.toString());
-        return result.get(RESULT);
+        flushOperationBatch(address);
+        return modelCache.getResource(address);
     }
 
     @Override
     public Set<String> getSubsystems() throws IOException {
-        final ModelNode op = Util.createEmptyOperation(READ_CHILDREN_NAMES_OPERATION, null);
-        op.get(CHILD_TYPE).set(SUBSYSTEM);
-        final ModelNode opResult = executeManagementOperation(op);
-        ServerMigrationLogger.ROOT_LOGGER.debugf("Get subsystems Op result %s", opResult.toString());
-        Set<String> result = new HashSet<>();
-        for (ModelNode resultNode : opResult.get(RESULT).asList()) {
-            result.add(resultNode.asString());
-        }
-        return result;
+        flushOperationBatch(PathAddress.pathAddress());
+        return modelCache.getChildrenNames(PathAddress.pathAddress(), SUBSYSTEM);
     }
 
     @Override
     public List<ModelNode> getSecurityRealms() throws IOException {
-        final ModelNode op = Util.createEmptyOperation(READ_CHILDREN_RESOURCES_OPERATION, pathAddress(pathElement(CORE_SERVICE, MANAGEMENT)));
-        op.get(CHILD_TYPE).set(SECURITY_REALM);
-        op.get(RECURSIVE).set(true);
-        final ModelNode opResult = executeManagementOperation(op);
-        ServerMigrationLogger.ROOT_LOGGER.debugf("Get security realms Op result %s", opResult.toString());
-        return opResult.get(RESULT).asList();
+        final PathAddress address = pathAddress(pathElement(CORE_SERVICE, MANAGEMENT));
+        flushOperationBatch(address);
+        final ModelNode management = modelCache.getResource(address);
+        if (management == null || !management.hasDefined(SECURITY_REALM)) {
+            return new ArrayList<>();
+        }
+        return management.get(SECURITY_REALM).asList();
     }
 
     @Override
@@ -149,14 +235,16 @@ public class EmbeddedWildFly10StandaloneServer implements WildFly10StandaloneSer
     @Override
     public Path resolvePath(String pathName) throws IOException {
         final PathAddress address = pathAddress(pathElement(PATH, pathName));
-        final ModelNode op = Util.createEmptyOperation(READ_RESOURCE_OPERATION, address);
-        final ModelNode opResult = executeManagementOperation(op);
-        ServerMigrationLogger.ROOT_LOGGER.debugf("Resolve path Op result %s", opResult.toString());
-        String path = opResult.get(RESULT).get(PATH).asString();
-        if (!opResult.get(RESULT).hasDefined(RELATIVE_TO)) {
+        flushOperationBatch(address);
+        final ModelNode resource = modelCache.getResource(address);
+        if (resource == null) {
+            throw new RuntimeException("Path "+pathName+" not found");
+        }
+        String path = resource.get(PATH).asString();
+        if (!resource.hasDefined(RELATIVE_TO)) {
             return Paths.get(path);
         } else {
-            return resolvePath(opResult.get(RESULT).get(RELATIVE_TO).asString()).resolve(path);
+            return resolvePath(resource.get(RELATIVE_TO).asString()).resolve(path);
         }
     }
 
@@ -168,14 +256,120 @@ public class EmbeddedWildFly10StandaloneServer implements WildFly10StandaloneSer
 
     @Override
     public ModelNode executeManagementOperation(ModelNode operation) throws IOException {
-        final ModelNode result = standaloneServer.getModelControllerClient().execute(operation);
-        //ServerMigrationLogger.ROOT_LOGGER.infof("Op result %s", result.toString());
+        if (operationBatch.isActive()) {
+            if (!operation.get(OP).asString().startsWith("read-")) {
+                // batched, the result is only known when the batch is flushed
+                operationBatch.add(operation);
+                final ModelNode result = new ModelNode();
+                result.get(OUTCOME).set(SUCCESS);
+                return result;
+            }
+            flushOperationBatch();
+        }
+        final ModelNode result;
+        try {
+            result = executeOperation(operation);
+        } finally {
+            modelCache.operationExecuted(operation);
+        }
         processResult(result);
-        return  result;
+        return result;
     }
 
+    @Override
+    public void beginOperationBatch() {
+        operationBatch.begin();
+    }
+
+    @Override
+    public void endOperationBatch() throws IOException {
+        if (operationBatch.end()) {
+            flushOperationBatch();
+        }
+    }
+
+    private void flushOperationBatch(PathAddress address) throws IOException {
+        if (operationBatch.affects(address)) {
+            flushOperationBatch();
+        }
+    }
+
+    private void flushOperationBatch() throws IOException {
+        if (operationBatch.isEmpty()) {
+            return;
+        }
+        final ModelNode operation = operationBatch.getOperation();
+        try {
+            final long startTime = System.nanoTime();
+            final ModelNode result;
+            try {
+                result = execute(operation);
+            } finally {
+                modelCache.operationExecuted(operation);
+            }
+            final boolean successful = SUCCESS.equals(result.get(OUTCOME).asString());
+            if (serverMigrationContext != null && serverMigrationContext.hasListeners()) {
+                // an event per batched operation, and not for the composite operation, attributed to the task which executed it
+                operationBatch.operationsExecuted(serverMigrationContext, System.nanoTime() - startTime, successful);
+            }
+            if (!successful) {
+                throw new RuntimeException(operationBatch.getFailureDescription(result));
+            }
+        } finally {
+            operationBatch.clear();
+        }
+    }
+
+    private ModelNode executeOperation(ModelNode operation) throws IOException {
+        if (serverMigrationContext == null || !serverMigrationContext.hasListeners()) {
+            return execute(operation);
+        }
+        final long startTime = System.nanoTime();
+        final ModelNode result = execute(operation);
+        final boolean successful = SUCCESS.equals(result.get(OUTCOME).asString());
+        serverMigrationContext.managementOperationExecuted(operation.get(OP).asString(), PathAddress.pathAddress(operation.get(OP_ADDR)).toCLIStyleString(), System.nanoTime() - startTime, successful);
+        return result;
+    }
+
+    /**
+     * Executes an operation, waiting for its result interruptibly, since a blocking execution ignores interrupts. If interrupted, e.g. due to the task execution being cancelled, the operation is cancelled, and abandoned. All operations executed on the server, including the model cache reads and the batch flushes, are executed by this method, which tests may override with a fake server.
+     * @param operation the operation to execute
+     * @return the operation's result
+     * @throws IOException if the operation execution failed, or was interrupted
+     */
+    ModelNode execute(ModelNode operation) throws IOException {
+        final AsyncFuture<ModelNode> future = standaloneServer.getModelControllerClient().executeAsync(operation, null);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.asyncCancel(true);
+            Thread.currentThread().interrupt();
+            final InterruptedIOException interruptedIOException = new InterruptedIOException("Operation "+operation.get(OP).asString()+" abandoned, the execution was interrupted");
+            interruptedIOException.initCause(e);
+            throw interruptedIOException;
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Retrieves the server's model controller client. Operations executed directly with the client bypass the model cache and operation batch, thus retrieving the client flushes the operation batch and invalidates the whole cached model, and the client should not be kept for later use.
+     */
     @Override
     public ModelControllerClient getModelControllerClient() {
+        try {
+            flushOperationBatch();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        modelCache.invalidate();
         return standaloneServer.getModelControllerClient();
     }
 }
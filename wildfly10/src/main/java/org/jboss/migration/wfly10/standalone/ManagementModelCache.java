@@ -0,0 +1,201 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.wfly10.standalone;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.operations.common.Util;
+import org.jboss.dmr.ModelNode;
+import org.jboss.migration.core.logger.ServerMigrationLogger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.*;
+
+/**
+ * A cache of a server's management model, which reads the whole model once, and serves subtree reads from memory. Writes executed through {@link #operationExecuted(ModelNode)} only invalidate the subtrees of the resources they target, which are read again when next needed, other operations (unknown or with side effects) invalidate the whole model.
+ * @author emmartins
+ */
+abstract class ManagementModelCache {
+
+    /**
+     * the write operations which only affect the model of the resource targeted
+     */
+    private static final Set<String> RESOURCE_WRITE_OPERATIONS = new HashSet<>(Arrays.asList(ADD, REMOVE, WRITE_ATTRIBUTE_OPERATION, UNDEFINE_ATTRIBUTE_OPERATION, "map-put", "map-remove", "map-clear", "list-add", "list-remove", "list-clear"));
+
+    private ModelNode model;
+    private final List<PathAddress> invalidatedAddresses = new ArrayList<>();
+
+    /**
+     * Executes a management operation on the server.
+     * @param operation the operation
+     * @return the operation's result
+     * @throws IOException if the execution failed
+     */
+    protected abstract ModelNode execute(ModelNode operation) throws IOException;
+
+    /**
+     * Retrieves the model of the resource with the specified address.
+     * @param address the resource address
+     * @return the model of the resource with the specified address, null if the resource does not exists; the model returned is a copy, thus changing it does not affect the cache
+     * @throws IOException if the model failed to be read from the server
+     */
+    synchronized ModelNode getResource(PathAddress address) throws IOException {
+        final ModelNode resource = getCachedResource(address);
+        return resource != null ? resource.clone() : null;
+    }
+
+    /**
+     * Retrieves the names of the children resources, with the specified type, of the resource with the specified address.
+     * @param address the parent resource address
+     * @param childType the children resources type
+     * @return the names of the children resources
+     * @throws IOException if the model failed to be read from the server
+     */
+    synchronized Set<String> getChildrenNames(PathAddress address, String childType) throws IOException {
+        final ModelNode resource = getCachedResource(address);
+        final Set<String> result = new HashSet<>();
+        if (resource != null && resource.hasDefined(childType)) {
+            result.addAll(resource.get(childType).keys());
+        }
+        return result;
+    }
+
+    /**
+     * Notifies the cache that an operation was executed on the server, invalidating the parts of the model it may have changed.
+     * @param operation the operation executed
+     */
+    synchronized void operationExecuted(ModelNode operation) {
+        if (model == null) {
+            return;
+        }
+        final String operationName = operation.get(OP).asString();
+        if (operationName.startsWith("read-")) {
+            return;
+        }
+        if (COMPOSITE.equals(operationName)) {
+            for (ModelNode step : operation.get(STEPS).asList()) {
+                operationExecuted(step);
+            }
+            return;
+        }
+        final PathAddress address = PathAddress.pathAddress(operation.get(OP_ADDR));
+        if (!RESOURCE_WRITE_OPERATIONS.contains(operationName) || address.size() == 0) {
+            invalidate();
+            return;
+        }
+        for (PathAddress invalidatedAddress : invalidatedAddresses) {
+            if (isPrefix(invalidatedAddress, address)) {
+                // already invalidated
+                return;
+            }
+        }
+        for (Iterator<PathAddress> iterator = invalidatedAddresses.iterator(); iterator.hasNext(); ) {
+            if (isPrefix(address, iterator.next())) {
+                iterator.remove();
+            }
+        }
+        invalidatedAddresses.add(address);
+    }
+
+    /**
+     * Invalidates the whole model.
+     */
+    synchronized void invalidate() {
+        model = null;
+        invalidatedAddresses.clear();
+    }
+
+    private ModelNode getCachedResource(PathAddress address) throws IOException {
+        if (model == null) {
+            model = readResource(PathAddress.pathAddress());
+            invalidatedAddresses.clear();
+            if (model == null) {
+                throw new IOException("Failed to read the server's management model");
+            }
+        }
+        // refresh invalidated subtrees in, or containing, the subtree read
+        for (Iterator<PathAddress> iterator = invalidatedAddresses.iterator(); iterator.hasNext(); ) {
+            final PathAddress invalidatedAddress = iterator.next();
+            if (isPrefix(invalidatedAddress, address) || isPrefix(address, invalidatedAddress)) {
+                refresh(invalidatedAddress);
+                iterator.remove();
+            }
+        }
+        ModelNode resource = model;
+        for (PathElement element : address) {
+            if (!resource.hasDefined(element.getKey()) || !resource.get(element.getKey()).hasDefined(element.getValue())) {
+                return null;
+            }
+            resource = resource.get(element.getKey()).get(element.getValue());
+        }
+        return resource;
+    }
+
+    private void refresh(PathAddress address) throws IOException {
+        ServerMigrationLogger.ROOT_LOGGER.debugf("Refreshing management model of resource %s", address.toCLIStyleString());
+        final ModelNode resource = readResource(address);
+        ModelNode parent = model;
+        final int parentSize = address.size() - 1;
+        for (int i = 0; i < parentSize; i++) {
+            final PathElement element = address.getElement(i);
+            if (resource == null && (!parent.hasDefined(element.getKey()) || !parent.get(element.getKey()).hasDefined(element.getValue()))) {
+                // nothing to remove
+                return;
+            }
+            parent = parent.get(element.getKey()).get(element.getValue());
+        }
+        final PathElement element = address.getLastElement();
+        if (resource != null) {
+            parent.get(element.getKey()).get(element.getValue()).set(resource);
+        } else if (parent.hasDefined(element.getKey())) {
+            parent.get(element.getKey()).remove(element.getValue());
+        }
+    }
+
+    private ModelNode readResource(PathAddress address) throws IOException {
+        final ModelNode op = Util.createEmptyOperation(READ_RESOURCE_OPERATION, address);
+        op.get(RECURSIVE).set(true);
+        final ModelNode result = execute(op);
+        return SUCCESS.equals(result.get(OUTCOME).asString()) ? result.get(RESULT) : null;
+    }
+
+    /**
+     * Indicates if an address is a prefix of another address, i.e. if a resource is in the subtree of another.
+     * @param prefix the prefix address
+     * @param address the address
+     * @return true if the prefix address is a prefix of the address, false otherwise
+     */
+    static boolean isPrefix(PathAddress prefix, PathAddress address) {
+        if (prefix.size() > address.size()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.size(); i++) {
+            final PathElement prefixElement = prefix.getElement(i);
+            final PathElement addressElement = address.getElement(i);
+            if (!prefixElement.getKey().equals(addressElement.getKey()) || !prefixElement.getValue().equals(addressElement.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
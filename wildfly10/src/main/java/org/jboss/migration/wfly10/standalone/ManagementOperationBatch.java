@@ -0,0 +1,185 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.wfly10.standalone;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.client.helpers.Operations;
+import org.jboss.dmr.ModelNode;
+import org.jboss.migration.core.ServerMigrationContext;
+import org.jboss.migration.core.ServerMigrationTaskExecution;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.*;
+
+/**
+ * A batch of management write operations, which are executed as a single composite operation. Each operation is attributed to the task execution which added it, so that a failure may be reported with the task that originated it.
+ * @author emmartins
+ */
+class ManagementOperationBatch {
+
+    private final List<ModelNode> operations = new ArrayList<>();
+    private final List<ServerMigrationTaskExecution> origins = new ArrayList<>();
+    private final List<PathAddress> addresses = new ArrayList<>();
+    private int depth;
+
+    /**
+     * Starts a, possibly nested, batch scope.
+     */
+    void begin() {
+        depth++;
+    }
+
+    /**
+     * Ends a batch scope.
+     * @return true if the outermost batch scope ended, and the operations should be flushed
+     * @throws IllegalStateException if there is no batch scope
+     */
+    boolean end() throws IllegalStateException {
+        if (depth == 0) {
+            throw new IllegalStateException("no operation batch");
+        }
+        return --depth == 0;
+    }
+
+    /**
+     * Indicates if operations are being batched.
+     * @return true if operations are being batched, false otherwise
+     */
+    boolean isActive() {
+        return depth > 0;
+    }
+
+    /**
+     * Adds an operation to the batch, attributed to the task execution of the current thread.
+     * @param operation the operation
+     */
+    void add(ModelNode operation) {
+        operations.add(operation);
+        origins.add(ServerMigrationTaskExecution.getCurrent());
+        addAddresses(operation);
+    }
+
+    private void addAddresses(ModelNode operation) {
+        if (COMPOSITE.equals(operation.get(OP).asString())) {
+            for (ModelNode step : operation.get(STEPS).asList()) {
+                addAddresses(step);
+            }
+        } else {
+            addresses.add(PathAddress.pathAddress(operation.get(OP_ADDR)));
+        }
+    }
+
+    /**
+     * Indicates if the batch is empty.
+     * @return true if the batch has no operations, false otherwise
+     */
+    boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    /**
+     * Indicates if any of the batched operations targets a resource in, or containing, the subtree with the specified address.
+     * @param address the subtree address
+     * @return true if any of the batched operations targets a resource in, or containing, the subtree
+     */
+    boolean affects(PathAddress address) {
+        for (PathAddress operationAddress : addresses) {
+            if (ManagementModelCache.isPrefix(address, operationAddress) || ManagementModelCache.isPrefix(operationAddress, address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retrieves the operation which executes all batched operations.
+     * @return the batched operation if there is only one, otherwise a composite operation with all batched operations as steps
+     */
+    ModelNode getOperation() {
+        if (operations.size() == 1) {
+            return operations.get(0);
+        }
+        final Operations.CompositeOperationBuilder compositeOperationBuilder = Operations.CompositeOperationBuilder.create();
+        for (ModelNode operation : operations) {
+            compositeOperationBuilder.addStep(operation);
+        }
+        return compositeOperationBuilder.build().getOperation();
+    }
+
+    /**
+     * Notifies the server migration listeners that each batched operation was executed, by the task execution which added it. The operations are not timed individually, thus the batch execution's wall time is split evenly among them.
+     * @param serverMigrationContext the server migration context
+     * @param wallTime the batch execution's elapsed wall clock time in nanoseconds
+     * @param successful true if the batch execution succeeded, false otherwise, in which case none of the operations was applied
+     */
+    void operationsExecuted(ServerMigrationContext serverMigrationContext, long wallTime, boolean successful) {
+        final long operationWallTime = wallTime / operations.size();
+        for (int i = 0; i < operations.size(); i++) {
+            final ModelNode operation = operations.get(i);
+            serverMigrationContext.managementOperationExecuted(origins.get(i), operation.get(OP).asString(), PathAddress.pathAddress(operation.get(OP_ADDR)).toCLIStyleString(), operationWallTime, successful);
+        }
+    }
+
+    /**
+     * Describes the failure of the batch execution, attributing it to the failed operation and the task which originated it.
+     * @param result the result of the batch execution
+     * @return the failure's description
+     */
+    String getFailureDescription(ModelNode result) {
+        int failedIndex = -1;
+        ModelNode failureDescription = result.get(FAILURE_DESCRIPTION);
+        if (operations.size() == 1) {
+            failedIndex = 0;
+        } else if (result.hasDefined(RESULT)) {
+            // composite results have a result per step
+            for (int i = 0; i < operations.size(); i++) {
+                final ModelNode stepResult = result.get(RESULT).get("step-" + (i + 1));
+                if (stepResult.hasDefined(FAILURE_DESCRIPTION)) {
+                    failedIndex = i;
+                    failureDescription = stepResult.get(FAILURE_DESCRIPTION);
+                    break;
+                }
+            }
+        }
+        if (failedIndex < 0) {
+            return "Batch of " + operations.size() + " operations failed: " + failureDescription.asString();
+        }
+        final ModelNode operation = operations.get(failedIndex);
+        final ServerMigrationTaskExecution origin = origins.get(failedIndex);
+        return "Operation " + operation.get(OP).asString() + " on " + PathAddress.pathAddress(operation.get(OP_ADDR)).toCLIStyleString()
+                + (origin != null ? ", executed by task " + origin.getTaskPath() + " (" + ServerMigrationTaskExecution.LOGGING_CONTEXT_KEY + "=" + origin.getLoggingContext() + ")" : "")
+                + ", failed: " + failureDescription.asString();
+    }
+
+    /**
+     * Removes all batched operations.
+     */
+    void clear() {
+        operations.clear();
+        origins.clear();
+        addresses.clear();
+    }
+
+    /**
+     * Removes all batched operations, and ends all batch scopes.
+     */
+    void reset() {
+        clear();
+        depth = 0;
+    }
+}
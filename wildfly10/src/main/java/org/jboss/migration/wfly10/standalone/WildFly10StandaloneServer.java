@@ -28,6 +28,24 @@ import java.util.Set;
  * @author emmartins
  */
 public interface WildFly10StandaloneServer {
+
+    /**
+     * A session with the server, which keeps it started until closed.
+     */
+    interface Session extends AutoCloseable {
+        /**
+         * Closes the session, stopping the server if there are no more sessions opened, and the server was started by a session.
+         */
+        @Override
+        void close();
+    }
+
+    /**
+     * Opens a session with the server, starting it if not started. Sessions are reference counted, thus the server boots once, for the outermost session, and all tasks nested may borrow it by opening their own session.
+     * @return the session opened, which must be closed once the server is no longer needed
+     */
+    Session openSession();
+
     void start();
     void stop();
     boolean isStarted();
@@ -40,5 +58,18 @@ public interface WildFly10StandaloneServer {
     void removeExtension(String extension) throws IOException;
     Path resolvePath(String path)  throws IOException;
     ModelNode executeManagementOperation(ModelNode operation) throws IOException;
+
+    /**
+     * Starts batching the write operations executed through {@link #executeManagementOperation(ModelNode)}, which are only executed, as a single composite operation, when the outermost batch ends, or before a read of the resources affected. Batches may be nested.
+     */
+    void beginOperationBatch();
+
+    /**
+     * Ends a batch of write operations, executing all operations batched if it is the outermost batch.
+     * @throws IOException if the execution of the batched operations failed
+     * @throws IllegalStateException if there is no batch to end
+     */
+    void endOperationBatch() throws IOException, IllegalStateException;
+
     ModelControllerClient getModelControllerClient();
 }
\ No newline at end of file
@@ -66,19 +66,12 @@ public class WildFly10StandaloneConfigFileDeploymentsMigration<S extends Server>
                     context.getServerMigrationContext().getConsoleWrapper().printf("%n%n");
                     // remove all deployments, TODO add (user optional) functionality that copies deployment files.
                     context.getLogger().info("Deployments migration starting...");
-                    final boolean targetStarted = target.isStarted();
-                    if (!targetStarted) {
-                        target.start();
-                    }
-                    try {
+                    // borrows the session of the config file migration, if any
+                    try (WildFly10StandaloneServer.Session session = target.openSession()) {
                         for (ModelNode deployment : getDeployments(target, context)) {
                             migrateDeployment(deployment, source, target, context);
                         }
                         context.getLogger().info("Deployments migration done.");
-                    } finally {
-                        if (!targetStarted) {
-                            target.stop();
-                        }
                     }
                 }
                 return context.hasSucessfulSubtasks() ? ServerMigrationTaskResult.SUCCESS : ServerMigrationTaskResult.SKIPPED;
@@ -15,6 +15,7 @@
  */
 package org.jboss.migration.wfly10.standalone.config;
 
+import org.jboss.migration.core.IncrementalServerMigrationTask;
 import org.jboss.migration.core.Server;
 import org.jboss.migration.core.ServerMigrationTask;
 import org.jboss.migration.core.ServerMigrationTaskContext;
@@ -22,6 +23,7 @@ import org.jboss.migration.core.ServerMigrationTaskName;
 import org.jboss.migration.core.ServerMigrationTaskResult;
 import org.jboss.migration.core.ServerPath;
 import org.jboss.migration.core.console.ConsoleWrapper;
+import org.jboss.migration.core.util.ContentHashBuilder;
 import org.jboss.migration.wfly10.WildFly10Server;
 import org.jboss.migration.wfly10.standalone.EmbeddedWildFly10StandaloneServer;
 import org.jboss.migration.wfly10.standalone.WildFly10StandaloneServer;
@@ -41,12 +43,22 @@ public abstract class WildFly10StandaloneConfigFileMigration<S extends Server> {
 
     public ServerMigrationTask getServerMigrationTask(final ServerPath<S> sourceConfig, final WildFly10Server target) {
         final ServerMigrationTaskName taskName = new ServerMigrationTaskName.Builder().setName(MIGRATION_TASK_NAME).addAttribute(MIGRATION_REPORT_TASK_ATTR_SOURCE, sourceConfig.getPath().toString()).build();
-        return new ServerMigrationTask() {
+        return new IncrementalServerMigrationTask() {
             @Override
             public ServerMigrationTaskName getName() {
                 return taskName;
             }
             @Override
+            public String getContentHash(ServerMigrationTaskContext context) throws Exception {
+                final Path targetConfigFilePath = getTargetConfigFilePath(sourceConfig, target.getStandaloneConfigurationDir(), target, context);
+                return new ContentHashBuilder()
+                        .add(sourceConfig.getServer().getProductInfo().toString())
+                        .add(sourceConfig.getPath())
+                        .add(target.getProductInfo().toString())
+                        .add(targetConfigFilePath)
+                        .build();
+            }
+            @Override
             public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
                 final ConsoleWrapper consoleWrapper = context.getServerMigrationContext().getConsoleWrapper();
                 consoleWrapper.printf("%n%n");
@@ -101,7 +113,7 @@ public abstract class WildFly10StandaloneConfigFileMigration<S extends Server> {
     protected abstract List<ServerMigrationTask> getXMLConfigurationSubtasks(ServerPath<S> sourceConfig, Path targetConfigFilePath, WildFly10Server target);
 
     /**
-     * Process the config file Management Resources, which by default starts an embedded server, and then executes subtasks which modify the magement resources
+     * Process the config file Management Resources, which by default opens a session with an embedded server, shared by all subtasks which modify the magement resources
      * @param sourceConfig
      * @param targetConfigFilePath
      * @param target
@@ -109,15 +121,13 @@ public abstract class WildFly10StandaloneConfigFileMigration<S extends Server> {
      * @throws IOException
      */
     protected void processManagementResources(ServerPath<S> sourceConfig, Path targetConfigFilePath, WildFly10Server target, ServerMigrationTaskContext context) throws IOException {
-
-        final WildFly10StandaloneServer standaloneServer = startServer(sourceConfig.getPath(), target, context);
-        try {
+        final WildFly10StandaloneServer standaloneServer = createServer(sourceConfig.getPath(), target, context);
+        // the server boots once, for this session, subtasks borrow it by opening their own sessions, and it stops when this session is closed
+        try (WildFly10StandaloneServer.Session session = standaloneServer.openSession()) {
             // execute management resources subtasks
             for (ServerMigrationTask subtask : getManagementResourcesSubtasks(sourceConfig, targetConfigFilePath, standaloneServer)) {
                 context.execute(subtask);
             }
-        } finally {
-            standaloneServer.stop();
         }
     }
 
@@ -136,13 +146,27 @@ public abstract class WildFly10StandaloneConfigFileMigration<S extends Server> {
      * @param context
      * @return
      * @throws IOException
+     * @deprecated the server config is started by opening a session, use {@link #createServer(Path, WildFly10Server, ServerMigrationTaskContext)} and {@link WildFly10StandaloneServer#openSession()}
      */
+    @Deprecated
     protected WildFly10StandaloneServer startServer(Path targetConfigFilePath, WildFly10Server target, ServerMigrationTaskContext context) throws IOException {
+        final WildFly10StandaloneServer standaloneServer = createServer(targetConfigFilePath, target, context);
+        standaloneServer.start();
+        return standaloneServer;
+    }
+
+    /**
+     * Creates the server config, which is started by opening a session.
+     * @param targetConfigFilePath
+     * @param target
+     * @param context
+     * @return
+     * @throws IOException
+     */
+    protected WildFly10StandaloneServer createServer(Path targetConfigFilePath, WildFly10Server target, ServerMigrationTaskContext context) throws IOException {
         context.getServerMigrationContext().getConsoleWrapper().printf("%n%n");
         final String config = targetConfigFilePath.getFileName().toString();
         context.getLogger().infof("Starting server configuration %s", config);
-        final WildFly10StandaloneServer wildFly10StandaloneServer = new EmbeddedWildFly10StandaloneServer(config, target);
-        wildFly10StandaloneServer.start();
-        return wildFly10StandaloneServer;
+        return new EmbeddedWildFly10StandaloneServer(config, target, context.getServerMigrationContext());
     }
 }
@@ -110,19 +110,12 @@ public class WildFly10StandaloneConfigFileSecurityRealmsMigration<S extends Serv
     protected void migrateSecurityRealms(ServerPath<S> source, WildFly10StandaloneServer target, ServerMigrationTaskContext context) throws IOException {
         context.getServerMigrationContext().getConsoleWrapper().printf("%n%n");
         context.getLogger().infof("Security realms migration starting...");
-        final boolean targetStarted = target.isStarted();
-        if (!targetStarted) {
-            target.start();
-        }
-        try {
+        // borrows the session of the config file migration, if any
+        try (WildFly10StandaloneServer.Session session = target.openSession()) {
             for (ModelNode securityRealm : target.getSecurityRealms()) {
                 migrateSecurityRealm(securityRealm, source, target, context);
             }
             context.getLogger().infof("Security realms migration done.");
-        } finally {
-            if (!targetStarted) {
-                target.stop();
-            }
         }
     }
 
@@ -22,7 +22,8 @@ import org.jboss.migration.core.ServerMigrationTaskName;
 import org.jboss.migration.core.ServerMigrationTaskResult;
 import org.jboss.migration.core.ServerPath;
 import org.jboss.migration.core.env.MigrationEnvironment;
-import org.jboss.migration.core.util.xml.XMLFileFilter;
+import org.jboss.migration.core.util.PrefixTrie;
+import org.jboss.migration.core.util.xml.XMLFileElementFilter;
 import org.jboss.migration.core.util.xml.XMLFiles;
 import org.jboss.migration.wfly10.WildFly10Server;
 import org.jboss.migration.wfly10.standalone.WildFly10StandaloneServer;
@@ -38,7 +39,10 @@ import javax.xml.stream.events.StartElement;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Migration logic of WildFly 10 Subsystems, and related Extension.
@@ -53,6 +57,9 @@ public class WildFly10StandaloneConfigFileSubsystemsMigration<S extends Server>
     public static final String SERVER_MIGRATION_TASK_NAME_ATTRIBUTE_MODULE = "module";
     public static final String SERVER_MIGRATION_TASK_NAME_ATTRIBUTE_NAMESPACE = "namespace";
 
+    private static final Set<QName> EXTENSION_ELEMENT_NAMES = Collections.singleton(new QName(XMLFileElementFilter.ANY_NAMESPACE, "extension"));
+    private static final Set<QName> SUBSYSTEM_ELEMENT_NAMES = Collections.singleton(new QName(XMLFileElementFilter.ANY_NAMESPACE, "subsystem"));
+
     private final List<WildFly10Extension> supportedExtensions;
 
     public WildFly10StandaloneConfigFileSubsystemsMigration(List<WildFly10Extension> supportedExtensions) {
@@ -97,17 +104,23 @@ public class WildFly10StandaloneConfigFileSubsystemsMigration<S extends Server>
 
     protected void removeExtensionsAndSubsystems(final ServerPath<S> source, final Path targetConfigFilePath, final WildFly10Server targetServer, final List<WildFly10Extension> migrationExtensions, final List<WildFly10Subsystem> migrationSubsystems, final ServerMigrationTaskContext context) throws IOException {
         // setup the extensions filter
-        final XMLFileFilter extensionsFilter = new XMLFileFilter() {
+        final Set<String> migrationExtensionNames = new HashSet<>();
+        for (WildFly10Extension extension : migrationExtensions) {
+            migrationExtensionNames.add(extension.getName());
+        }
+        final XMLFileElementFilter extensionsFilter = new XMLFileElementFilter() {
+            @Override
+            public Set<QName> getElementNames() {
+                return EXTENSION_ELEMENT_NAMES;
+            }
             @Override
             public Result filter(StartElement startElement, XMLEventReader xmlEventReader, XMLEventWriter xmlEventWriter) throws IOException {
                 if (startElement.getName().getLocalPart().equals("extension")) {
                     Attribute moduleAttr = startElement.getAttributeByName(new QName("module"));
                     final String moduleName = moduleAttr.getValue();
                     // keep if module matches a supported extension name
-                    for (WildFly10Extension extension : migrationExtensions) {
-                        if (extension.getName().equals(moduleName)) {
-                            return Result.KEEP;
-                        }
+                    if (migrationExtensionNames.contains(moduleName)) {
+                        return Result.KEEP;
                     }
                     // not supported, remove it
                     final ServerMigrationTaskName subtaskName = new ServerMigrationTaskName.Builder().setName(SERVER_MIGRATION_TASK_NAME_REMOVE_EXTENSION).addAttribute(SERVER_MIGRATION_TASK_NAME_ATTRIBUTE_MODULE, moduleName).build();
@@ -131,17 +144,25 @@ public class WildFly10StandaloneConfigFileSubsystemsMigration<S extends Server>
             }
         };
         // setup subsystems filter
-        final XMLFileFilter subsystemsFilter = new XMLFileFilter() {
+        final PrefixTrie<WildFly10Subsystem> migrationSubsystemNamespaces = new PrefixTrie<>();
+        for (WildFly10Subsystem subsystem : migrationSubsystems) {
+            final String namespaceWithoutVersion = subsystem.getNamespaceWithoutVersion();
+            if (namespaceWithoutVersion != null) {
+                migrationSubsystemNamespaces.put(namespaceWithoutVersion + ':', subsystem);
+            }
+        }
+        final XMLFileElementFilter subsystemsFilter = new XMLFileElementFilter() {
+            @Override
+            public Set<QName> getElementNames() {
+                return SUBSYSTEM_ELEMENT_NAMES;
+            }
             @Override
             public Result filter(StartElement startElement, XMLEventReader xmlEventReader, XMLEventWriter xmlEventWriter) throws IOException {
                 if (startElement.getName().getLocalPart().equals("subsystem")) {
                     final String namespaceURI = startElement.getName().getNamespaceURI();
                     // keep if the namespace uri starts with a supported subsystem's namespace without version
-                    for (WildFly10Subsystem subsystem : migrationSubsystems) {
-                        final String namespaceWithoutVersion = subsystem.getNamespaceWithoutVersion();
-                        if (namespaceWithoutVersion != null && namespaceURI.startsWith(namespaceWithoutVersion + ':')) {
-                            return Result.KEEP;
-                        }
+                    if (migrationSubsystemNamespaces.matches(namespaceURI)) {
+                        return Result.KEEP;
                     }
                     // not supported, remove subsystem
                     final ServerMigrationTaskName subtaskName = new ServerMigrationTaskName.Builder().setName(SERVER_MIGRATION_TASK_NAME_REMOVE_SUBSYSTEM).addAttribute(SERVER_MIGRATION_TASK_NAME_ATTRIBUTE_NAMESPACE, namespaceURI).build();
@@ -164,7 +185,7 @@ public class WildFly10StandaloneConfigFileSubsystemsMigration<S extends Server>
                 }
             }
         };
-        XMLFiles.filter(targetConfigFilePath, extensionsFilter, subsystemsFilter);
+        XMLFiles.filter(context.getServerMigrationContext().getXMLIOProvider(), targetConfigFilePath, extensionsFilter, subsystemsFilter);
     }
 
     protected void migrateExtensions(WildFly10StandaloneServer wildFly10StandaloneServer, List<WildFly10Extension> extensionsToMigrate, ServerMigrationTaskContext context) throws IOException {
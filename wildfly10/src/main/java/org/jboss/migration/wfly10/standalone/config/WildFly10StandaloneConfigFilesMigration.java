@@ -26,7 +26,9 @@ import org.jboss.migration.core.console.ConsoleWrapper;
 import org.jboss.migration.core.console.UserConfirmation;
 import org.jboss.migration.wfly10.WildFly10Server;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import static org.jboss.migration.core.logger.ServerMigrationLogger.ROOT_LOGGER;
 
@@ -36,7 +38,19 @@ import static org.jboss.migration.core.logger.ServerMigrationLogger.ROOT_LOGGER;
  */
 public class WildFly10StandaloneConfigFilesMigration<S extends Server> {
 
-    public static final ServerMigrationTaskName SERVER_MIGRATION_TASK_NAME = new ServerMigrationTaskName.Builder().setName("config-files").build();
+    public static final String SERVER_MIGRATION_TASK_NAME_NAME = "config-files";
+    public static final ServerMigrationTaskName SERVER_MIGRATION_TASK_NAME = new ServerMigrationTaskName.Builder().setName(SERVER_MIGRATION_TASK_NAME_NAME).build();
+
+    public interface EnvironmentProperties {
+        /**
+         * the prefix for the name of config files related properties
+         */
+        String PROPERTIES_PREFIX = SERVER_MIGRATION_TASK_NAME_NAME + ".";
+        /**
+         * Integer property with the max number of config files migrated concurrently, in non interactive mode only. Only the XML processing and file copies overlap, the embedded servers of different config files run one at a time, since the embedded server relies on JVM wide state, and these usually dominate a config file migration time.
+         */
+        String MAX_THREADS = PROPERTIES_PREFIX + "maxThreads";
+    }
 
     private final WildFly10StandaloneConfigFileMigration configFileMigration;
 
@@ -97,9 +111,13 @@ public class WildFly10StandaloneConfigFilesMigration<S extends Server> {
     }
 
     protected void migrateAllStandaloneConfigs(Collection<ServerPath<S>> standaloneConfigs, WildFly10Server target, final ServerMigrationTaskContext taskContext) throws Exception {
+        final ServerMigrationContext serverMigrationContext = taskContext.getServerMigrationContext();
+        final int maxThreads = serverMigrationContext.isInteractive() ? 1 : Integer.valueOf(serverMigrationContext.getMigrationEnvironment().getPropertyAsString(EnvironmentProperties.MAX_THREADS, "1"));
+        final List<ServerMigrationTask> subtasks = new ArrayList<>();
         for (ServerPath<S> sourceStandaloneConfig : standaloneConfigs) {
-            taskContext.execute(configFileMigration.getServerMigrationTask(sourceStandaloneConfig, target));
+            subtasks.add(configFileMigration.getServerMigrationTask(sourceStandaloneConfig, target));
         }
+        taskContext.execute(subtasks, maxThreads);
     }
 
     protected void confirmAllStandaloneConfigs(Collection<ServerPath<S>> standaloneConfigs, WildFly10Server target, final ServerMigrationTaskContext taskContext) throws Exception {
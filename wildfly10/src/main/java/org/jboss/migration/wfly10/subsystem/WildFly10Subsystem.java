@@ -16,6 +16,7 @@
 package org.jboss.migration.wfly10.subsystem;
 
 import org.jboss.dmr.ModelNode;
+import org.jboss.migration.core.EnvironmentConfiguredServerMigrationTask;
 import org.jboss.migration.core.ServerMigrationTask;
 import org.jboss.migration.core.ServerMigrationTaskContext;
 import org.jboss.migration.core.ServerMigrationTaskName;
@@ -81,12 +82,16 @@ public class WildFly10Subsystem {
         if (subsystemMigrationTasks == null || subsystemMigrationTasks.isEmpty()) {
             return null;
         }
-        return new ServerMigrationTask() {
+        return new EnvironmentConfiguredServerMigrationTask() {
             @Override
             public ServerMigrationTaskName getName() {
                 return serverMigrationTaskName;
             }
             @Override
+            public String getEnvironmentPropertiesPrefix() {
+                return EnvironmentProperties.getSubsystemTaskPropertiesPrefix(name);
+            }
+            @Override
             public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
                 if (skipExecution(context)) {
                     return ServerMigrationTaskResult.SKIPPED;
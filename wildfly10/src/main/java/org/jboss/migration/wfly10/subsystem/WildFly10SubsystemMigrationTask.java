@@ -16,7 +16,7 @@
 package org.jboss.migration.wfly10.subsystem;
 
 import org.jboss.dmr.ModelNode;
-import org.jboss.migration.core.ServerMigrationTask;
+import org.jboss.migration.core.EnvironmentConfiguredServerMigrationTask;
 import org.jboss.migration.core.ServerMigrationTaskContext;
 import org.jboss.migration.core.ServerMigrationTaskResult;
 import org.jboss.migration.core.env.TaskEnvironment;
@@ -26,7 +26,7 @@ import org.jboss.migration.wfly10.standalone.WildFly10StandaloneServer;
  * Abstract implementation for a subsystem config migration task.
  * @author emmartins
  */
-public abstract class WildFly10SubsystemMigrationTask implements ServerMigrationTask {
+public abstract class WildFly10SubsystemMigrationTask implements EnvironmentConfiguredServerMigrationTask {
     private final ModelNode config;
     private final WildFly10Subsystem subsystem;
     private final WildFly10StandaloneServer server;
@@ -37,14 +37,34 @@ public abstract class WildFly10SubsystemMigrationTask implements ServerMigration
         this.server = server;
     }
 
+    @Override
+    public String getEnvironmentPropertiesPrefix() {
+        return EnvironmentProperties.getSubsystemSubtaskPropertiesPrefix(subsystem.getName(), this.getName().getName());
+    }
+
     @Override
     public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
-        final TaskEnvironment taskEnvironment = new TaskEnvironment(context.getServerMigrationContext().getMigrationEnvironment(), EnvironmentProperties.getSubsystemSubtaskPropertiesPrefix(subsystem.getName(), this.getName().getName()));
+        final TaskEnvironment taskEnvironment = new TaskEnvironment(context.getServerMigrationContext().getMigrationEnvironment(), getEnvironmentPropertiesPrefix());
         // check if subtask was skipped by env
         if (taskEnvironment.isSkippedByEnvironment()) {
             return ServerMigrationTaskResult.SKIPPED;
         }
-        return run(config, subsystem, server, context, taskEnvironment);
+        // the write operations are batched per subsystem migration task, and executed before it ends, thus a failure fails this task, and rolls back only its own operations
+        server.beginOperationBatch();
+        final ServerMigrationTaskResult result;
+        try {
+            result = run(config, subsystem, server, context, taskEnvironment);
+        } catch (Throwable t) {
+            // the operations executed before the failure are still applied, as if not batched
+            try {
+                server.endOperationBatch();
+            } catch (Throwable t2) {
+                t.addSuppressed(t2);
+            }
+            throw t;
+        }
+        server.endOperationBatch();
+        return result;
     }
 
     protected abstract ServerMigrationTaskResult run(ModelNode config, WildFly10Subsystem subsystem, WildFly10StandaloneServer server, ServerMigrationTaskContext context, TaskEnvironment taskEnvironment) throws Exception;
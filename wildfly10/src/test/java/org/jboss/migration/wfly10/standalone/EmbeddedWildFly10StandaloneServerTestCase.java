@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.wfly10.standalone;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.operations.common.Util;
+import org.jboss.dmr.ModelNode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.jboss.as.controller.PathAddress.pathAddress;
+import static org.jboss.as.controller.PathElement.pathElement;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.*;
+
+/**
+ * @author emmartins
+ */
+public class EmbeddedWildFly10StandaloneServerTestCase {
+
+    private static ModelNode addSubsystem(String subsystem) {
+        final ModelNode op = Util.createAddOperation(pathAddress(pathElement(SUBSYSTEM, subsystem)));
+        op.get("attr").set(subsystem);
+        return op;
+    }
+
+    private static int count(FakeEmbeddedWildFly10StandaloneServer server, String operationName) {
+        int count = 0;
+        for (ModelNode operation : server.getExecutedOperations()) {
+            if (operationName.equals(operation.get(OP).asString())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testModelCache() throws Exception {
+        final FakeEmbeddedWildFly10StandaloneServer server = new FakeEmbeddedWildFly10StandaloneServer();
+        server.executeManagementOperation(addSubsystem("a"));
+        server.executeManagementOperation(addSubsystem("b"));
+        server.getExecutedOperations().clear();
+        // the whole model is read once
+        Assert.assertEquals(new HashSet<>(Arrays.asList("a", "b")), server.getSubsystems());
+        Assert.assertEquals("a", server.getSubsystem("a").get("attr").asString());
+        Assert.assertNull(server.getSubsystem("c"));
+        Assert.assertEquals(1, server.getExecutedOperations().size());
+        Assert.assertEquals(0, pathAddress(server.getExecutedOperations().get(0).get(OP_ADDR)).size());
+        // the model returned is a copy
+        server.getSubsystem("a").get("attr").set("changed");
+        Assert.assertEquals("a", server.getSubsystem("a").get("attr").asString());
+        // a write invalidates only the subtree of the resource it targets
+        server.getExecutedOperations().clear();
+        server.executeManagementOperation(Util.getWriteAttributeOperation(pathAddress(pathElement(SUBSYSTEM, "a")), "attr", new ModelNode("written")));
+        Assert.assertEquals("b", server.getSubsystem("b").get("attr").asString());
+        Assert.assertEquals(0, count(server, READ_RESOURCE_OPERATION));
+        Assert.assertEquals("written", server.getSubsystem("a").get("attr").asString());
+        Assert.assertEquals(1, count(server, READ_RESOURCE_OPERATION));
+        Assert.assertEquals(pathAddress(pathElement(SUBSYSTEM, "a")), pathAddress(server.getExecutedOperations().get(1).get(OP_ADDR)));
+        // a removed resource is removed from the cached model once refreshed
+        server.removeSubsystem("a");
+        Assert.assertEquals(new HashSet<>(Arrays.asList("b")), server.getSubsystems());
+    }
+
+    @Test
+    public void testFlushBeforeRead() throws Exception {
+        final FakeEmbeddedWildFly10StandaloneServer server = new FakeEmbeddedWildFly10StandaloneServer();
+        server.beginOperationBatch();
+        server.executeManagementOperation(addSubsystem("a"));
+        Assert.assertEquals(0, count(server, ADD));
+        // a read of a subtree not affected does not flush the batch
+        Assert.assertNull(server.getSubsystem("b"));
+        Assert.assertEquals(0, count(server, ADD));
+        // a read of an affected subtree flushes the batch
+        Assert.assertEquals("a", server.getSubsystem("a").get("attr").asString());
+        Assert.assertEquals(1, count(server, ADD));
+        // a read operation flushes the batch
+        server.executeManagementOperation(addSubsystem("b"));
+        Assert.assertEquals(1, count(server, ADD));
+        server.executeManagementOperation(Util.createEmptyOperation(READ_RESOURCE_OPERATION, pathAddress(pathElement(SUBSYSTEM, "b"))));
+        Assert.assertEquals(2, count(server, ADD));
+        server.endOperationBatch();
+        Assert.assertEquals(2, count(server, ADD));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("a", "b")), server.getModel().get(SUBSYSTEM).keys());
+    }
+
+    @Test
+    public void testNestedBatches() throws Exception {
+        final FakeEmbeddedWildFly10StandaloneServer server = new FakeEmbeddedWildFly10StandaloneServer();
+        server.beginOperationBatch();
+        server.executeManagementOperation(addSubsystem("a"));
+        server.beginOperationBatch();
+        server.executeManagementOperation(addSubsystem("b"));
+        server.endOperationBatch();
+        // only the outermost batch flushes
+        Assert.assertTrue(server.getExecutedOperations().isEmpty());
+        server.executeManagementOperation(addSubsystem("c"));
+        server.endOperationBatch();
+        Assert.assertEquals(1, server.getExecutedOperations().size());
+        final ModelNode composite = server.getExecutedOperations().get(0);
+        Assert.assertEquals(COMPOSITE, composite.get(OP).asString());
+        Assert.assertEquals(3, composite.get(STEPS).asList().size());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), server.getModel().get(SUBSYSTEM).keys());
+        try {
+            server.endOperationBatch();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected, no batch to end
+        }
+        // without a batch writes are executed immediately
+        server.executeManagementOperation(addSubsystem("d"));
+        Assert.assertEquals(2, server.getExecutedOperations().size());
+    }
+
+    @Test
+    public void testFailedStep() throws Exception {
+        final FakeEmbeddedWildFly10StandaloneServer server = new FakeEmbeddedWildFly10StandaloneServer();
+        server.executeManagementOperation(addSubsystem("a"));
+        server.beginOperationBatch();
+        server.executeManagementOperation(addSubsystem("b"));
+        server.executeManagementOperation(addSubsystem("a"));
+        server.executeManagementOperation(addSubsystem("c"));
+        try {
+            server.endOperationBatch();
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Operation add on " + PathAddress.pathAddress(pathElement(SUBSYSTEM, "a")).toCLIStyleString() + ", failed: Duplicate resource"));
+        }
+        // the composite was rolled back, and the batch cleared
+        Assert.assertEquals(new HashSet<>(Arrays.asList("a")), server.getSubsystems());
+        server.executeManagementOperation(addSubsystem("d"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("a", "d")), server.getSubsystems());
+    }
+}
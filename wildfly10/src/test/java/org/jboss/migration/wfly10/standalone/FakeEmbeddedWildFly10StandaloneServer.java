@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.wfly10.standalone;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.dmr.ModelNode;
+import org.jboss.dmr.Property;
+import org.jboss.migration.core.ServerMigrationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.*;
+
+/**
+ * An embedded server which is never booted, starting it only flags it as started, and its operations are executed on an in memory model, which supports only the operations used by the model cache and the operation batches. Composite operations are atomic, as in a real server.
+ * @author emmartins
+ */
+public class FakeEmbeddedWildFly10StandaloneServer extends EmbeddedWildFly10StandaloneServer {
+
+    private static final Set<String> NOT_ATTRIBUTES = new HashSet<>(Arrays.asList(OP, OP_ADDR, OPERATION_HEADERS));
+
+    private ModelNode model = new ModelNode().setEmptyObject();
+    private final List<ModelNode> executedOperations = new ArrayList<>();
+    private boolean started;
+    private int starts;
+
+    public FakeEmbeddedWildFly10StandaloneServer() {
+        this(null);
+    }
+
+    public FakeEmbeddedWildFly10StandaloneServer(ServerMigrationContext serverMigrationContext) {
+        super("standalone.xml", null, serverMigrationContext);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (started) {
+            throw new IllegalStateException("server started");
+        }
+        started = true;
+        starts++;
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!started) {
+            throw new IllegalStateException("server not started");
+        }
+        started = false;
+    }
+
+    @Override
+    public synchronized boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Retrieves the number of times the fake server was started.
+     * @return the number of times the fake server was started
+     */
+    public synchronized int getStarts() {
+        return starts;
+    }
+
+    /**
+     * Retrieves the operations executed on the fake server.
+     * @return the operations executed on the fake server
+     */
+    public List<ModelNode> getExecutedOperations() {
+        return executedOperations;
+    }
+
+    /**
+     * Retrieves the fake server's model, bypassing the model cache.
+     * @return the fake server's model
+     */
+    public ModelNode getModel() {
+        return model;
+    }
+
+    @Override
+    synchronized ModelNode execute(ModelNode operation) {
+        executedOperations.add(operation.clone());
+        final ModelNode result = new ModelNode();
+        if (COMPOSITE.equals(operation.get(OP).asString())) {
+            final ModelNode updatedModel = model.clone();
+            final List<ModelNode> steps = operation.get(STEPS).asList();
+            for (int i = 0; i < steps.size(); i++) {
+                final ModelNode stepResult = execute(steps.get(i), updatedModel);
+                result.get(RESULT, "step-" + (i + 1)).set(stepResult);
+                if (!SUCCESS.equals(stepResult.get(OUTCOME).asString())) {
+                    // rolled back
+                    result.get(OUTCOME).set(FAILED);
+                    result.get(FAILURE_DESCRIPTION).set("Composite operation failed and was rolled back. Steps that failed: step-" + (i + 1));
+                    return result;
+                }
+            }
+            model = updatedModel;
+            result.get(OUTCOME).set(SUCCESS);
+            return result;
+        }
+        return execute(operation, model);
+    }
+
+    private static ModelNode execute(ModelNode operation, ModelNode model) {
+        final String operationName = operation.get(OP).asString();
+        final PathAddress address = PathAddress.pathAddress(operation.get(OP_ADDR));
+        final ModelNode resource = getResource(model, address);
+        final ModelNode result = new ModelNode();
+        if (ADD.equals(operationName)) {
+            if (resource != null) {
+                return failed(result, "Duplicate resource " + address.toCLIStyleString());
+            }
+            if (getResource(model, address.subAddress(0, address.size() - 1)) == null) {
+                return failed(result, "Parent of " + address.toCLIStyleString() + " not found");
+            }
+            final ModelNode added = new ModelNode().setEmptyObject();
+            for (Property property : operation.asPropertyList()) {
+                if (!NOT_ATTRIBUTES.contains(property.getName())) {
+                    added.get(property.getName()).set(property.getValue());
+                }
+            }
+            getResource(model, address.subAddress(0, address.size() - 1)).get(address.getLastElement().getKey(), address.getLastElement().getValue()).set(added);
+        } else if (resource == null) {
+            return failed(result, "Resource " + address.toCLIStyleString() + " not found");
+        } else if (REMOVE.equals(operationName)) {
+            getResource(model, address.subAddress(0, address.size() - 1)).get(address.getLastElement().getKey()).remove(address.getLastElement().getValue());
+        } else if (WRITE_ATTRIBUTE_OPERATION.equals(operationName)) {
+            resource.get(operation.get(NAME).asString()).set(operation.get(VALUE));
+        } else if (READ_RESOURCE_OPERATION.equals(operationName)) {
+            result.get(RESULT).set(resource.clone());
+        } else {
+            return failed(result, "Operation " + operationName + " not supported");
+        }
+        result.get(OUTCOME).set(SUCCESS);
+        return result;
+    }
+
+    private static ModelNode failed(ModelNode result, String failureDescription) {
+        result.get(OUTCOME).set(FAILED);
+        result.get(FAILURE_DESCRIPTION).set(failureDescription);
+        return result;
+    }
+
+    private static ModelNode getResource(ModelNode model, PathAddress address) {
+        ModelNode resource = model;
+        for (PathElement element : address) {
+            if (!resource.hasDefined(element.getKey()) || !resource.get(element.getKey()).hasDefined(element.getValue())) {
+                return null;
+            }
+            resource = resource.get(element.getKey()).get(element.getValue());
+        }
+        return resource;
+    }
+}
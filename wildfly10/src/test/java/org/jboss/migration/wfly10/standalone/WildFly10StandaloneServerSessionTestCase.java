@@ -0,0 +1,174 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.wfly10.standalone;
+
+import org.jboss.as.controller.client.ModelControllerClient;
+import org.jboss.dmr.ModelNode;
+import org.jboss.migration.wfly10.WildFly10Server;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author emmartins
+ */
+public class WildFly10StandaloneServerSessionTestCase {
+
+    /**
+     * A server with only the methods required, thus relying on the abstract server's session and batch implementations.
+     */
+    private static class TestStandaloneServer extends AbstractWildFly10StandaloneServer {
+
+        private boolean started;
+        private int starts;
+
+        @Override
+        public void start() {
+            if (started) {
+                throw new IllegalStateException("server started");
+            }
+            started = true;
+            starts++;
+        }
+
+        @Override
+        public void stop() {
+            if (!started) {
+                throw new IllegalStateException("server not started");
+            }
+            started = false;
+        }
+
+        @Override
+        public boolean isStarted() {
+            return started;
+        }
+
+        @Override
+        public WildFly10Server getServer() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Set<String> getExtensions() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<ModelNode> getSecurityRealms() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ModelNode getSubsystem(String name) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Set<String> getSubsystems() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void removeSubsystem(String subsystem) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void removeExtension(String extension) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Path resolvePath(String path) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ModelNode executeManagementOperation(ModelNode operation) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ModelControllerClient getModelControllerClient() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Test
+    public void testNestedSessions() {
+        final FakeEmbeddedWildFly10StandaloneServer server = new FakeEmbeddedWildFly10StandaloneServer();
+        final WildFly10StandaloneServer.Session outerSession = server.openSession();
+        Assert.assertTrue(server.isStarted());
+        final WildFly10StandaloneServer.Session innerSession = server.openSession();
+        innerSession.close();
+        // closing twice has no effect
+        innerSession.close();
+        Assert.assertTrue(server.isStarted());
+        // the server is booted once, for the outermost session
+        try (WildFly10StandaloneServer.Session session = server.openSession()) {
+            Assert.assertTrue(server.isStarted());
+        }
+        Assert.assertEquals(1, server.getStarts());
+        outerSession.close();
+        Assert.assertFalse(server.isStarted());
+        // a new outermost session boots the server again
+        try (WildFly10StandaloneServer.Session session = server.openSession()) {
+            Assert.assertEquals(2, server.getStarts());
+        }
+        Assert.assertFalse(server.isStarted());
+    }
+
+    @Test
+    public void testSessionOfStartedServer() {
+        final FakeEmbeddedWildFly10StandaloneServer server = new FakeEmbeddedWildFly10StandaloneServer();
+        server.start();
+        try (WildFly10StandaloneServer.Session session = server.openSession()) {
+            Assert.assertTrue(server.isStarted());
+        }
+        // not started by a session, thus not stopped by it
+        Assert.assertTrue(server.isStarted());
+        Assert.assertEquals(1, server.getStarts());
+    }
+
+    @Test
+    public void testAbstractServerSessions() throws Exception {
+        final TestStandaloneServer server = new TestStandaloneServer();
+        final WildFly10StandaloneServer.Session outerSession = server.openSession();
+        Assert.assertTrue(server.isStarted());
+        try (WildFly10StandaloneServer.Session session = server.openSession()) {
+            Assert.assertTrue(server.isStarted());
+        }
+        Assert.assertTrue(server.isStarted());
+        Assert.assertEquals(1, server.starts);
+        outerSession.close();
+        Assert.assertFalse(server.isStarted());
+        outerSession.close();
+        Assert.assertFalse(server.isStarted());
+        // started, but not by a session
+        server.start();
+        try (WildFly10StandaloneServer.Session session = server.openSession()) {
+            Assert.assertTrue(server.isStarted());
+        }
+        Assert.assertTrue(server.isStarted());
+        // the abstract server's batch implementation does nothing
+        server.beginOperationBatch();
+        server.endOperationBatch();
+    }
+}
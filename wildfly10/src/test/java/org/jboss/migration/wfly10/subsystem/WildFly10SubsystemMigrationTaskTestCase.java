@@ -0,0 +1,162 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jboss.migration.wfly10.subsystem;
+
+import org.jboss.as.controller.operations.common.Util;
+import org.jboss.dmr.ModelNode;
+import org.jboss.migration.core.ServerMigrationFailedException;
+import org.jboss.migration.core.ServerMigrationListener;
+import org.jboss.migration.core.ServerMigrationTask;
+import org.jboss.migration.core.ServerMigrationTaskContext;
+import org.jboss.migration.core.ServerMigrationTaskExecution;
+import org.jboss.migration.core.ServerMigrationTaskName;
+import org.jboss.migration.core.ServerMigrationTaskResult;
+import org.jboss.migration.core.ServerMigrationTaskRunner;
+import org.jboss.migration.core.env.MigrationEnvironment;
+import org.jboss.migration.core.env.TaskEnvironment;
+import org.jboss.migration.wfly10.standalone.FakeEmbeddedWildFly10StandaloneServer;
+import org.jboss.migration.wfly10.standalone.WildFly10StandaloneServer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.jboss.as.controller.PathAddress.pathAddress;
+import static org.jboss.as.controller.PathElement.pathElement;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.*;
+
+/**
+ * @author emmartins
+ */
+public class WildFly10SubsystemMigrationTaskTestCase {
+
+    /**
+     * A management operation executed event.
+     */
+    private static class OperationExecuted {
+        private final ServerMigrationTaskExecution taskExecution;
+        private final String operationName;
+        private final String address;
+        private final boolean successful;
+
+        OperationExecuted(ServerMigrationTaskExecution taskExecution, String operationName, String address, boolean successful) {
+            this.taskExecution = taskExecution;
+            this.operationName = operationName;
+            this.address = address;
+            this.successful = successful;
+        }
+    }
+
+    private static WildFly10Subsystem newSubsystem(String name, final String taskName, final String... addedSubsystems) {
+        final WildFly10SubsystemMigrationTaskFactory factory = new WildFly10SubsystemMigrationTaskFactory() {
+            @Override
+            public ServerMigrationTask getServerMigrationTask(ModelNode config, WildFly10Subsystem subsystem, WildFly10StandaloneServer server) {
+                return new WildFly10SubsystemMigrationTask(config, subsystem, server) {
+                    @Override
+                    public ServerMigrationTaskName getName() {
+                        return new ServerMigrationTaskName.Builder().setName(taskName).build();
+                    }
+                    @Override
+                    protected ServerMigrationTaskResult run(ModelNode config, WildFly10Subsystem subsystem, WildFly10StandaloneServer server, ServerMigrationTaskContext context, TaskEnvironment taskEnvironment) throws Exception {
+                        for (String addedSubsystem : addedSubsystems) {
+                            server.executeManagementOperation(Util.createAddOperation(pathAddress(pathElement(SUBSYSTEM, addedSubsystem))));
+                        }
+                        return ServerMigrationTaskResult.SUCCESS;
+                    }
+                };
+            }
+        };
+        return new WildFly10Subsystem(name, "urn:jboss:domain:" + name, "subsystem", Collections.singletonList(factory), null);
+    }
+
+    @Test
+    public void testFailureMarksIssuingTask() {
+        final List<OperationExecuted> events = Collections.synchronizedList(new ArrayList<OperationExecuted>());
+        final ServerMigrationListener listener = new ServerMigrationListener() {
+            @Override
+            public void taskStarted(ServerMigrationTaskExecution taskExecution) {
+            }
+            @Override
+            public void taskFinished(ServerMigrationTaskExecution taskExecution) {
+            }
+            @Override
+            public void managementOperationExecuted(ServerMigrationTaskExecution taskExecution, String operationName, String address, long wallTime, boolean successful) {
+                events.add(new OperationExecuted(taskExecution, operationName, address, successful));
+            }
+        };
+        final FakeEmbeddedWildFly10StandaloneServer[] server = {null};
+        final ServerMigrationTaskName rootTaskName = new ServerMigrationTaskName.Builder().setName("config").build();
+        final ServerMigrationTaskExecution rootTaskExecution = ServerMigrationTaskRunner.run(new ServerMigrationTask() {
+            @Override
+            public ServerMigrationTaskName getName() {
+                return rootTaskName;
+            }
+            @Override
+            public ServerMigrationTaskResult run(ServerMigrationTaskContext context) throws Exception {
+                server[0] = new FakeEmbeddedWildFly10StandaloneServer(context.getServerMigrationContext());
+                try (WildFly10StandaloneServer.Session session = server[0].openSession()) {
+                    context.execute(newSubsystem("x", "a", "a1", "a2").getServerMigrationTask(server[0]));
+                    try {
+                        context.execute(newSubsystem("y", "b", "b1", "a1").getServerMigrationTask(server[0]));
+                        Assert.fail();
+                    } catch (ServerMigrationFailedException e) {
+                        // expected
+                    }
+                    context.execute(newSubsystem("z", "c", "c1").getServerMigrationTask(server[0]));
+                }
+                return ServerMigrationTaskResult.SUCCESS;
+            }
+        }, new MigrationEnvironment(), Collections.singletonList(listener));
+        Assert.assertEquals(ServerMigrationTaskResult.Status.SUCCESS, rootTaskExecution.getResult().getStatus());
+        Assert.assertEquals(3, rootTaskExecution.getSubtasks().size());
+        final ServerMigrationTaskExecution aTaskExecution = rootTaskExecution.getSubtasks().get(0).getSubtasks().get(0);
+        final ServerMigrationTaskExecution bTaskExecution = rootTaskExecution.getSubtasks().get(1).getSubtasks().get(0);
+        final ServerMigrationTaskExecution cTaskExecution = rootTaskExecution.getSubtasks().get(2).getSubtasks().get(0);
+        Assert.assertEquals(ServerMigrationTaskResult.Status.SUCCESS, aTaskExecution.getResult().getStatus());
+        Assert.assertEquals(ServerMigrationTaskResult.Status.SUCCESS, cTaskExecution.getResult().getStatus());
+        // the failure is attributed to the subsystem migration task which executed the failed operation
+        Assert.assertEquals(ServerMigrationTaskResult.Status.FAIL, bTaskExecution.getResult().getStatus());
+        final String failure = bTaskExecution.getResult().getFailReason().getMessage();
+        Assert.assertTrue(failure, failure.contains("executed by task " + bTaskExecution.getTaskPath()));
+        // each subsystem migration task's operations are executed as a composite operation, thus only the failed task's operations were rolled back
+        Assert.assertEquals(new HashSet<>(Arrays.asList("a1", "a2", "c1")), server[0].getModel().get(SUBSYSTEM).keys());
+        // the listeners are notified of each batched operation, attributed to the task which executed it, and not of the composite operations
+        final List<OperationExecuted> writeEvents = new ArrayList<>();
+        for (OperationExecuted event : events) {
+            Assert.assertNotEquals(COMPOSITE, event.operationName);
+            if (!event.operationName.startsWith("read-")) {
+                writeEvents.add(event);
+            }
+        }
+        Assert.assertEquals(5, writeEvents.size());
+        assertOperationExecuted(writeEvents.get(0), aTaskExecution, "a1", true);
+        assertOperationExecuted(writeEvents.get(1), aTaskExecution, "a2", true);
+        assertOperationExecuted(writeEvents.get(2), bTaskExecution, "b1", false);
+        assertOperationExecuted(writeEvents.get(3), bTaskExecution, "a1", false);
+        assertOperationExecuted(writeEvents.get(4), cTaskExecution, "c1", true);
+    }
+
+    private static void assertOperationExecuted(OperationExecuted event, ServerMigrationTaskExecution taskExecution, String subsystem, boolean successful) {
+        Assert.assertSame(taskExecution, event.taskExecution);
+        Assert.assertEquals(ADD, event.operationName);
+        Assert.assertEquals(pathAddress(pathElement(SUBSYSTEM, subsystem)).toCLIStyleString(), event.address);
+        Assert.assertEquals(successful, event.successful);
+    }
+}